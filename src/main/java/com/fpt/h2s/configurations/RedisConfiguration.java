@@ -1,16 +1,26 @@
 package com.fpt.h2s.configurations;
 
+import com.fpt.h2s.models.entities.listeners.AccommodationIndexListener;
+import com.fpt.h2s.models.entities.listeners.UserKeywordIndexListener;
+import com.fpt.h2s.services.SearchResultCache;
+import com.fpt.h2s.utilities.Caches;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+
 @Getter
 @Configuration
 @RequiredArgsConstructor
@@ -26,6 +36,12 @@ public class RedisConfiguration {
     
     private final ConsulConfiguration consul;
     
+    private final ObjectProvider<AccommodationIndexListener> accommodationIndexListener;
+    
+    private final ObjectProvider<UserKeywordIndexListener> userKeywordIndexListener;
+    
+    private final ObjectProvider<SearchResultCache> searchResultCache;
+    
     @PostConstruct
     private void postInit() {
         this.redisPort = this.consul.get("service.redis.PORT");
@@ -55,4 +71,33 @@ public class RedisConfiguration {
         redisTemplate.afterPropertiesSet();
         return redisTemplate;
     }
+    
+    /**
+     * Evict values of {@link Caches} from the local cache and changed entities from the local indexes once another node
+     * invalidated them. Messages are handled one at a time in the order they were sent, so search versions are applied
+     * after the index changes sent before them.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer() {
+        final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(this.jedisConnectionFactory());
+        container.setTaskExecutor(new SyncTaskExecutor());
+        container.addMessageListener(
+            (message, pattern) -> Caches.invalidateLocally(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(Caches.INVALIDATION_CHANNEL)
+        );
+        container.addMessageListener(
+            (message, pattern) -> this.accommodationIndexListener.getObject().invalidateLocally(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(AccommodationIndexListener.INVALIDATION_CHANNEL)
+        );
+        container.addMessageListener(
+            (message, pattern) -> this.userKeywordIndexListener.getObject().invalidateLocally(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(UserKeywordIndexListener.INVALIDATION_CHANNEL)
+        );
+        container.addMessageListener(
+            (message, pattern) -> this.searchResultCache.getObject().applyLocally(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(SearchResultCache.VERSIONS_CHANNEL)
+        );
+        return container;
+    }
 }
\ No newline at end of file
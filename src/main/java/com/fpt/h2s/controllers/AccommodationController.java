@@ -6,10 +6,8 @@ import com.fpt.h2s.models.domains.ApiResponse;
 import com.fpt.h2s.models.domains.ListResult;
 import com.fpt.h2s.models.entities.Category;
 import com.fpt.h2s.models.entities.Property;
-import com.fpt.h2s.models.entities.Room;
 import com.fpt.h2s.models.entities.User;
-import com.fpt.h2s.models.exceptions.ApiException;
-import com.fpt.h2s.repositories.RoomRepository;
+import com.fpt.h2s.services.SearchMetrics;
 import com.fpt.h2s.services.commands.accommodation.*;
 import com.fpt.h2s.services.commands.requests.ChangeStatusAccommodationRequest;
 import com.fpt.h2s.services.commands.requests.HouseOwnerViewDetailAccommodationRequest;
@@ -19,12 +17,11 @@ import com.fpt.h2s.services.commands.transactions.CreateBookingTransactionReques
 import com.fpt.h2s.services.commands.transactions.SaveBookingTransactionResult;
 import com.fpt.h2s.services.commands.user.HouseOwnerAccommodationsCommand;
 import com.fpt.h2s.services.commands.user.HouseOwnerReviewsCommand;
+import com.fpt.h2s.utilities.Caches;
 import com.fpt.h2s.utilities.SpringBeans;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.hibernate.StaleObjectStateException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -70,18 +67,7 @@ public class AccommodationController {
     @PostMapping("/book")
     @Operation(summary = "Create payment")
     public ApiResponse<CreateBookingTransactionRequestCommand.Response> vnPay(@Valid @RequestBody final CreateBookingTransactionRequestCommand.Request request) {
-        try {
-            return SpringBeans.getBean(CreateBookingTransactionRequestCommand.class).execute(request);
-        } catch (final Exception e) {
-            if (ExceptionUtils.getRootCause(e) instanceof StaleObjectStateException transactionException) {
-                transactionException.printStackTrace();
-                final Integer id = Integer.parseInt(transactionException.getIdentifier().toString());
-                final RoomRepository roomRepository = SpringBeans.getBean(RoomRepository.class);
-                final Room room = roomRepository.findById(id).orElseThrow();
-                throw ApiException.badRequest("Phòng '{}' hiện không đủ phòng để đặt.", room.getName());
-            }
-            throw e;
-        }
+        return SpringBeans.getBean(CreateBookingTransactionRequestCommand.class).execute(request);
     }
 
     @PutMapping("/book/{id}/cancel")
@@ -142,6 +128,26 @@ public class AccommodationController {
         return SpringBeans.getBean(SearchAccommodationCommand.class).execute(request);
     }
 
+    @PostMapping("/search/keyword")
+    @Operation(summary = "Search opening accommodations by keyword, most relevant first.")
+    public ApiResponse<ListResult<AccommodationResponse>> searchAccommodationsByKeyword(@Valid @RequestBody final SearchAccommodationByKeywordCommand.Request request) {
+        return SpringBeans.getBean(SearchAccommodationByKeywordCommand.class).execute(request);
+    }
+
+    @PostMapping("/search/explain")
+    @RequiredRoles({User.Role.ADMIN})
+    @Operation(summary = "Search accommodations without cache and report the timing of every stage.")
+    public ApiResponse<SearchAccommodationCommand.Explanation> explainSearchAccommodations(@Valid @RequestBody final SearchAccommodationCommand.Request request) {
+        return SpringBeans.getBean(SearchAccommodationCommand.class).explain(request);
+    }
+
+    @GetMapping(value = "/search/metrics", produces = "text/plain")
+    @RequiredRoles({User.Role.ADMIN})
+    @Operation(summary = "Latency histograms of search stages and cache hits in the Prometheus text format.")
+    public String getSearchMetrics() {
+        return SpringBeans.getBean(SearchMetrics.class).toPrometheusText() + Caches.toPrometheusText();
+    }
+
     @GetMapping("/search/filter-items")
     @Operation(summary = "Get all essential items to search accommodations")
     public ApiResponse<AccommodationFilterEssentialCommand.Response> getFilterItemsForAccommodationsToBook() {
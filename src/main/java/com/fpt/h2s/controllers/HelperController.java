@@ -9,6 +9,9 @@ import com.fpt.h2s.models.exceptions.ApiException;
 import com.fpt.h2s.repositories.CategoryRepository;
 import com.fpt.h2s.repositories.DayTypeRepository;
 import com.fpt.h2s.services.AmazonS3Service;
+import com.fpt.h2s.services.RoomPriceCalendarService;
+import com.fpt.h2s.services.commands.accommodation.AccommodationFilterEssentialCommand;
+import com.fpt.h2s.utilities.Caches;
 import com.fpt.h2s.utilities.FileInfo;
 import com.fpt.h2s.utilities.FileInfo.Size;
 import com.fpt.h2s.utilities.SpringBeans;
@@ -21,9 +24,9 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import static com.fpt.h2s.utilities.FileInfo.Size.MB;
 
@@ -39,6 +42,7 @@ public class HelperController {
         String name = StringEx.beforeLastOf(".", file.getOriginalFilename());
         Category category = Category.builder().image(url).name(name).type(type).build();
         SpringBeans.getBean(CategoryRepository.class).save(category);
+        Caches.invalidate(AccommodationFilterEssentialCommand.AMENITIES_CACHE_KEY);
         return ApiResponse.success(url);
     }
 
@@ -78,6 +82,7 @@ public class HelperController {
             date = date.plusDays(1);
         }
         SpringBeans.getBean(DayTypeRepository.class).saveAll(calendarEntries);
+        SpringBeans.getBean(RoomPriceCalendarService.class).refreshDates(LocalDate.of(year, 1, 1), endDate);
         return ApiResponse.success();
     }
 
@@ -93,6 +98,7 @@ public class HelperController {
     @PutMapping("/update/day-type")
     @Operation(summary = "Update special day in day type")
     public ApiResponse<Void> updateDayType(@RequestBody final List<Map<String, Object>> dayTypesList) {
+        final List<LocalDate> updatedDates = new ArrayList<>();
         dayTypesList.forEach(dayTypeMap -> {
             LocalDate date = LocalDate.parse((String) dayTypeMap.get("date"));
             DayType.Type type = DayType.Type.valueOf((String) dayTypeMap.get("type"));
@@ -100,8 +106,13 @@ public class HelperController {
                 .ifPresent(dayType -> {
                     dayType.setType(type);
                     SpringBeans.getBean(DayTypeRepository.class).save(dayType);
+                    updatedDates.add(date);
                 });
         });
+        // Each refresh reloads the calendar and every accommodation, so updated dates are refreshed at once.
+        if (!updatedDates.isEmpty()) {
+            SpringBeans.getBean(RoomPriceCalendarService.class).refreshDates(Collections.min(updatedDates), Collections.max(updatedDates));
+        }
         return ApiResponse.success();
     }
 
@@ -115,18 +126,12 @@ public class HelperController {
         LocalDate fromDate = LocalDate.parse(fromDateStr);
         LocalDate toDate = LocalDate.parse(toDateStr);
 
-        List<DayType> dayTypesToUpdate = SpringBeans.getBean(DayTypeRepository.class).findAll()
-            .stream()
-            .filter(dayType -> {
-                LocalDate date = dayType.getDate();
-                return (date.isEqual(fromDate) || date.isEqual(toDate) || (date.isAfter(fromDate) && date.isBefore(toDate)));
-            })
-            .collect(Collectors.toList());
-
-        dayTypesToUpdate.forEach(dayType -> {
-            dayType.setType(type);
-            SpringBeans.getBean(DayTypeRepository.class).save(dayType);
-        });
+        List<DayType> dayTypesToUpdate = SpringBeans.getBean(DayTypeRepository.class)
+            .findAllById(fromDate.datesUntil(toDate.plusDays(1)).toList());
+
+        dayTypesToUpdate.forEach(dayType -> dayType.setType(type));
+        SpringBeans.getBean(DayTypeRepository.class).saveAll(dayTypesToUpdate);
+        SpringBeans.getBean(RoomPriceCalendarService.class).refreshDates(fromDate, toDate);
 
         return ApiResponse.success();
     }
@@ -67,6 +67,14 @@ public class RoomController {
         return SpringBeans.getBean(HouseOwnerUpdateRoomPriceCommand.class).execute(request);
     }
 
+    @PutMapping("/house-owner/update/amounts")
+    @RequiredRoles({User.Role.HOUSE_OWNER})
+    @Operation(summary = "Apply many price ranges to many rooms for house owner")
+    public ApiResponse<Void> bulkUpdateRoomAmountForHouseOwner
+            (@Valid @RequestBody final HouseOwnerBulkUpdateRoomPriceCommand.Request request) {
+        return SpringBeans.getBean(HouseOwnerBulkUpdateRoomPriceCommand.class).execute(request);
+    }
+
     @GetMapping("/house-owner/detail")
     @RequiredRoles({User.Role.HOUSE_OWNER})
     @Operation(summary = "View detail room")
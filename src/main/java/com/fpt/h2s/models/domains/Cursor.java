@@ -0,0 +1,36 @@
+package com.fpt.h2s.models.domains;
+
+import com.fpt.h2s.models.exceptions.ApiException;
+import com.fpt.h2s.utilities.Mappers;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last item of a page, sent back by clients to read the next page without skipping or counting rows.
+ *
+ * @param orderBy   name of the ordering the cursor has been created for.
+ * @param ascending direction of the ordering.
+ * @param value     sort key of the last item.
+ * @param id        id of the last item, breaks ties between items having the same sort key.
+ */
+public record Cursor(String orderBy, boolean ascending, Object value, Integer id) {
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Mappers.jsonOf(this).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(final String cursor) {
+        @Nullable Cursor decoded;
+        try {
+            decoded = Mappers.mapToObjectFrom(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8), Cursor.class);
+        } catch (final IllegalArgumentException e) {
+            decoded = null;
+        }
+        if (decoded == null || decoded.value() == null || decoded.id() == null) {
+            throw ApiException.badRequest("Cursor không hợp lệ.");
+        }
+        return decoded;
+    }
+}
@@ -3,7 +3,9 @@ package com.fpt.h2s.models.domains;
 import ananta.utility.ListEx;
 import lombok.Getter;
 import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Order;
 
@@ -19,26 +21,37 @@ public class ListResult<T> {
     private final List<T> items;
     private final int page;
     private final int size;
-    private final long totalItems;
-    private final int totalPages;
+    /**
+     * Null when items have been read from a cursor, they are not counted.
+     */
+    @Nullable
+    private final Long totalItems;
+    @Nullable
+    private final Integer totalPages;
     private final String orderBy;
     private final boolean isAscending;
     private final boolean isEmpty;
+    /**
+     * Send back to read the next items without counting or skipping rows, null on the last page.
+     */
+    @Nullable
+    private final String nextCursor;
 
-    private ListResult(@NonNull final Page<T> page) {
-        final Optional<Order> order = page.getSort().stream().findFirst();
+    private ListResult(@NonNull final Slice<T> slice, @Nullable final String nextCursor) {
+        final Optional<Order> order = slice.getSort().stream().findFirst();
 
-        this.items = page.getContent();
-        this.page = page.getNumber() + 1;
-        this.size = page.getSize();
-        this.totalItems = page.getTotalElements();
-        this.totalPages = page.getTotalPages();
+        this.items = slice.getContent();
+        this.page = slice.getNumber() + 1;
+        this.size = slice.getSize();
+        this.totalItems = slice instanceof final Page<T> page ? page.getTotalElements() : null;
+        this.totalPages = slice instanceof final Page<T> page ? page.getTotalPages() : null;
         this.orderBy = order.map(Order::getProperty).orElse(null);
         this.isAscending = order.map(Order::getDirection).map(Sort.Direction::isAscending).orElse(false);
-        this.isEmpty = page.isEmpty();
+        this.isEmpty = slice.isEmpty();
+        this.nextCursor = nextCursor;
     }
 
-    private ListResult(@NonNull final ListResult<?> listResult, @NonNull final Collection<T> items) {
+    private ListResult(@NonNull final ListResult<?> listResult, @NonNull final Collection<T> items, @Nullable final String nextCursor) {
         this.items = ListEx.listOf(items);
         this.page = listResult.getPage();
         this.size = listResult.getSize();
@@ -47,10 +60,15 @@ public class ListResult<T> {
         this.orderBy = listResult.getOrderBy();
         this.isAscending = listResult.isAscending();
         this.isEmpty = listResult.isEmpty();
+        this.nextCursor = nextCursor;
     }
 
     public <R> ListResult<R> withContent(@NonNull final Collection<R> items) {
-        return new ListResult<>(this, items);
+        return new ListResult<>(this, items, this.nextCursor);
+    }
+
+    public ListResult<T> withNextCursor(@Nullable final String nextCursor) {
+        return new ListResult<>(this, this.items, nextCursor);
     }
 
     public <R> ListResult<R> map(@NonNull final Function<T, R> function) {
@@ -58,7 +76,11 @@ public class ListResult<T> {
     }
 
     public static <T> ListResult<T> of(@NonNull final Page<T> page) {
-        return new ListResult<>(page);
+        return new ListResult<>(page, null);
+    }
+
+    public static <T> ListResult<T> of(@NonNull final Slice<T> slice, @Nullable final String nextCursor) {
+        return new ListResult<>(slice, nextCursor);
     }
 
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.fpt.h2s.models.domains;
 
 import ananta.utility.StringEx;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
@@ -12,6 +13,25 @@ public abstract class SearchRequest {
     protected abstract Integer getPage();
     protected abstract Integer getSize();
     protected abstract Boolean getIsDescending();
+
+    /**
+     * Requests supporting seek pagination expose the cursor sent by clients.
+     */
+    @Nullable
+    protected String getCursor() {
+        return null;
+    }
+
+    /**
+     * @return null when reading by page number.
+     */
+    @Nullable
+    public Cursor toCursor() {
+        if (StringEx.isBlank(this.getCursor())) {
+            return null;
+        }
+        return Cursor.decode(this.getCursor());
+    }
     
     public PageRequest toPageRequest() {
         final int page = Optional.ofNullable(this.getPage()).orElse(1);
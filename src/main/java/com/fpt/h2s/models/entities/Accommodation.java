@@ -3,7 +3,9 @@ package com.fpt.h2s.models.entities;
 import ananta.utility.StreamEx;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fpt.h2s.models.entities.converters.JPAEnumConverter;
+import com.fpt.h2s.models.entities.listeners.AccommodationIndexListener;
 import com.fpt.h2s.models.entities.listeners.CreatorIdListener;
+import com.fpt.h2s.models.entities.listeners.SearchVersionListener;
 import jakarta.persistence.*;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Table;
@@ -14,6 +16,7 @@ import org.hibernate.annotations.*;
 import org.springframework.stereotype.Component;
 
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
 
@@ -30,7 +33,7 @@ import java.util.Set;
 @DynamicInsert
 @DynamicUpdate
 @Table(name = "accommodations")
-@EntityListeners({CreatorIdListener.class})
+@EntityListeners({CreatorIdListener.class, AccommodationIndexListener.class, SearchVersionListener.class})
 @BatchSize(size = 50)
 public class Accommodation {
 
@@ -54,10 +57,32 @@ public class Accommodation {
 
     private Double longitude;
 
+    /**
+     * Lowest base price of the rooms, maintained by {@link com.fpt.h2s.services.AccommodationPriceBounds}.
+     */
     private Long minPrice;
 
+    /**
+     * Highest base price of the rooms, maintained by {@link com.fpt.h2s.services.AccommodationPriceBounds}.
+     */
     private Long maxPrice;
 
+    /**
+     * Lowest discounted nightly price of the rooms between {@link #upcomingPricesFrom} and {@link #upcomingPricesTo},
+     * null when no room has a price on these days.
+     */
+    private Long upcomingMinPrice;
+
+    /**
+     * Highest discounted nightly price of the rooms between {@link #upcomingPricesFrom} and {@link #upcomingPricesTo},
+     * null when no room has a price on these days.
+     */
+    private Long upcomingMaxPrice;
+
+    private LocalDate upcomingPricesFrom;
+
+    private LocalDate upcomingPricesTo;
+
     @Enumerated(EnumType.STRING)
     private Type type;
 
@@ -76,6 +101,12 @@ public class Accommodation {
 
     private Float reviewRate;
 
+    /**
+     * Default order of searches, kept in an indexed column. Recompute it with {@link #withRankingScoreComputed()}
+     * whenever totalBookings or reviewRate change.
+     */
+    private Double rankingScore;
+
     private Integer creatorId;
 
     @CreationTimestamp
@@ -128,6 +159,16 @@ public class Accommodation {
     @JoinColumn(name = Contract.Fields.id, insertable = false, updatable = false)
     private List<Contract> contracts;
 
+    public Accommodation withRankingScoreComputed() {
+        return this.withRankingScore(rankingScoreOf(this.totalBookings, this.reviewRate));
+    }
+
+    public static double rankingScoreOf(Integer totalBookings, Float reviewRate) {
+        final int bookings = totalBookings == null ? 0 : totalBookings;
+        final double rate = reviewRate == null ? 0 : reviewRate;
+        return bookings * (1 + rate / 5);
+    }
+
     public boolean isCreatedBy(User user) {
         return getCreatorId().equals(user.getId());
     }
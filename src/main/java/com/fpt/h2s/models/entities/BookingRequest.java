@@ -3,7 +3,9 @@ package com.fpt.h2s.models.entities;
 import ananta.utility.StreamEx;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fpt.h2s.models.entities.converters.JPAEnumConverter;
+import com.fpt.h2s.models.entities.listeners.AccommodationIndexListener;
 import com.fpt.h2s.models.entities.listeners.CreatorIdListener;
+import com.fpt.h2s.models.entities.listeners.SearchVersionListener;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Table;
 import jakarta.persistence.*;
@@ -30,7 +32,7 @@ import java.util.Set;
 @DynamicUpdate
 @Table(name = "booking_requests")
 @EqualsAndHashCode(of = "id")
-@EntityListeners({CreatorIdListener.class})
+@EntityListeners({CreatorIdListener.class, AccommodationIndexListener.class, SearchVersionListener.class})
 @BatchSize(size = 50)
 public class BookingRequest {
 
@@ -2,6 +2,7 @@ package com.fpt.h2s.models.entities;
 
 import com.fpt.h2s.models.entities.converters.JPAEnumConverter;
 import com.fpt.h2s.models.entities.listeners.CreatorIdListener;
+import com.fpt.h2s.models.entities.listeners.SearchVersionListener;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldNameConstants;
@@ -23,7 +24,7 @@ import java.time.LocalDate;
 @Entity
 @DynamicInsert
 @DynamicUpdate
-@EntityListeners({CreatorIdListener.class})
+@EntityListeners({CreatorIdListener.class, SearchVersionListener.class})
 @Table(name = "dates")
 public class DayType {
 
@@ -0,0 +1,49 @@
+package com.fpt.h2s.models.entities;
+
+import jakarta.persistence.Table;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldNameConstants;
+import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.*;
+
+import java.sql.Timestamp;
+
+/**
+ * Side effect of a transaction on an external system, saved in the same transaction and dispatched after commit
+ * by {@link com.fpt.h2s.services.OutboxRelay}. Events are deleted once dispatched.
+ */
+@With
+@Getter
+@SuperBuilder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldNameConstants
+@ToString
+/* Jpa */
+@Entity
+@DynamicInsert
+@DynamicUpdate
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    private String payload;
+
+    private Integer attempts;
+
+    private Timestamp nextAttemptAt;
+
+    @CreationTimestamp
+    private Timestamp createdAt;
+
+    public enum Type {
+        NOTIFICATION, MAIL
+    }
+}
@@ -2,6 +2,7 @@ package com.fpt.h2s.models.entities;
 
 import com.fpt.h2s.models.entities.converters.JPAEnumConverter;
 import com.fpt.h2s.models.entities.listeners.CreatorIdListener;
+import com.fpt.h2s.models.entities.listeners.SearchVersionListener;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldNameConstants;
@@ -25,7 +26,7 @@ import java.time.LocalDate;
 @DynamicInsert
 @DynamicUpdate
 @SuperBuilder(toBuilder = true)
-@EntityListeners({CreatorIdListener.class})
+@EntityListeners({CreatorIdListener.class, SearchVersionListener.class})
 @Table(name = "price_histories")
 public class PriceHistory {
     @Id
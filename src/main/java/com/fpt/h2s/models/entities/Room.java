@@ -1,7 +1,9 @@
 package com.fpt.h2s.models.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fpt.h2s.models.entities.listeners.AccommodationIndexListener;
 import com.fpt.h2s.models.entities.listeners.CreatorIdListener;
+import com.fpt.h2s.models.entities.listeners.SearchVersionListener;
 import jakarta.persistence.Table;
 import jakarta.persistence.*;
 import lombok.*;
@@ -26,7 +28,7 @@ import java.util.Set;
 @DynamicInsert
 @DynamicUpdate
 @Table(name = "rooms")
-@EntityListeners({CreatorIdListener.class})
+@EntityListeners({CreatorIdListener.class, AccommodationIndexListener.class, SearchVersionListener.class})
 @BatchSize(size = 50)
 public class Room {
 
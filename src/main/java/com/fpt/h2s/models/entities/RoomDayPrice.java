@@ -0,0 +1,47 @@
+package com.fpt.h2s.models.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldNameConstants;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDate;
+
+/**
+ * Effective price of a room for one day, derived from {@link PriceHistory} rules and the {@link DayType} calendar.
+ * Rows are maintained by {@link com.fpt.h2s.services.RoomPriceCalendarService}, never written directly.
+ */
+@SuperBuilder(toBuilder = true)
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldNameConstants
+@ToString
+/* Jpa */
+@Entity
+@Table(name = "room_day_prices")
+public class RoomDayPrice {
+
+    @EmbeddedId
+    private PK id;
+
+    private Long price;
+
+    private Long discount;
+
+    private Long displayPrice;
+
+    @Embeddable
+    @Setter
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @FieldNameConstants
+    @ToString
+    @EqualsAndHashCode
+    public static class PK {
+        Integer roomId;
+
+        LocalDate date;
+    }
+}
@@ -0,0 +1,43 @@
+package com.fpt.h2s.models.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldNameConstants;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDate;
+
+/**
+ * Units of a room held by paid bookings on one day, derived from {@link BookingRequest} and their details.
+ * Days without booked units have no row. Rows are maintained by {@link com.fpt.h2s.services.RoomOccupancyLedger}, never written directly.
+ */
+@SuperBuilder(toBuilder = true)
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldNameConstants
+@ToString
+/* Jpa */
+@Entity
+@Table(name = "room_occupancies")
+public class RoomOccupancy {
+
+    @EmbeddedId
+    private PK id;
+
+    private Integer bookedUnits;
+
+    @Embeddable
+    @Setter
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @FieldNameConstants
+    @ToString
+    @EqualsAndHashCode
+    public static class PK {
+        Integer roomId;
+
+        LocalDate date;
+    }
+}
@@ -1,6 +1,8 @@
 package com.fpt.h2s.models.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fpt.h2s.models.entities.listeners.AccommodationIndexListener;
+import com.fpt.h2s.models.entities.listeners.SearchVersionListener;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldNameConstants;
@@ -19,6 +21,7 @@ import org.hibernate.annotations.DynamicUpdate;
 @DynamicInsert
 @DynamicUpdate
 @Table(name = "rooms_properties")
+@EntityListeners({AccommodationIndexListener.class, SearchVersionListener.class})
 public class RoomProperty {
 
     @EmbeddedId
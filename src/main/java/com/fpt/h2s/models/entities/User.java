@@ -5,6 +5,7 @@ import ananta.utility.StringEx;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fpt.h2s.models.entities.converters.JPAEnumConverter;
 import com.fpt.h2s.models.entities.listeners.CreatorIdListener;
+import com.fpt.h2s.models.entities.listeners.UserKeywordIndexListener;
 import com.fpt.h2s.models.exceptions.ApiException;
 import com.fpt.h2s.repositories.RedisRepository;
 import com.fpt.h2s.utilities.MoreRequests;
@@ -12,6 +13,7 @@ import com.fpt.h2s.utilities.Tokens;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Table;
 import jakarta.persistence.*;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.*;
 import lombok.experimental.FieldNameConstants;
 import lombok.experimental.SuperBuilder;
@@ -32,7 +34,7 @@ import java.util.*;
 @Entity
 @DynamicInsert
 @DynamicUpdate
-@EntityListeners({CreatorIdListener.class})
+@EntityListeners({CreatorIdListener.class, UserKeywordIndexListener.class})
 @BatchSize(size = 50)
 @Table(name = "users")
 public class User {
@@ -156,22 +158,29 @@ public class User {
         return Arrays.stream(statuses).anyMatch(this::is);
     }
 
+    /**
+     * Read the user of the current request from Redis once, later calls in the same request reuse it.
+     */
     public static Optional<Integer> currentUserId() {
-        return Tokens
-            .findTokenFrom(MoreRequests.getCurrentHttpRequest())
+        final HttpServletRequest request = MoreRequests.getCurrentHttpRequest();
+        if (request.getAttribute(CURRENT_USER_ID_ATTRIBUTE) instanceof final Integer userId) {
+            return Optional.of(userId);
+        }
+        final Optional<Integer> userId = Tokens
+            .findTokenFrom(request)
             .flatMap(token -> RedisRepository.get(token, User.class))
             .map(User::getId);
+        userId.ifPresent(id -> request.setAttribute(CURRENT_USER_ID_ATTRIBUTE, id));
+        return userId;
     }
 
     public static Integer getCurrentId() {
-        return Tokens
-            .findTokenFrom(MoreRequests.getCurrentHttpRequest())
-            .flatMap(token -> RedisRepository.get(token, User.class))
-            .map(User::getId)
-            .orElseThrow(ApiException::unauthorized);
+        return User.currentUserId().orElseThrow(ApiException::unauthorized);
     }
 
 
+    private static final String CURRENT_USER_ID_ATTRIBUTE = User.class.getName() + ".currentUserId";
+
     public static final User DUMMY = User.builder().id(-1).build();
 
     public enum Role {
@@ -0,0 +1,218 @@
+package com.fpt.h2s.models.entities.listeners;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fpt.h2s.models.entities.Accommodation;
+import com.fpt.h2s.models.entities.BookingRequest;
+import com.fpt.h2s.models.entities.Room;
+import com.fpt.h2s.models.entities.RoomProperty;
+import com.fpt.h2s.repositories.RedisRepository;
+import com.fpt.h2s.repositories.RoomRepository;
+import com.fpt.h2s.services.AccommodationIndex;
+import com.fpt.h2s.utilities.Mappers;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Invalidate accommodations written by a transaction in the {@link AccommodationIndex} of every node once it has been committed.
+ * Changes are applied to the indexes of this node, then sent to the other nodes through the {@value INVALIDATION_CHANNEL} channel.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class AccommodationIndexListener {
+
+    public static final String INVALIDATION_CHANNEL = "accommodation-index-invalidations";
+
+    private static final Object CHANGED_IDS_KEY = AccommodationIndexListener.class.getName() + ".changedIds";
+    /**
+     * Changes are sent before {@link SearchVersionListener} sends the search versions of the same transaction.
+     */
+    private static final int SYNCHRONIZATION_ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+    private final ObjectProvider<AccommodationIndex> indexes;
+    private final ObjectProvider<RoomRepository> roomRepository;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChanged(final Object entity) {
+        try {
+            if (entity instanceof final Accommodation accommodation) {
+                this.invalidateAfterCommit(Accommodation.class, accommodation.getId());
+            }
+            if (entity instanceof final Room room) {
+                this.invalidateAfterCommit(Room.class, room.getAccommodationId());
+            }
+            if (entity instanceof final BookingRequest bookingRequest) {
+                this.invalidateAfterCommit(BookingRequest.class, bookingRequest.getAccommodationId());
+            }
+            if (entity instanceof final RoomProperty roomProperty && roomProperty.getId() != null) {
+                // Properties only know their room, it is resolved to its accommodation after commit.
+                this.invalidateAfterCommit(RoomProperty.class, roomProperty.getId().getRoomId());
+            }
+        } catch (final Exception e) {
+            log.warn("Failed to notify accommodation indexes about {}", entity);
+        }
+    }
+
+    /**
+     * Notify indexes about entities written without the entity manager, such as bulk updates, which skip entity listeners.
+     *
+     * @param source           type of the written entities.
+     * @param accommodationIds ids of the accommodations they belong to.
+     */
+    public void onBulkChanged(final Class<?> source, final Collection<Integer> accommodationIds) {
+        accommodationIds.forEach(accommodationId -> this.invalidateAfterCommit(source, accommodationId));
+    }
+
+    /**
+     * Notify indexes about a bulk update of every accommodation, they are loaded again before their next query.
+     *
+     * @param source type of the written entities.
+     */
+    public void onAllChanged(final Class<?> source) {
+        final List<Invalidation> invalidations = List.of(new Invalidation(source.getSimpleName(), null));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.broadcast(invalidations);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return SYNCHRONIZATION_ORDER;
+            }
+
+            @Override
+            public void afterCompletion(final int status) {
+                if (status == STATUS_COMMITTED) {
+                    AccommodationIndexListener.this.broadcast(invalidations);
+                }
+            }
+        });
+    }
+
+    /**
+     * Apply changes to the indexes of this node only, on invalidation messages sent by any node.
+     */
+    public void invalidateLocally(final String message) {
+        try {
+            this.invalidateLocally(Mappers.mapToObjectFrom(message, new TypeReference<List<Invalidation>>() {}));
+        } catch (final Exception e) {
+            log.error("Failed to apply accommodation changes {}, indexes catch up on their next rebuild.", message, e);
+        }
+    }
+
+    private void invalidateAfterCommit(final Class<?> source, final Integer id) {
+        if (id == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.invalidate(Map.of(source, Set.of(id)));
+            return;
+        }
+        this.changedIdsOfCurrentTransaction().computeIfAbsent(source, type -> new HashSet<>()).add(id);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Class<?>, Set<Integer>> changedIdsOfCurrentTransaction() {
+        final Map<Class<?>, Set<Integer>> existingIds = (Map<Class<?>, Set<Integer>>) TransactionSynchronizationManager.getResource(CHANGED_IDS_KEY);
+        if (existingIds != null) {
+            return existingIds;
+        }
+
+        final Map<Class<?>, Set<Integer>> changedIds = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(CHANGED_IDS_KEY, changedIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return SYNCHRONIZATION_ORDER;
+            }
+
+            @Override
+            public void afterCompletion(final int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_IDS_KEY);
+                if (status == STATUS_COMMITTED) {
+                    AccommodationIndexListener.this.invalidate(changedIds);
+                }
+            }
+        });
+        return changedIds;
+    }
+
+    private void invalidate(final Map<Class<?>, Set<Integer>> changedIds) {
+        final Map<Class<?>, Set<Integer>> changedAccommodationIds = new HashMap<>(changedIds);
+        changedAccommodationIds.computeIfPresent(RoomProperty.class, (source, roomIds) -> this.accommodationIdsOf(roomIds));
+        final List<Invalidation> invalidations = changedAccommodationIds
+            .entrySet()
+            .stream()
+            .filter(changes -> !changes.getValue().isEmpty())
+            .map(changes -> new Invalidation(changes.getKey().getSimpleName(), changes.getValue()))
+            .toList();
+        if (!invalidations.isEmpty()) {
+            this.broadcast(invalidations);
+        }
+    }
+
+    private void broadcast(final List<Invalidation> invalidations) {
+        this.invalidateLocally(invalidations);
+        try {
+            RedisRepository.publish(INVALIDATION_CHANNEL, Mappers.jsonOf(invalidations));
+        } catch (final Exception e) {
+            log.error("Failed to send accommodation changes {}, other nodes catch up on their next rebuild.", invalidations, e);
+        }
+    }
+
+    private void invalidateLocally(final List<Invalidation> invalidations) {
+        this.indexes.orderedStream().forEach(index -> invalidations.forEach(invalidation -> {
+            if (index.sources().stream().noneMatch(source -> source.getSimpleName().equals(invalidation.source()))) {
+                return;
+            }
+            if (invalidation.accommodationIds() == null) {
+                index.invalidateAll();
+            } else {
+                index.invalidate(invalidation.accommodationIds());
+            }
+        }));
+    }
+
+    private Set<Integer> accommodationIdsOf(final Set<Integer> roomIds) {
+        try {
+            return this.roomRepository
+                .getObject()
+                .findAllById(roomIds)
+                .stream()
+                .map(Room::getAccommodationId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        } catch (final Exception e) {
+            log.warn("Failed to find accommodations of rooms {}, indexes will catch up on their next rebuild.", roomIds, e);
+            return Set.of();
+        }
+    }
+
+    /**
+     * Changes of one type of entity, sent to every node.
+     *
+     * @param source           simple name of the written entity type.
+     * @param accommodationIds ids of the changed accommodations, null when every accommodation changed.
+     */
+    public record Invalidation(String source, @Nullable Set<Integer> accommodationIds) {}
+}
@@ -0,0 +1,65 @@
+package com.fpt.h2s.models.entities.listeners;
+
+import com.fpt.h2s.services.SearchResultCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Bump search versions of entity types written by a transaction once it has been committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchVersionListener {
+
+    private static final Object CHANGED_TYPES_KEY = SearchVersionListener.class.getName() + ".changedTypes";
+
+    private final ObjectProvider<SearchResultCache> searchResultCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChanged(final Object entity) {
+        this.onBulkChanged(entity.getClass());
+    }
+
+    /**
+     * Bump the version of entities written without the entity manager, such as bulk updates, which skip entity listeners.
+     */
+    public void onBulkChanged(final Class<?> type) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.searchResultCache.getObject().bump(type);
+            return;
+        }
+        this.changedTypesOfCurrentTransaction().add(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Class<?>> changedTypesOfCurrentTransaction() {
+        final Set<Class<?>> existingTypes = (Set<Class<?>>) TransactionSynchronizationManager.getResource(CHANGED_TYPES_KEY);
+        if (existingTypes != null) {
+            return existingTypes;
+        }
+
+        final Set<Class<?>> changedTypes = new HashSet<>();
+        TransactionSynchronizationManager.bindResource(CHANGED_TYPES_KEY, changedTypes);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_TYPES_KEY);
+                if (status == STATUS_COMMITTED) {
+                    changedTypes.forEach(SearchVersionListener.this.searchResultCache.getObject()::bump);
+                }
+            }
+        });
+        return changedTypes;
+    }
+}
@@ -0,0 +1,90 @@
+package com.fpt.h2s.models.entities.listeners;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fpt.h2s.models.entities.User;
+import com.fpt.h2s.repositories.RedisRepository;
+import com.fpt.h2s.services.UserKeywordIndex;
+import com.fpt.h2s.utilities.Mappers;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Invalidate users written by a transaction in the keyword index of every node once it has been committed.
+ * Changes are applied to the index of this node, then sent to the other nodes through the {@value INVALIDATION_CHANNEL} channel.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class UserKeywordIndexListener {
+
+    public static final String INVALIDATION_CHANNEL = "user-index-invalidations";
+
+    private static final Object CHANGED_IDS_KEY = UserKeywordIndexListener.class.getName() + ".changedIds";
+
+    private final ObjectProvider<UserKeywordIndex> index;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChanged(final User user) {
+        if (user.getId() == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.broadcast(Set.of(user.getId()));
+            return;
+        }
+        this.changedIdsOfCurrentTransaction().add(user.getId());
+    }
+
+    /**
+     * Invalidate users in the index of this node only, on invalidation messages sent by any node.
+     */
+    public void invalidateLocally(final String message) {
+        try {
+            this.index.getObject().invalidate(Mappers.mapToObjectFrom(message, new TypeReference<Set<Integer>>() {}));
+        } catch (final Exception e) {
+            log.error("Failed to apply user changes {}, the index catches up on its next rebuild.", message, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Integer> changedIdsOfCurrentTransaction() {
+        final Set<Integer> existingIds = (Set<Integer>) TransactionSynchronizationManager.getResource(CHANGED_IDS_KEY);
+        if (existingIds != null) {
+            return existingIds;
+        }
+
+        final Set<Integer> changedIds = new HashSet<>();
+        TransactionSynchronizationManager.bindResource(CHANGED_IDS_KEY, changedIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_IDS_KEY);
+                if (status == STATUS_COMMITTED) {
+                    UserKeywordIndexListener.this.broadcast(changedIds);
+                }
+            }
+        });
+        return changedIds;
+    }
+
+    private void broadcast(final Set<Integer> changedIds) {
+        this.index.getObject().invalidate(changedIds);
+        try {
+            RedisRepository.publish(INVALIDATION_CHANNEL, Mappers.jsonOf(changedIds));
+        } catch (final Exception e) {
+            log.error("Failed to send user changes {}, other nodes catch up on their next rebuild.", changedIds, e);
+        }
+    }
+}
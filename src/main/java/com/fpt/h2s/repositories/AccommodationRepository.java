@@ -1,13 +1,20 @@
 package com.fpt.h2s.repositories;
 
 import com.fpt.h2s.models.entities.Accommodation;
-import com.fpt.h2s.repositories.projections.IdHolder;
+import com.fpt.h2s.repositories.projections.AccommodationCategoryRecord;
+import com.fpt.h2s.repositories.projections.AccommodationCoordinateRecord;
+import com.fpt.h2s.repositories.projections.AccommodationFacetRecord;
+import com.fpt.h2s.repositories.projections.AccommodationPriceBoundsRecord;
+import com.fpt.h2s.repositories.projections.AccommodationRankingRecord;
+import com.fpt.h2s.repositories.projections.AccommodationTextRecord;
+import com.fpt.h2s.utilities.QueryValues;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
-import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 
@@ -18,112 +25,115 @@ public interface AccommodationRepository extends BaseRepository<Accommodation, I
     Page<Accommodation> findAllByOwnerIdAndStatus(Integer userId, Accommodation.Status status, Pageable pageable);
 
     @Query(value = """
-        SELECT accommodation_id as id
-        FROM (
-        	SELECT accommodation_id, count(*) as total
-        	FROM
-        		room_amenities
-        	INNER JOIN categories ON room_amenities.category_id = categories.id
-            INNER JOIN rooms on rooms.id  = room_amenities.room_id
-        	WHERE
-        		type = 'AMENITY' and
-        		category_id IN :categories
-        		AND (
-        			-1 IN :accommodationIds
-        			OR rooms.accommodation_id IN :accommodationIds
-        		)
-        	GROUP BY accommodation_id
-        	HAVING total = :categoriesSize
-        ) as result
+        SELECT accommodation_id as accommodationId, category_id as categoryId, categories.type as type
+        FROM accommodations_categories
+        INNER JOIN categories ON accommodations_categories.category_id = categories.id
+        WHERE
+            categories.type = 'LOCATION'
+            AND (-1 IN :accommodationIds OR accommodation_id IN :accommodationIds)
+        UNION
+        SELECT DISTINCT rooms.accommodation_id as accommodationId, category_id as categoryId, categories.type as type
+        FROM room_amenities
+        INNER JOIN categories ON room_amenities.category_id = categories.id
+        INNER JOIN rooms ON rooms.id = room_amenities.room_id
+        WHERE
+            categories.type = 'AMENITY'
+            AND (-1 IN :accommodationIds OR rooms.accommodation_id IN :accommodationIds)
         """, nativeQuery = true)
-    List<IdHolder> findAllByRoomHavingAmenities(Collection<Integer> categories, Integer categoriesSize, Collection<Integer> accommodationIds);
+    List<AccommodationCategoryRecord> findAllCategoriesOf(Collection<Integer> accommodationIds);
 
     @Query(value = """
-        SELECT accommodation_id as id
-        FROM (
-            SELECT accommodation_id, COUNT(*) AS count
-            FROM accommodations_categories
-            INNER JOIN categories ON accommodations_categories.category_id = categories.id
-            WHERE
-                type = 'LOCATION' and
-                category_id IN :viewIds
-            GROUP BY accommodation_id
-            HAVING count = :totalCategories
-        ) as result
-            """, nativeQuery = true)
-    List<IdHolder> findAllByViewIdsIn(Collection<Integer> viewIds, Integer totalCategories);
+        SELECT id, type, status
+        FROM accommodations
+        WHERE -1 IN :accommodationIds OR id IN :accommodationIds
+        """, nativeQuery = true)
+    List<AccommodationFacetRecord> findAllFacetsOf(Collection<Integer> accommodationIds);
+
+    @Query(value = """
+        SELECT id, ranking_score AS rankingScore
+        FROM accommodations
+        WHERE -1 IN :accommodationIds OR id IN :accommodationIds
+        """, nativeQuery = true)
+    List<AccommodationRankingRecord> findAllRankingsOf(Collection<Integer> accommodationIds);
+
+    @Query(value = """
+        SELECT id, name, address, short_description AS shortDescription
+        FROM accommodations
+        WHERE -1 IN :accommodationIds OR id IN :accommodationIds
+        """, nativeQuery = true)
+    List<AccommodationTextRecord> findAllTextsOf(Collection<Integer> accommodationIds);
+
+    default Page<Accommodation> findAllByIdIn(Collection<Integer> accommodationIds, Pageable pageable) {
+        if (QueryValues.isLarge(accommodationIds)) {
+            return findAllByIdAmong(QueryValues.integerJson(accommodationIds), pageable);
+        }
+        return findAllByIdAnyOf(accommodationIds, pageable);
+    }
 
     @Query(value = """
         SELECT * FROM accommodations
-        where
-        	type in :types and
-        	status in :statusList and
-            (-1 in :accommodationIds or id in :accommodationIds)
+        WHERE id IN :accommodationIds
         """, nativeQuery = true)
-    Page<Accommodation> findAllThatMeet(List<String> types, List<String> statusList, Collection<Integer> accommodationIds, Pageable pageable);
-
-
-    @Query(nativeQuery = true, value =
-        """
-            SELECT
-                distinct rooms.accommodation_id as id
-            FROM
-                (
-                    SELECT
-                        rooms.id,
-                        sum(details.total_rooms) AS rooms_left
-                    FROM
-                        rooms
-                        INNER JOIN booking_requests_details details ON details.room_id = rooms.id
-                        INNER JOIN booking_requests ON details.booking_request_id = booking_requests.id
-                    WHERE
-            			booking_requests.status NOT IN ('CANCELED', 'REJECTED')
-                        AND (
-                            (
-                                booking_requests.checkin_at <= :fromDate
-                                AND booking_requests.checkout_at <= :toDate
-                            )
-                            OR (
-                                :fromDate <= booking_requests.checkin_at
-                                AND booking_requests.checkout_at <= :toDate
-                            )
-                            OR (
-                                :fromDate <= booking_requests.checkin_at
-                                AND :toDate BETWEEN booking_requests.checkin_at
-                                AND booking_requests.checkout_at
-                            )
-                            OR (
-                                booking_requests.checkin_at <= :fromDate
-                                AND :toDate <= booking_requests.checkout_at
-                            )
-                        )
-                    GROUP BY
-                        rooms.id
-                ) AS booked_rooms
-                RIGHT JOIN rooms ON booked_rooms.id = rooms.id
+    Page<Accommodation> findAllByIdAnyOf(Collection<Integer> accommodationIds, Pageable pageable);
+
+    @Query(value = """
+        SELECT accommodations.*
+        FROM JSON_TABLE(:accommodationIds, '$[*]' COLUMNS (id INT PATH '$')) AS candidates
+        INNER JOIN accommodations ON accommodations.id = candidates.id
+        """, countQuery = """
+        SELECT COUNT(*)
+        FROM JSON_TABLE(:accommodationIds, '$[*]' COLUMNS (id INT PATH '$')) AS candidates
+        INNER JOIN accommodations ON accommodations.id = candidates.id
+        """, nativeQuery = true)
+    Page<Accommodation> findAllByIdAmong(String accommodationIds, Pageable pageable);
+
+    @Query(value = """
+        SELECT id, latitude, longitude
+        FROM accommodations
+        WHERE
+            latitude IS NOT NULL AND longitude IS NOT NULL
+            AND (-1 IN :accommodationIds OR id IN :accommodationIds)
+        """, nativeQuery = true)
+    List<AccommodationCoordinateRecord> findAllCoordinatesOf(Collection<Integer> accommodationIds);
+
+    @Query(value = """
+        SELECT id, upcoming_min_price AS upcomingMinPrice, upcoming_max_price AS upcomingMaxPrice, upcoming_prices_from AS upcomingPricesFrom, upcoming_prices_to AS upcomingPricesTo
+        FROM accommodations
+        WHERE -1 IN :accommodationIds OR id IN :accommodationIds
+        """, nativeQuery = true)
+    List<AccommodationPriceBoundsRecord> findAllPriceBoundsOf(Collection<Integer> accommodationIds);
+
+    /**
+     * Recompute the base price range of accommodations from their rooms, and their discounted nightly price range
+     * between the input dates from room_day_prices.
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE accommodations
+        LEFT JOIN (
+            SELECT accommodation_id, MIN(price) AS min_price, MAX(price) AS max_price
+            FROM rooms
+            WHERE -1 IN :accommodationIds OR accommodation_id IN :accommodationIds
+            GROUP BY accommodation_id
+        ) AS base ON base.accommodation_id = accommodations.id
+        LEFT JOIN (
+            SELECT rooms.accommodation_id, MIN(room_day_prices.display_price) AS min_price, MAX(room_day_prices.display_price) AS max_price
+            FROM rooms
+            INNER JOIN room_day_prices ON room_day_prices.room_id = rooms.id
             WHERE
-            	rooms.status = 'OPENING'
-                AND (rooms.count - IFNULL(booked_rooms.rooms_left, 0)) >= :havingTotalRooms
-                AND (-1 in :roomIds or rooms.id in :roomIds)
-                AND (-1 in :accommodationIds or rooms.accommodation_id in :accommodationIds)
-            """)
-    List<IdHolder> findAllAccommodationsThatHavingRoomsMeet(Timestamp fromDate, Timestamp toDate, int havingTotalRooms, Collection<Integer> roomIds, Collection<Integer> accommodationIds);
-
-    @Query(nativeQuery = true, value =
-        """
-            SELECT id
-            FROM h2s.accommodations
-            WHERE (
-               3959 *
-               acos(cos(radians(:latitude)) *\s
-               cos(radians(latitude)) *\s
-               cos(radians(longitude) -\s
-               radians(:longitude)) +\s
-               sin(radians(:latitude)) *\s
-               sin(radians(latitude )))
-            ) < :findingRange
-                AND (-1 in :accommodationIds or id in :accommodationIds)
-            """)
-    List<IdHolder> findAccommodationsByCoordinateNear(double latitude, double longitude, double findingRange, Collection<Integer> accommodationIds);
+                room_day_prices.date BETWEEN :fromDate AND :toDate
+                AND (-1 IN :accommodationIds OR rooms.accommodation_id IN :accommodationIds)
+            GROUP BY rooms.accommodation_id
+        ) AS upcoming ON upcoming.accommodation_id = accommodations.id
+        SET
+            accommodations.min_price = IFNULL(base.min_price, 0),
+            accommodations.max_price = IFNULL(base.max_price, 0),
+            accommodations.upcoming_min_price = upcoming.min_price,
+            accommodations.upcoming_max_price = upcoming.max_price,
+            accommodations.upcoming_prices_from = :fromDate,
+            accommodations.upcoming_prices_to = :toDate
+        WHERE -1 IN :accommodationIds OR accommodations.id IN :accommodationIds
+        """, nativeQuery = true)
+    int refreshPriceBoundsOf(Collection<Integer> accommodationIds, LocalDate fromDate, LocalDate toDate);
 
 }
@@ -1,10 +1,12 @@
 package com.fpt.h2s.repositories;
 
 import com.fpt.h2s.models.entities.BookingRequestDetail;
+import com.fpt.h2s.repositories.projections.BookedRoomRecord;
 import com.fpt.h2s.services.commands.accommodation.CheckAccommodationReviewableCommand;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.List;
 
@@ -29,4 +31,34 @@ public interface BookingRequestDetailRepository extends JpaRepository<BookingReq
         """)
 
     List<CheckAccommodationReviewableCommand.BookingRoomProjection> findAllByReviews(Collection<Integer> reviewIds);
+
+    @Query(nativeQuery = true, value = """
+            SELECT details.room_id AS roomId, details.total_rooms AS totalRooms, booking_requests.checkin_at AS checkinAt, booking_requests.checkout_at AS checkoutAt
+            FROM booking_requests_details details
+            INNER JOIN booking_requests ON details.booking_request_id = booking_requests.id
+            WHERE
+                booking_requests.status IN ('PENDING', 'PURCHASED', 'SUCCEED')
+                AND booking_requests.checkout_at >= :since
+                AND (-1 IN :accommodationIds OR booking_requests.accommodation_id IN :accommodationIds)
+        """)
+    List<BookedRoomRecord> findAllBookedRoomsOf(Collection<Integer> accommodationIds, Timestamp since);
+
+    @Query(nativeQuery = true, value = """
+            SELECT details.room_id AS roomId, details.total_rooms AS totalRooms, booking_requests.checkin_at AS checkinAt, booking_requests.checkout_at AS checkoutAt
+            FROM booking_requests_details details
+            INNER JOIN booking_requests ON details.booking_request_id = booking_requests.id
+            WHERE
+                booking_requests.status IN ('PENDING', 'PURCHASED', 'SUCCEED')
+                AND details.room_id IN :roomIds
+                AND DATE(booking_requests.checkin_at) <= DATE(:checkOut)
+                AND DATE(booking_requests.checkout_at) >= DATE(:checkIn)
+        """)
+    List<BookedRoomRecord> findAllBookedRoomsBetween(Collection<Integer> roomIds, Timestamp checkIn, Timestamp checkOut);
+
+    @Query(nativeQuery = true, value = """
+            SELECT DISTINCT room_id
+            FROM booking_requests_details
+            WHERE booking_request_id = :bookingRequestId
+        """)
+    List<Integer> findAllRoomIdsOf(Integer bookingRequestId);
 }
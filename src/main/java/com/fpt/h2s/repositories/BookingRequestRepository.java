@@ -1,11 +1,13 @@
 package com.fpt.h2s.repositories;
 
 import com.fpt.h2s.models.entities.BookingRequest;
+import com.fpt.h2s.repositories.projections.PendingBookingRecord;
+import com.fpt.h2s.repositories.projections.SettlementRecord;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 
 import java.sql.Timestamp;
 import java.util.Collection;
@@ -15,30 +17,6 @@ import java.util.Map;
 public interface BookingRequestRepository extends BaseRepository<BookingRequest, Integer> {
     Page<BookingRequest> findAll(Specification<BookingRequest> specification, Pageable pageable);
 
-    @Query(nativeQuery = true, value = """
-        WITH RECURSIVE date_range AS (
-          SELECT DATE_ADD(DATE(:givenMonth), INTERVAL 0 DAY) AS booking_date
-          UNION ALL
-          SELECT DATE_ADD(booking_date, INTERVAL 1 DAY)
-          FROM date_range
-          WHERE DATE_ADD(booking_date, INTERVAL 1 DAY) <= DATE_ADD(:givenMonth, INTERVAL 12 MONTH)
-        )
-        SELECT REMAIN_ROOM.booking_dates,
-               REMAIN_ROOM.remaining_rooms
-        FROM (
-          SELECT DATE(DATE_RANGE.booking_date) AS booking_dates,
-                 COALESCE(SUM(Booking_requests_specific.total_rooms), 0) AS remaining_rooms
-          FROM date_range DATE_RANGE
-          LEFT JOIN booking_requests Booking ON DATE(DATE_RANGE.booking_date) >= DATE(Booking.checkin_at)
-          LEFT JOIN booking_requests_details Booking_requests_specific ON Booking.id = Booking_requests_specific.booking_request_id
-            AND DATE(DATE_RANGE.booking_date) < DATE(Booking.checkout_at) AND Booking_requests_specific.room_id = :roomId
-          WHERE Booking.status IN ('APPROVED', 'SUCCEED')
-          GROUP BY DATE_RANGE.booking_date
-          ORDER BY DATE_RANGE.booking_date
-        ) AS REMAIN_ROOM;
-        """)
-    List<Object[]> getBookingResultsForRoomId(@Param("givenMonth") Timestamp startDate, @Param("roomId") int roomId);
-
     @Query(nativeQuery = true, value = """
         SELECT booking_requests.* from booking_requests
         LEFT JOIN accommodations_reviews on booking_requests.id = accommodations_reviews.request_id
@@ -51,6 +29,63 @@ public interface BookingRequestRepository extends BaseRepository<BookingRequest,
 
     List<BookingRequest> findAllByStatusIn(Collection<BookingRequest.Status> status);
 
+    /**
+     * Needs an index on (status, created_at) to only read pending bookings created before the time.
+     */
+    @Query(nativeQuery = true, value = """
+        SELECT id, accommodation_id AS accommodationId, created_at AS createdAt
+        FROM booking_requests
+        WHERE status = 'PENDING' AND created_at < :time
+        """)
+    List<PendingBookingRecord> findAllPendingCreatedBefore(Timestamp time);
+
+    /**
+     * Mark pending bookings as not purchased. Entity listeners are not notified.
+     *
+     * @return number of bookings that were still pending.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        UPDATE booking_requests
+        SET status = 'UN_PURCHASED', updated_at = NOW()
+        WHERE id IN :ids AND status = 'PENDING'
+        """)
+    int expireAllPending(Collection<Integer> ids);
+
+    /**
+     * Lock the next purchased bookings to settle, in check-in order, with the payment and the owner to pay.
+     * Bookings locked by another settlement are skipped. Needs an index on (status, checkin_at).
+     */
+    @Query(nativeQuery = true, value = """
+        SELECT
+            booking_requests.id AS bookingId,
+            booking_requests.checkin_at AS checkinAt,
+            accommodations.owner_id AS ownerId,
+            transactions.amount AS amount,
+            transactions.payment_method AS paymentMethod,
+            transactions.transaction_request_no AS transactionRequestNo,
+            transactions.bank_transaction_no AS bankTransactionNo
+        FROM booking_requests
+        INNER JOIN transactions ON transactions.id = booking_requests.transaction_id
+        INNER JOIN accommodations ON accommodations.id = booking_requests.accommodation_id
+        WHERE
+            booking_requests.status = 'PURCHASED'
+            AND booking_requests.checkin_at < :checkinBefore
+            AND (booking_requests.checkin_at > :afterCheckinAt OR (booking_requests.checkin_at = :afterCheckinAt AND booking_requests.id > :afterId))
+        ORDER BY booking_requests.checkin_at, booking_requests.id
+        LIMIT :size
+        FOR UPDATE OF booking_requests SKIP LOCKED
+        """)
+    List<SettlementRecord> lockNextToSettle(Timestamp checkinBefore, Timestamp afterCheckinAt, Integer afterId, int size);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        UPDATE booking_requests
+        SET status = 'SUCCEED', updated_at = NOW()
+        WHERE id IN :ids AND status = 'PURCHASED'
+        """)
+    int settleAll(Collection<Integer> ids);
+
     @Query(nativeQuery = true, value = """
         select COUNT(1)
         from booking_requests
@@ -78,34 +113,5 @@ public interface BookingRequestRepository extends BaseRepository<BookingRequest,
         """)
     List<Map<String, Object>> getRevenuesOfLastNMonths(Integer months);
 
-    @Query(nativeQuery = true, value = """
-         WITH RECURSIVE date_range AS (
-          SELECT DATE_ADD(DATE(:checkInDate), INTERVAL 0 DAY) AS booking_date
-          UNION ALL
-          SELECT DATE_ADD(booking_date, INTERVAL 1 DAY)
-          FROM date_range
-          WHERE DATE_ADD(booking_date, INTERVAL 1 DAY) <= DATE(:checkOutDate)
-        )
-        SELECT MIN(REMAIN_ROOM.remaining_rooms) AS min_remaining_rooms,
-               MIN(TIMESTAMP(REMAIN_ROOM.booking_dates)) AS start_date,
-               MAX(TIMESTAMP(REMAIN_ROOM.booking_dates)) AS end_date
-        FROM (
-          SELECT DATE_RANGE.booking_date AS booking_dates,
-            ((SELECT COUNT FROM rooms WHERE id = :roomId) - COALESCE(SUM(Booking_requests_specific.total_rooms), 0)) AS remaining_rooms
-          FROM date_range DATE_RANGE
-          LEFT JOIN booking_requests Booking ON DATE(DATE_RANGE.booking_date) >= DATE(Booking.checkin_at)
-          LEFT JOIN booking_requests_details Booking_requests_specific ON Booking.id = Booking_requests_specific.booking_request_id
-            AND DATE(DATE_RANGE.booking_date) < DATE(Booking.checkout_at) AND Booking_requests_specific.room_id = :roomId
-          WHERE Booking.status IN ('APPROVED', 'SUCCEED')
-          GROUP BY DATE_RANGE.booking_date
-          HAVING remaining_rooms < :totalRooms
-          ORDER BY DATE_RANGE.booking_date
-        ) AS REMAIN_ROOM;
-        """)
-    Object[][] getBookingResultsByRoomIdCheckInCheckOut(@Param("roomId") int roomId,
-                                                        @Param("checkInDate") Timestamp checkIn,
-                                                        @Param("checkOutDate") Timestamp checkOut,
-                                                        @Param("totalRooms") int totalRoomBook);
-
 
 }
@@ -0,0 +1,50 @@
+package com.fpt.h2s.repositories;
+
+import com.fpt.h2s.models.entities.OutboxEvent;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends BaseRepository<OutboxEvent, Long> {
+
+    /**
+     * Lock the next events due to be dispatched. Events locked by another relay are skipped.
+     */
+    @Query(nativeQuery = true, value = """
+        SELECT *
+        FROM outbox_events
+        WHERE
+            next_attempt_at <= :now
+            AND attempts < :maxAttempts
+        ORDER BY next_attempt_at, id
+        LIMIT :size
+        FOR UPDATE SKIP LOCKED
+        """)
+    List<OutboxEvent> lockNextDue(Timestamp now, int maxAttempts, int size);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        UPDATE outbox_events
+        SET next_attempt_at = :nextAttemptAt
+        WHERE id IN :ids
+        """)
+    int postponeAll(Collection<Long> ids, Timestamp nextAttemptAt);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        UPDATE outbox_events
+        SET attempts = attempts + 1, next_attempt_at = :nextAttemptAt
+        WHERE id = :id
+        """)
+    int recordFailedAttempt(Long id, Timestamp nextAttemptAt);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        DELETE FROM outbox_events
+        WHERE id IN :ids
+        """)
+    int deleteAllOf(Collection<Long> ids);
+}
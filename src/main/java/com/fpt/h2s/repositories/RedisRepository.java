@@ -7,12 +7,15 @@ import com.fpt.h2s.utilities.Mappers;
 import com.fpt.h2s.utilities.SpringBeans;
 import lombok.NonNull;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 
 import java.time.Duration;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Log4j2
 public class RedisRepository {
@@ -115,6 +118,18 @@ public class RedisRepository {
         RedisRepository.getRedis().opsForValue().set(Objects.requireNonNull(key), json, RedisRepository.DEFAULT_DURATION);
     }
 
+    /**
+     * Set a value to Redis only when the key does not exist, so that one client among many wins the key.
+     *
+     * @param key      unique key of the value. Must be not blank.
+     * @param value    Must be not null.
+     * @param duration After this duration, the key will be expired.
+     * @return true if the value has been set, false if the key already existed.
+     */
+    public static boolean setIfAbsent(@NonNull final String key, @NonNull final String value, @NonNull final Duration duration) {
+        return Boolean.TRUE.equals(RedisRepository.getRedis().opsForValue().setIfAbsent(key, value, duration));
+    }
+
     /**
      * Get a key from Redis as String.
      *
@@ -201,4 +216,125 @@ public class RedisRepository {
         ApiException.failedIf(StringEx.isBlank(key), "Key must not be blank.");
         return Optional.ofNullable(RedisRepository.getRedis().delete(key)).orElse(false);
     }
-}
\ No newline at end of file
+
+    /**
+     * Increase a counter stored in a Redis hash. Missing hashes and fields start from 0.
+     *
+     * @param key   key of the hash. Must be not blank.
+     * @param field field of the counter. Must be not blank.
+     * @return value of the counter after the increment.
+     */
+    public static long increment(@NonNull final String key, @NonNull final String field) {
+        return Optional.ofNullable(RedisRepository.getRedis().<String, String>opsForHash().increment(key, field, 1)).orElse(0L);
+    }
+
+    /**
+     * Get every field of a Redis hash.
+     *
+     * @param key key of the hash.
+     * @return empty map if key is blank or the hash does not exist. Otherwise, return fields mapped to their values.
+     */
+    public static Map<String, String> getAll(@NonNull final String key) {
+        if (StringEx.isBlank(key)) {
+            return Map.of();
+        }
+        return RedisRepository.getRedis().<String, String>opsForHash().entries(key);
+    }
+
+    /**
+     * Send a message to every client subscribed to a channel, including this node.
+     *
+     * @param channel name of the channel. Must be not blank.
+     * @param message Must be not null.
+     */
+    public static void publish(@NonNull final String channel, @NonNull final String message) {
+        RedisRepository.getRedis().convertAndSend(channel, message);
+    }
+
+    /**
+     * Run a Lua script atomically.
+     *
+     * @param keys keys touched by the script, available as KEYS.
+     * @param args other arguments, available as ARGV.
+     * @return result of the script converted to the type of the script.
+     */
+    public static <T> T execute(@NonNull final RedisScript<T> script, @NonNull final List<String> keys, final String... args) {
+        return RedisRepository.getRedis().execute(script, keys, (Object[]) args);
+    }
+
+    /**
+     * Get many keys from Redis as String in one round trip.
+     *
+     * @param keys unique keys of the values. Must be not null.
+     * @return values in the order of the keys, empty for missing keys.
+     */
+    public static List<Optional<String>> multiGet(@NonNull final List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        final List<String> values = Optional.ofNullable(RedisRepository.getRedis().opsForValue().multiGet(keys)).orElseGet(List::of);
+        final List<Optional<String>> result = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            result.add(Optional.ofNullable(i < values.size() ? values.get(i) : null));
+        }
+        return result;
+    }
+
+    /**
+     * Set many values to Redis in one round trip. Every value will be available in the same duration.
+     *
+     * @param values   values mapped to their keys. Values which are not String are saved as JSON.
+     * @param duration After this duration, the keys will be expired.
+     */
+    public static void setAll(@NonNull final Map<String, ?> values, @NonNull final Duration duration) {
+        final Pipeline pipeline = RedisRepository.pipeline();
+        values.forEach((key, value) -> pipeline.set(key, value, duration));
+        pipeline.execute();
+    }
+
+    /**
+     * Start a batch of commands sent to Redis in one round trip. Commands are not atomic,
+     * other clients may run commands between them.
+     */
+    public static Pipeline pipeline() {
+        return new Pipeline();
+    }
+
+    public static class Pipeline {
+
+        private final List<Consumer<StringRedisConnection>> commands = new ArrayList<>();
+
+        private Pipeline() {
+        }
+
+        public Pipeline get(@NonNull final String key) {
+            this.commands.add(connection -> connection.get(key));
+            return this;
+        }
+
+        public Pipeline set(@NonNull final String key, @NonNull final Object value, @NonNull final Duration duration) {
+            final String text = value instanceof final String string ? string : Mappers.jsonOf(value);
+            this.commands.add(connection -> connection.setEx(key, duration.toSeconds(), Objects.requireNonNull(text)));
+            return this;
+        }
+
+        public Pipeline remove(@NonNull final String... keys) {
+            this.commands.add(connection -> connection.del(keys));
+            return this;
+        }
+
+        /**
+         * @return result of every command, in order: values for gets, null when a key is missing.
+         */
+        public List<Object> execute() {
+            if (this.commands.isEmpty()) {
+                return List.of();
+            }
+            return RedisRepository.getRedis().executePipelined((RedisCallback<Object>) connection -> {
+                final StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                this.commands.forEach(command -> command.accept(stringConnection));
+                return null;
+            });
+        }
+    }
+}
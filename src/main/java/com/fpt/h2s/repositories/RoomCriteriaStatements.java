@@ -0,0 +1,66 @@
+package com.fpt.h2s.repositories;
+
+import com.fpt.h2s.utilities.Criteria.SqlCondition;
+import jakarta.persistence.Query;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Statements finding rooms whose properties meet every condition. A statement only depends on the shape of its
+ * conditions, values are bound at execution, so each shape is written once and the database can reuse its plan.
+ */
+final class RoomCriteriaStatements {
+
+    private static final int MAX_CACHED_SHAPES = 1_000;
+    private static final Map<List<String>, String> STATEMENTS = new ConcurrentHashMap<>();
+
+    private RoomCriteriaStatements() {
+    }
+
+    static String statementOf(final List<SqlCondition> conditions) {
+        final List<String> shape = conditions.stream().map(SqlCondition::sql).toList();
+        final String statement = STATEMENTS.get(shape);
+        if (statement != null) {
+            return statement;
+        }
+        final String newStatement = write(shape);
+        if (STATEMENTS.size() < MAX_CACHED_SHAPES) {
+            STATEMENTS.putIfAbsent(shape, newStatement);
+        }
+        return newStatement;
+    }
+
+    /**
+     * Rows meeting any condition are grouped by room, a room is kept when each condition is met by one of its rows.
+     */
+    private static String write(final List<String> shape) {
+        return """
+            SELECT room_id
+            FROM rooms_properties
+            WHERE %s
+            GROUP BY room_id
+            HAVING %s
+            """.formatted(
+            shape.stream().map("(%s)"::formatted).collect(Collectors.joining(" OR ")),
+            shape.stream().map("MAX(%s) = 1"::formatted).collect(Collectors.joining(" AND "))
+        );
+    }
+
+    /**
+     * Parameters appear in the WHERE clause then again in the HAVING clause.
+     */
+    static Query bind(final Query query, final List<SqlCondition> conditions) {
+        int position = 1;
+        for (int clause = 0; clause < 2; clause++) {
+            for (final SqlCondition condition : conditions) {
+                for (final Object parameter : condition.parameters()) {
+                    query.setParameter(position++, parameter);
+                }
+            }
+        }
+        return query;
+    }
+}
@@ -0,0 +1,61 @@
+package com.fpt.h2s.repositories;
+
+import com.fpt.h2s.models.entities.RoomDayPrice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface RoomDayPriceRepository extends JpaRepository<RoomDayPrice, RoomDayPrice.PK> {
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        DELETE FROM room_day_prices
+        WHERE
+            date BETWEEN :fromDate AND :toDate
+            AND (-1 IN :roomIds OR room_id IN :roomIds)
+        """)
+    int deleteAllOf(Collection<Integer> roomIds, LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * Compute prices of rooms from their rules. For each day and each rule type, a custom rule covering the day
+     * wins over the rule of the day type; the latest rule wins among rules of the same kind.
+     *
+     * @param days days to compute with their types, from {@link com.fpt.h2s.services.DayTypeCalendar#daysJson}.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        INSERT INTO room_day_prices (room_id, date, price, discount, display_price)
+        SELECT
+            rooms.id,
+            dates.date,
+            ROUND(rooms.price * prices.amount / 100),
+            IFNULL(discounts.amount, 0),
+            ROUND((rooms.price * prices.amount / 100) * (100 - IFNULL(discounts.amount, 0)) / 100)
+        FROM
+            rooms
+            CROSS JOIN JSON_TABLE(:days, '$[*]' COLUMNS (date DATE PATH '$[0]', type VARCHAR(16) PATH '$[1]')) AS dates
+            INNER JOIN price_histories prices ON prices.id = (
+                SELECT rule.id
+                FROM price_histories rule
+                WHERE
+                    rule.room_id = rooms.id AND rule.type = 'PRICE'
+                    AND (rule.day_type = dates.type COLLATE utf8mb4_bin OR (rule.day_type = 'CUSTOM' AND dates.date BETWEEN rule.from_date AND rule.to_date))
+                ORDER BY rule.day_type = 'CUSTOM' DESC, rule.id DESC
+                LIMIT 1
+            )
+            LEFT JOIN price_histories discounts ON discounts.id = (
+                SELECT rule.id
+                FROM price_histories rule
+                WHERE
+                    rule.room_id = rooms.id AND rule.type = 'DISCOUNT'
+                    AND (rule.day_type = dates.type COLLATE utf8mb4_bin OR (rule.day_type = 'CUSTOM' AND dates.date BETWEEN rule.from_date AND rule.to_date))
+                ORDER BY rule.day_type = 'CUSTOM' DESC, rule.id DESC
+                LIMIT 1
+            )
+        WHERE -1 IN :roomIds OR rooms.id IN :roomIds
+        """)
+    int insertAllOf(Collection<Integer> roomIds, String days);
+}
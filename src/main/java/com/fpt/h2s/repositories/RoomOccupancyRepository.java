@@ -0,0 +1,54 @@
+package com.fpt.h2s.repositories;
+
+import com.fpt.h2s.models.entities.RoomOccupancy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface RoomOccupancyRepository extends JpaRepository<RoomOccupancy, RoomOccupancy.PK> {
+
+    @Query(nativeQuery = true, value = """
+        SELECT *
+        FROM room_occupancies
+        WHERE
+            room_id = :roomId
+            AND date BETWEEN :fromDate AND :toDate
+        ORDER BY date
+        """)
+    List<RoomOccupancy> findAllOf(Integer roomId, LocalDate fromDate, LocalDate toDate);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        DELETE FROM room_occupancies
+        WHERE
+            date BETWEEN :fromDate AND :toDate
+            AND (-1 IN :roomIds OR room_id IN :roomIds)
+        """)
+    int deleteAllOf(Collection<Integer> roomIds, LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * Count units held by purchased and succeed bookings, for each room and each day of the calendar between the input dates.
+     * A booking holds its rooms from its check-in day until the day before its check-out day.
+     *
+     * @param days days to count, from {@link com.fpt.h2s.services.DayTypeCalendar#daysJson}.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        INSERT INTO room_occupancies (room_id, date, booked_units)
+        SELECT details.room_id, dates.date, SUM(details.total_rooms)
+        FROM
+            booking_requests bookings
+            INNER JOIN booking_requests_details details ON details.booking_request_id = bookings.id
+            INNER JOIN JSON_TABLE(:days, '$[*]' COLUMNS (date DATE PATH '$[0]')) AS dates
+                ON dates.date >= DATE(bookings.checkin_at) AND dates.date < DATE(bookings.checkout_at)
+        WHERE
+            bookings.status IN ('PURCHASED', 'SUCCEED')
+            AND (-1 IN :roomIds OR details.room_id IN :roomIds)
+        GROUP BY details.room_id, dates.date
+        """)
+    int insertAllOf(Collection<Integer> roomIds, String days);
+}
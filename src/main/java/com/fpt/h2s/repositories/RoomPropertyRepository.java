@@ -2,6 +2,7 @@ package com.fpt.h2s.repositories;
 
 import com.fpt.h2s.models.entities.RoomProperty;
 import com.fpt.h2s.repositories.projections.RoomPropertyDetail;
+import com.fpt.h2s.repositories.projections.RoomPropertyValueRecord;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -29,4 +30,12 @@ public interface RoomPropertyRepository extends JpaRepository<RoomProperty, Room
     Set<Object[]> findJoinedDataByRoomId(@Param("roomId") Integer roomId);
 
     List<RoomProperty> findAll(Specification<RoomProperty> criteria);
+
+    @Query(value = """
+        SELECT rooms.id AS roomId, rooms.accommodation_id AS accommodationId, rooms_properties.key_id AS keyId, rooms_properties.value
+        FROM rooms_properties
+        INNER JOIN rooms ON rooms.id = rooms_properties.room_id
+        WHERE -1 IN :accommodationIds OR rooms.accommodation_id IN :accommodationIds
+        """, nativeQuery = true)
+    List<RoomPropertyValueRecord> findAllValuesOf(Collection<Integer> accommodationIds);
 }
@@ -2,6 +2,7 @@ package com.fpt.h2s.repositories;
 
 import ananta.utility.ListEx;
 import com.fpt.h2s.models.entities.User;
+import com.fpt.h2s.repositories.projections.UserTextRecord;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -39,6 +40,13 @@ public interface UserRepository extends BaseRepository<User, Integer> {
         """)
     Optional<User> findByPhoneEndingWith(String phone);
 
+    @Query(nativeQuery = true, value = """
+        SELECT id, email, username, phone
+        FROM users
+        WHERE -1 IN :userIds OR id IN :userIds
+        """)
+    List<UserTextRecord> findAllTextsOf(Collection<Integer> userIds);
+
     @Query(nativeQuery = true, value = """ 
         SELECT * FROM users where roles = :role
         """)
@@ -0,0 +1,9 @@
+package com.fpt.h2s.repositories.projections;
+
+import com.fpt.h2s.models.entities.Category;
+
+public interface AccommodationCategoryRecord {
+    Integer getAccommodationId();
+    Integer getCategoryId();
+    Category.Type getType();
+}
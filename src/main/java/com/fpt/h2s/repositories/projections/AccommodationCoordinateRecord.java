@@ -0,0 +1,7 @@
+package com.fpt.h2s.repositories.projections;
+
+public interface AccommodationCoordinateRecord {
+    Integer getId();
+    Double getLatitude();
+    Double getLongitude();
+}
@@ -0,0 +1,9 @@
+package com.fpt.h2s.repositories.projections;
+
+import com.fpt.h2s.models.entities.Accommodation;
+
+public interface AccommodationFacetRecord {
+    Integer getId();
+    Accommodation.Type getType();
+    Accommodation.Status getStatus();
+}
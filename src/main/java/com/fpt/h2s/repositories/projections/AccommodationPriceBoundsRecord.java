@@ -0,0 +1,11 @@
+package com.fpt.h2s.repositories.projections;
+
+import java.time.LocalDate;
+
+public interface AccommodationPriceBoundsRecord {
+    Integer getId();
+    Long getUpcomingMinPrice();
+    Long getUpcomingMaxPrice();
+    LocalDate getUpcomingPricesFrom();
+    LocalDate getUpcomingPricesTo();
+}
@@ -0,0 +1,6 @@
+package com.fpt.h2s.repositories.projections;
+
+public interface AccommodationRankingRecord {
+    Integer getId();
+    Double getRankingScore();
+}
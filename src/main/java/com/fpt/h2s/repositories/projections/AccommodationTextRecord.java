@@ -0,0 +1,8 @@
+package com.fpt.h2s.repositories.projections;
+
+public interface AccommodationTextRecord {
+    Integer getId();
+    String getName();
+    String getAddress();
+    String getShortDescription();
+}
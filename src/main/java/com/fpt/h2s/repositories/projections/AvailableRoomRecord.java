@@ -4,5 +4,6 @@ public interface AvailableRoomRecord {
     Integer getId();
     String getName();
     Integer getAvailableRooms();
+    Integer getVersion();
 
 }
@@ -0,0 +1,10 @@
+package com.fpt.h2s.repositories.projections;
+
+import java.sql.Timestamp;
+
+public interface BookedRoomRecord {
+    Integer getRoomId();
+    Integer getTotalRooms();
+    Timestamp getCheckinAt();
+    Timestamp getCheckoutAt();
+}
@@ -0,0 +1,9 @@
+package com.fpt.h2s.repositories.projections;
+
+import java.sql.Timestamp;
+
+public interface PendingBookingRecord {
+    Integer getId();
+    Integer getAccommodationId();
+    Timestamp getCreatedAt();
+}
@@ -0,0 +1,10 @@
+package com.fpt.h2s.repositories.projections;
+
+import com.fpt.h2s.models.entities.Room;
+
+public interface RoomCapacityRecord {
+    Integer getId();
+    Integer getAccommodationId();
+    Integer getTotalRooms();
+    Room.Status getStatus();
+}
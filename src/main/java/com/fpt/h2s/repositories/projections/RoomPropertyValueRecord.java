@@ -0,0 +1,8 @@
+package com.fpt.h2s.repositories.projections;
+
+public interface RoomPropertyValueRecord {
+    Integer getRoomId();
+    Integer getAccommodationId();
+    Integer getKeyId();
+    String getValue();
+}
@@ -0,0 +1,13 @@
+package com.fpt.h2s.repositories.projections;
+
+import java.sql.Timestamp;
+
+public interface SettlementRecord {
+    Integer getBookingId();
+    Timestamp getCheckinAt();
+    Integer getOwnerId();
+    Long getAmount();
+    String getPaymentMethod();
+    String getTransactionRequestNo();
+    String getBankTransactionNo();
+}
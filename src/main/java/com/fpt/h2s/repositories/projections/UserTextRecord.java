@@ -0,0 +1,8 @@
+package com.fpt.h2s.repositories.projections;
+
+public interface UserTextRecord {
+    Integer getId();
+    String getEmail();
+    String getUsername();
+    String getPhone();
+}
@@ -0,0 +1,165 @@
+package com.fpt.h2s.services;
+
+import ananta.utility.StreamEx;
+import com.fpt.h2s.models.entities.Accommodation;
+import com.fpt.h2s.models.entities.Category;
+import com.fpt.h2s.repositories.AccommodationRepository;
+import com.fpt.h2s.repositories.projections.AccommodationCategoryRecord;
+import com.fpt.h2s.repositories.projections.AccommodationFacetRecord;
+import com.fpt.h2s.utilities.QueryValues;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one bitmap of accommodation ids per category (location and amenity), per {@link Accommodation.Type}
+ * and per {@link Accommodation.Status} so search filters can be resolved without querying the database.
+ * Accommodation ids are auto-increment integers, so a plain {@link BitSet} stays compact.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class AccommodationFacetIndex extends BaseAccommodationIndex {
+
+    private final AccommodationRepository accommodationRepository;
+
+    private Map<Category.Type, Map<Integer, BitSet>> categories = emptyCategories();
+    private Map<Accommodation.Type, BitSet> types = new EnumMap<>(Accommodation.Type.class);
+    private Map<Accommodation.Status, BitSet> statuses = new EnumMap<>(Accommodation.Status.class);
+
+    @Override
+    protected void load() {
+        final Map<Category.Type, Map<Integer, BitSet>> newCategories = emptyCategories();
+        final Map<Accommodation.Type, BitSet> newTypes = new EnumMap<>(Accommodation.Type.class);
+        final Map<Accommodation.Status, BitSet> newStatuses = new EnumMap<>(Accommodation.Status.class);
+
+        this.accommodationRepository
+            .findAllCategoriesOf(QueryValues.integerList(null))
+            .forEach(record -> add(newCategories, record));
+        this.accommodationRepository
+            .findAllFacetsOf(QueryValues.integerList(null))
+            .forEach(record -> add(newTypes, newStatuses, record));
+
+        this.writeLocked(() -> {
+            this.categories = newCategories;
+            this.types = newTypes;
+            this.statuses = newStatuses;
+        });
+        log.info("Accommodation facet index rebuilt with {} accommodations.", newStatuses.values().stream().mapToInt(BitSet::cardinality).sum());
+    }
+
+    @Override
+    protected void reload(final Set<Integer> accommodationIds) {
+        final List<AccommodationCategoryRecord> changedCategories = this.accommodationRepository.findAllCategoriesOf(accommodationIds);
+        final List<AccommodationFacetRecord> changedFacets = this.accommodationRepository.findAllFacetsOf(accommodationIds);
+        final BitSet changedBits = Objects.requireNonNull(bitSetOf(accommodationIds));
+
+        this.writeLocked(() -> {
+            this.categories.values().forEach(bitmaps -> bitmaps.values().forEach(bitmap -> bitmap.andNot(changedBits)));
+            this.types.values().forEach(bitmap -> bitmap.andNot(changedBits));
+            this.statuses.values().forEach(bitmap -> bitmap.andNot(changedBits));
+
+            changedCategories.forEach(record -> add(this.categories, record));
+            changedFacets.forEach(record -> add(this.types, this.statuses, record));
+        });
+    }
+
+    /**
+     * Find accommodations having all the input categories.
+     *
+     * @param type             type of the categories. Location categories are attached to accommodations, amenities to rooms.
+     * @param categoryIds      ids of categories that accommodations must have.
+     * @param accommodationIds restrict the result in these ids. Null means every accommodation.
+     * @return ids of accommodations having every category.
+     */
+    public Set<Integer> findAllHavingCategories(final Category.Type type, final Collection<Integer> categoryIds, @Nullable final Collection<Integer> accommodationIds) {
+        return this.readLocked(() -> {
+            final Map<Integer, BitSet> bitmaps = this.categories.get(type);
+            BitSet result = bitSetOf(accommodationIds);
+            for (final Integer categoryId : categoryIds) {
+                final BitSet bitmap = bitmaps.get(categoryId);
+                if (bitmap == null) {
+                    return Collections.emptySet();
+                }
+                result = and(result, bitmap);
+            }
+            return result == null ? setOf(union(this.statuses, this.statuses.keySet())) : setOf(result);
+        });
+    }
+
+    /**
+     * Find accommodations having one of the input types and one of the input statuses.
+     *
+     * @param types            types accepted.
+     * @param statuses         statuses accepted.
+     * @param accommodationIds restrict the result in these ids. Null means every accommodation.
+     * @return ids of accommodations that meet both conditions.
+     */
+    public Set<Integer> findAllThatMeet(final Collection<Accommodation.Type> types, final Collection<Accommodation.Status> statuses, @Nullable final Collection<Integer> accommodationIds) {
+        return this.readLocked(() -> {
+            BitSet result = bitSetOf(accommodationIds);
+            result = and(result, union(this.types, types));
+            result = and(result, union(this.statuses, statuses));
+            return setOf(result);
+        });
+    }
+
+    private static Map<Category.Type, Map<Integer, BitSet>> emptyCategories() {
+        final Map<Category.Type, Map<Integer, BitSet>> categories = new EnumMap<>(Category.Type.class);
+        for (final Category.Type type : Category.Type.values()) {
+            categories.put(type, new HashMap<>());
+        }
+        return categories;
+    }
+
+    private static void add(final Map<Category.Type, Map<Integer, BitSet>> categories, final AccommodationCategoryRecord record) {
+        if (record.getType() == null || record.getCategoryId() == null || record.getAccommodationId() == null) {
+            return;
+        }
+        categories.get(record.getType()).computeIfAbsent(record.getCategoryId(), id -> new BitSet()).set(record.getAccommodationId());
+    }
+
+    private static void add(final Map<Accommodation.Type, BitSet> types, final Map<Accommodation.Status, BitSet> statuses, final AccommodationFacetRecord record) {
+        if (record.getType() != null) {
+            types.computeIfAbsent(record.getType(), type -> new BitSet()).set(record.getId());
+        }
+        if (record.getStatus() != null) {
+            statuses.computeIfAbsent(record.getStatus(), status -> new BitSet()).set(record.getId());
+        }
+    }
+
+    private static <K> BitSet union(final Map<K, BitSet> bitmaps, final Collection<K> keys) {
+        final BitSet result = new BitSet();
+        StreamEx.from(keys).filter(Objects::nonNull).map(bitmaps::get).filter(Objects::nonNull).forEach(result::or);
+        return result;
+    }
+
+    /**
+     * Intersect two bitmaps. A null result stands for every accommodation.
+     */
+    private static BitSet and(@Nullable final BitSet result, final BitSet bitmap) {
+        if (result == null) {
+            return (BitSet) bitmap.clone();
+        }
+        result.and(bitmap);
+        return result;
+    }
+
+    @Nullable
+    private static BitSet bitSetOf(@Nullable final Collection<Integer> ids) {
+        if (ids == null) {
+            return null;
+        }
+        final BitSet bitSet = new BitSet();
+        ids.stream().filter(Objects::nonNull).filter(id -> id >= 0).forEach(bitSet::set);
+        return bitSet;
+    }
+
+    private static Set<Integer> setOf(final BitSet bitSet) {
+        return bitSet.stream().boxed().collect(Collectors.toSet());
+    }
+}
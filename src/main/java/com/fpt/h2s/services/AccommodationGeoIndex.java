@@ -0,0 +1,238 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.repositories.AccommodationRepository;
+import com.fpt.h2s.repositories.projections.AccommodationCoordinateRecord;
+import com.fpt.h2s.utilities.QueryValues;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Grid index over accommodation coordinates. The map is cut into cells of {@value CELL_SIZE} degrees,
+ * a radius search only checks the exact distance of accommodations inside the cells covering the circle
+ * and a nearest search visits rings of cells around the center until no closer accommodation can exist.
+ * Distances are in miles, the unit used by map searches. Searches crossing the anti-meridian are not supported.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class AccommodationGeoIndex extends BaseAccommodationIndex {
+
+    private static final double EARTH_RADIUS = 3959;
+    private static final double MILES_PER_DEGREE = EARTH_RADIUS * Math.PI / 180;
+    private static final double CELL_SIZE = 0.05;
+    private static final long TOTAL_LONGITUDE_CELLS = (long) Math.ceil(360 / CELL_SIZE) + 1;
+
+    private final AccommodationRepository accommodationRepository;
+
+    private Map<Integer, Point> points = new HashMap<>();
+    private Map<Long, Set<Integer>> cells = new HashMap<>();
+
+    @Override
+    protected void load() {
+        final Map<Integer, Point> newPoints = new HashMap<>();
+        final Map<Long, Set<Integer>> newCells = new HashMap<>();
+        this.accommodationRepository
+            .findAllCoordinatesOf(QueryValues.integerList(null))
+            .forEach(record -> add(newPoints, newCells, record));
+
+        this.writeLocked(() -> {
+            this.points = newPoints;
+            this.cells = newCells;
+        });
+        log.info("Accommodation geo index rebuilt with {} accommodations in {} cells.", newPoints.size(), newCells.size());
+    }
+
+    @Override
+    protected void reload(final Set<Integer> accommodationIds) {
+        final List<AccommodationCoordinateRecord> records = this.accommodationRepository.findAllCoordinatesOf(accommodationIds);
+        this.writeLocked(() -> {
+            accommodationIds.forEach(id -> {
+                final Point point = this.points.remove(id);
+                if (point != null) {
+                    this.cells.computeIfPresent(point.cell(), (cell, ids) -> ids.remove(id) && ids.isEmpty() ? null : ids);
+                }
+            });
+            records.forEach(record -> add(this.points, this.cells, record));
+        });
+    }
+
+    /**
+     * Find accommodations located inside a circle.
+     *
+     * @param latitude         latitude of the center.
+     * @param longitude        longitude of the center.
+     * @param range            radius of the circle in miles.
+     * @param accommodationIds restrict the result in these ids. Null means every accommodation.
+     * @return ids of accommodations whose distance to the center is less than range.
+     */
+    public Set<Integer> findAllWithin(final double latitude, final double longitude, final double range, @Nullable final Collection<Integer> accommodationIds) {
+        final Point center = Point.of(latitude, longitude);
+        final Set<Integer> allowedIds = accommodationIds == null ? null : new HashSet<>(accommodationIds);
+
+        return this.readLocked(() -> {
+            final Set<Integer> result = new HashSet<>();
+            for (final Integer id : this.candidatesWithin(center, range, allowedIds)) {
+                final Point point = this.points.get(id);
+                final boolean isAllowed = allowedIds == null || allowedIds.contains(id);
+                if (point != null && isAllowed && point.distanceTo(center) < range) {
+                    result.add(id);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Find the nearest accommodations of a point.
+     *
+     * @param latitude         latitude of the center.
+     * @param longitude        longitude of the center.
+     * @param limit            maximum number of accommodations to return.
+     * @param range            ignore accommodations farther than this distance in miles.
+     * @param accommodationIds restrict the result in these ids. Null means every accommodation.
+     * @return ids of the nearest accommodations, ordered by distance ascending.
+     */
+    public List<Integer> findNearest(final double latitude, final double longitude, final int limit, final double range, @Nullable final Collection<Integer> accommodationIds) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        final Point center = Point.of(latitude, longitude);
+        final Set<Integer> allowedIds = accommodationIds == null ? null : new HashSet<>(accommodationIds);
+
+        return this.readLocked(() -> {
+            final PriorityQueue<Neighbour> nearest = new PriorityQueue<>(Comparator.comparingDouble(Neighbour::distance).reversed());
+            final double ringWidth = CELL_SIZE * MILES_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+            final long centerRow = rowOf(center.latitude());
+            final long centerColumn = columnOf(center.longitude());
+
+            int visitedCells = 0;
+            for (int ring = 0; ; ring++) {
+                final double minDistanceOfRing = Math.max(ring - 1, 0) * ringWidth;
+                final boolean isFull = nearest.size() == limit && nearest.peek().distance() <= minDistanceOfRing;
+                if (isFull || minDistanceOfRing > range) {
+                    break;
+                }
+                if (visitedCells > this.points.size()) {
+                    // The grid is sparse around the center, scanning every point is cheaper than visiting more cells.
+                    nearest.clear();
+                    this.points.keySet().forEach(id -> this.offer(nearest, limit, id, center, range, allowedIds));
+                    break;
+                }
+                for (final long cell : ringOf(centerRow, centerColumn, ring)) {
+                    visitedCells++;
+                    this.cells.getOrDefault(cell, Collections.emptySet()).forEach(id -> this.offer(nearest, limit, id, center, range, allowedIds));
+                }
+            }
+
+            return nearest
+                .stream()
+                .sorted(Comparator.comparingDouble(Neighbour::distance))
+                .map(Neighbour::id)
+                .toList();
+        });
+    }
+
+    private void offer(final PriorityQueue<Neighbour> nearest, final int limit, final Integer id, final Point center, final double range, @Nullable final Set<Integer> allowedIds) {
+        if (allowedIds != null && !allowedIds.contains(id)) {
+            return;
+        }
+        final double distance = this.points.get(id).distanceTo(center);
+        if (distance > range) {
+            return;
+        }
+        if (nearest.size() < limit) {
+            nearest.add(new Neighbour(id, distance));
+            return;
+        }
+        if (distance < nearest.peek().distance()) {
+            nearest.poll();
+            nearest.add(new Neighbour(id, distance));
+        }
+    }
+
+    private Collection<Integer> candidatesWithin(final Point center, final double range, @Nullable final Set<Integer> allowedIds) {
+        final double latitudeRadius = range / MILES_PER_DEGREE;
+        final double longitudeRadius = range / (MILES_PER_DEGREE * Math.max(Math.cos(Math.toRadians(center.latitude())), 0.01));
+
+        final long fromRow = rowOf(center.latitude() - latitudeRadius);
+        final long toRow = rowOf(center.latitude() + latitudeRadius);
+        final long fromColumn = columnOf(center.longitude() - longitudeRadius);
+        final long toColumn = columnOf(center.longitude() + longitudeRadius);
+        final long totalCells = (toRow - fromRow + 1) * (toColumn - fromColumn + 1);
+
+        if (allowedIds != null && allowedIds.size() < totalCells) {
+            return allowedIds;
+        }
+        if (totalCells > this.cells.size()) {
+            return this.points.keySet();
+        }
+
+        final List<Integer> candidates = new ArrayList<>();
+        for (long row = fromRow; row <= toRow; row++) {
+            for (long column = fromColumn; column <= toColumn; column++) {
+                candidates.addAll(this.cells.getOrDefault(cellOf(row, column), Collections.emptySet()));
+            }
+        }
+        return candidates;
+    }
+
+    private static List<Long> ringOf(final long centerRow, final long centerColumn, final int ring) {
+        if (ring == 0) {
+            return List.of(cellOf(centerRow, centerColumn));
+        }
+        final List<Long> ringCells = new ArrayList<>(8 * ring);
+        for (long column = centerColumn - ring; column <= centerColumn + ring; column++) {
+            ringCells.add(cellOf(centerRow - ring, column));
+            ringCells.add(cellOf(centerRow + ring, column));
+        }
+        for (long row = centerRow - ring + 1; row <= centerRow + ring - 1; row++) {
+            ringCells.add(cellOf(row, centerColumn - ring));
+            ringCells.add(cellOf(row, centerColumn + ring));
+        }
+        return ringCells;
+    }
+
+    private static void add(final Map<Integer, Point> points, final Map<Long, Set<Integer>> cells, final AccommodationCoordinateRecord record) {
+        if (record.getId() == null || record.getLatitude() == null || record.getLongitude() == null) {
+            return;
+        }
+        final Point point = Point.of(record.getLatitude(), record.getLongitude());
+        points.put(record.getId(), point);
+        cells.computeIfAbsent(point.cell(), cell -> new HashSet<>()).add(record.getId());
+    }
+
+    private static long rowOf(final double latitude) {
+        return (long) Math.floor((Math.max(-90, Math.min(90, latitude)) + 90) / CELL_SIZE);
+    }
+
+    private static long columnOf(final double longitude) {
+        return (long) Math.floor((Math.max(-180, Math.min(180, longitude)) + 180) / CELL_SIZE);
+    }
+
+    private static long cellOf(final long row, final long column) {
+        return row * TOTAL_LONGITUDE_CELLS + column;
+    }
+
+    private record Point(double latitude, double longitude, long cell) {
+
+        static Point of(final double latitude, final double longitude) {
+            return new Point(latitude, longitude, cellOf(rowOf(latitude), columnOf(longitude)));
+        }
+
+        double distanceTo(final Point other) {
+            final double latitudeDelta = Math.toRadians(other.latitude - this.latitude);
+            final double longitudeDelta = Math.toRadians(other.longitude - this.longitude);
+            final double a = Math.pow(Math.sin(latitudeDelta / 2), 2)
+                + Math.cos(Math.toRadians(this.latitude)) * Math.cos(Math.toRadians(other.latitude)) * Math.pow(Math.sin(longitudeDelta / 2), 2);
+            return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+        }
+    }
+
+    private record Neighbour(Integer id, double distance) {
+
+    }
+}
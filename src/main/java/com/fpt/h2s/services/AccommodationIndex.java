@@ -0,0 +1,40 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.Accommodation;
+import com.fpt.h2s.models.entities.Room;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * In-memory structure derived from accommodation data that must follow database writes.
+ * Implementations of every node are notified by {@link com.fpt.h2s.models.entities.listeners.AccommodationIndexListener}
+ * after the transaction that changed the accommodations has been committed.
+ */
+public interface AccommodationIndex {
+
+    /**
+     * Reload the whole index from the database.
+     */
+    void rebuild();
+
+    /**
+     * Mark accommodations as changed. The index should reload them before answering the next query.
+     *
+     * @param accommodationIds ids of accommodations which were created, updated or removed.
+     */
+    void invalidate(Collection<Integer> accommodationIds);
+
+    /**
+     * Mark every accommodation as changed, after a bulk update of all of them. The index should be loaded again before
+     * answering the next query.
+     */
+    void invalidateAll();
+
+    /**
+     * @return entity types whose changes make this index stale. Changes of other entities are not notified.
+     */
+    default Set<Class<?>> sources() {
+        return Set.of(Accommodation.class, Room.class);
+    }
+}
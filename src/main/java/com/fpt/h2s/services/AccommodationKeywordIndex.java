@@ -0,0 +1,84 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.Accommodation;
+import com.fpt.h2s.repositories.AccommodationRepository;
+import com.fpt.h2s.repositories.projections.AccommodationTextRecord;
+import com.fpt.h2s.utilities.Criteria;
+import com.fpt.h2s.utilities.QueryValues;
+import com.fpt.h2s.utilities.TrigramIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accent-insensitive text index over accommodation names, addresses and short descriptions.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class AccommodationKeywordIndex extends BaseAccommodationIndex {
+
+    private static final Map<String, Double> WEIGHTS = Map.of(
+        Accommodation.Fields.name, 3.0,
+        Accommodation.Fields.address, 2.0,
+        Accommodation.Fields.shortDescription, 1.0
+    );
+
+    private final AccommodationRepository accommodationRepository;
+
+    private TrigramIndex index = new TrigramIndex(WEIGHTS);
+
+    @Override
+    public Set<Class<?>> sources() {
+        return Set.of(Accommodation.class);
+    }
+
+    @Override
+    protected void load() {
+        final TrigramIndex newIndex = new TrigramIndex(WEIGHTS);
+        this.accommodationRepository
+            .findAllTextsOf(QueryValues.integerList(null))
+            .forEach(record -> add(newIndex, record));
+
+        this.writeLocked(() -> this.index = newIndex);
+        log.info("Accommodation keyword index rebuilt with {} accommodations.", newIndex.size(Accommodation.Fields.name));
+    }
+
+    @Override
+    protected void reload(final Set<Integer> accommodationIds) {
+        final List<AccommodationTextRecord> records = this.accommodationRepository.findAllTextsOf(accommodationIds);
+        this.writeLocked(() -> {
+            accommodationIds.forEach(this.index::remove);
+            records.forEach(record -> add(this.index, record));
+        });
+    }
+
+    private static void add(final TrigramIndex index, final AccommodationTextRecord record) {
+        final Map<String, String> texts = new HashMap<>();
+        texts.put(Accommodation.Fields.name, record.getName());
+        texts.put(Accommodation.Fields.address, record.getAddress());
+        texts.put(Accommodation.Fields.shortDescription, record.getShortDescription());
+        index.put(record.getId(), texts);
+    }
+
+    /**
+     * @return ids of accommodations whose field matches, null when the filter must be run by the database.
+     */
+    @Nullable
+    public Set<Integer> findAllMatching(final String field, final Criteria operation, final Object... value) {
+        return this.readLocked(() -> this.index.findAllMatching(field, operation, value));
+    }
+
+    /**
+     * @return accommodations most similar to the keyword, best first.
+     */
+    public List<TrigramIndex.Hit> search(final String keyword, final int limit) {
+        return this.readLocked(() -> this.index.search(keyword, limit));
+    }
+}
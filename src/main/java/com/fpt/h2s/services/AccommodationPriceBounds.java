@@ -0,0 +1,102 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.listeners.AccommodationIndexListener;
+import com.fpt.h2s.repositories.AccommodationRepository;
+import com.fpt.h2s.repositories.RedisRepository;
+import com.fpt.h2s.repositories.RoomRepository;
+import com.fpt.h2s.utilities.QueryValues;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Maintains the price bounds of accommodations: the base price range of their rooms, and their discounted nightly price range
+ * over the next {@value UPCOMING_DAYS} days read from room_day_prices. Bounds are refreshed whenever room_day_prices is,
+ * and every night as the window moves.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class AccommodationPriceBounds {
+
+    private static final int UPCOMING_DAYS = 90;
+    private static final String DAILY_REFRESH_KEY = "price-bounds-refreshed-%s";
+    private static final Duration DAILY_REFRESH_DURATION = Duration.ofDays(2);
+
+    private final AccommodationRepository accommodationRepository;
+    private final RoomRepository roomRepository;
+    private final AccommodationIndexListener accommodationIndexListener;
+
+    /**
+     * Refresh the accommodations of some rooms, after prices of these rooms changed.
+     */
+    @Transactional
+    public void refreshRooms(final Collection<Integer> roomIds) {
+        if (roomIds.isEmpty()) {
+            return;
+        }
+        final Set<Integer> accommodationIds = this.roomRepository.findAllAccommodationIdsOf(roomIds);
+        if (accommodationIds.isEmpty()) {
+            return;
+        }
+        final LocalDate today = LocalDate.now();
+        this.accommodationRepository.refreshPriceBoundsOf(accommodationIds, today, today.plusDays(UPCOMING_DAYS - 1));
+        // The update skips entity listeners, indexes must be told about it.
+        this.accommodationIndexListener.onBulkChanged(AccommodationPriceBounds.class, accommodationIds);
+    }
+
+    /**
+     * Refresh every accommodation, after prices of every room changed.
+     */
+    @Transactional
+    public void refreshAll() {
+        this.refreshAllFrom(LocalDate.now());
+    }
+
+    /**
+     * Move the window of every accommodation to the current day. Every node runs this at the same time, only the first one
+     * claiming the day refreshes, the others would wait on the same rows. It sends the new bounds to the indexes of every node.
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 1 0 * * *")
+    public void refreshAllOncePerDay() {
+        final LocalDate today = LocalDate.now();
+        final String key = DAILY_REFRESH_KEY.formatted(today);
+        if (!claim(key)) {
+            log.debug("Price bounds of {} are refreshed by another node.", today);
+            return;
+        }
+        try {
+            this.refreshAllFrom(today);
+        } catch (final RuntimeException e) {
+            // Let the next run or another node try again.
+            RedisRepository.remove(key);
+            throw e;
+        }
+    }
+
+    private static boolean claim(final String key) {
+        try {
+            return RedisRepository.setIfAbsent(key, "1", DAILY_REFRESH_DURATION);
+        } catch (final Exception e) {
+            log.warn("Failed to claim {}, price bounds keep their current window.", key, e);
+            return false;
+        }
+    }
+
+    private void refreshAllFrom(final LocalDate today) {
+        final int totalRefreshed = this.accommodationRepository.refreshPriceBoundsOf(QueryValues.integerList(null), today, today.plusDays(UPCOMING_DAYS - 1));
+        this.accommodationIndexListener.onAllChanged(AccommodationPriceBounds.class);
+        log.info("Price bounds of {} accommodations refreshed from {}.", totalRefreshed, today);
+    }
+}
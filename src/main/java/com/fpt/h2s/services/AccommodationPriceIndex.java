@@ -0,0 +1,109 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.Accommodation;
+import com.fpt.h2s.repositories.AccommodationRepository;
+import com.fpt.h2s.repositories.projections.AccommodationPriceBoundsRecord;
+import com.fpt.h2s.utilities.QueryValues;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Upcoming discounted nightly price range of every accommodation, maintained by {@link AccommodationPriceBounds}.
+ * Searches use it to discard accommodations whose rooms cannot meet a price range before computing prices of their rooms.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class AccommodationPriceIndex extends BaseAccommodationIndex {
+
+    private final AccommodationRepository accommodationRepository;
+
+    private Map<Integer, Bounds> bounds = new HashMap<>();
+
+    @Override
+    public Set<Class<?>> sources() {
+        return Set.of(Accommodation.class, AccommodationPriceBounds.class);
+    }
+
+    @Override
+    protected void load() {
+        final Map<Integer, Bounds> newBounds = new HashMap<>();
+        this.accommodationRepository
+            .findAllPriceBoundsOf(QueryValues.integerList(null))
+            .forEach(record -> newBounds.put(record.getId(), Bounds.of(record)));
+
+        this.writeLocked(() -> this.bounds = newBounds);
+        log.info("Accommodation price index rebuilt with {} accommodations.", newBounds.size());
+    }
+
+    @Override
+    protected void reload(final Set<Integer> accommodationIds) {
+        final List<AccommodationPriceBoundsRecord> records = this.accommodationRepository.findAllPriceBoundsOf(accommodationIds);
+        this.writeLocked(() -> {
+            accommodationIds.forEach(this.bounds::remove);
+            records.forEach(record -> this.bounds.put(record.getId(), Bounds.of(record)));
+        });
+    }
+
+    /**
+     * Find accommodations which may have a room meeting a price range over a stay. Accommodations whose bounds do not cover
+     * the stay are always kept.
+     *
+     * @param isTotalPrice     true when the range applies to the sum of the nightly prices of the stay, false when it applies to one night.
+     * @param accommodationIds restrict the result in these ids. Null means every accommodation.
+     * @return null when no accommodation can be discarded.
+     */
+    @Nullable
+    public Set<Integer> findAllWhosePricesMayBeBetween(
+        final long fromPrice,
+        final long toPrice,
+        final LocalDate firstNight,
+        final LocalDate lastNight,
+        final boolean isTotalPrice,
+        @Nullable final Collection<Integer> accommodationIds
+    ) {
+        final long nights = Math.max(ChronoUnit.DAYS.between(firstNight, lastNight) + 1, 1);
+        return this.readLocked(() -> {
+            final Collection<Integer> candidateIds = accommodationIds == null ? this.bounds.keySet() : accommodationIds;
+            final Set<Integer> result = new HashSet<>();
+            for (final Integer id : candidateIds) {
+                final Bounds accommodationBounds = this.bounds.get(id);
+                if (accommodationBounds == null || accommodationBounds.mayBeBetween(fromPrice, toPrice, firstNight, lastNight, isTotalPrice ? nights : 1)) {
+                    result.add(id);
+                }
+            }
+            return result.size() == candidateIds.size() ? null : result;
+        });
+    }
+
+    /**
+     * @param minPrice null when no room has a price between the dates.
+     */
+    record Bounds(@Nullable Long minPrice, @Nullable Long maxPrice, @Nullable LocalDate fromDate, @Nullable LocalDate toDate) {
+
+        static Bounds of(final AccommodationPriceBoundsRecord record) {
+            return new Bounds(record.getUpcomingMinPrice(), record.getUpcomingMaxPrice(), record.getUpcomingPricesFrom(), record.getUpcomingPricesTo());
+        }
+
+        /**
+         * Rooms only match with nights having a price, so a total is at least the lowest nightly price
+         * and at most the highest one times the number of nights.
+         */
+        boolean mayBeBetween(final long fromPrice, final long toPrice, final LocalDate firstNight, final LocalDate lastNight, final long nights) {
+            final boolean coversStay = this.fromDate != null && this.toDate != null && !firstNight.isBefore(this.fromDate) && !lastNight.isAfter(this.toDate);
+            if (!coversStay) {
+                return true;
+            }
+            if (this.minPrice == null || this.maxPrice == null) {
+                return false;
+            }
+            return this.minPrice <= toPrice && this.maxPrice * nights >= fromPrice;
+        }
+    }
+}
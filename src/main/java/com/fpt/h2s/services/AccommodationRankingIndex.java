@@ -0,0 +1,126 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.Accommodation;
+import com.fpt.h2s.repositories.AccommodationRepository;
+import com.fpt.h2s.repositories.projections.AccommodationRankingRecord;
+import com.fpt.h2s.utilities.QueryValues;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Accommodation ids sorted by ranking score, highest first, ties broken by the highest id.
+ * Pages of the default search order are read from this order instead of sorting matching rows in the database:
+ * broad searches walk the order and keep matching ids, narrow searches sort their few ids by the scores kept here.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class AccommodationRankingIndex extends BaseAccommodationIndex {
+
+    /**
+     * Walk the whole order when the searched ids are at least this fraction of every accommodation.
+     */
+    private static final int WALK_RATIO = 8;
+
+    private final AccommodationRepository accommodationRepository;
+
+    private Map<Integer, Double> scores = new HashMap<>();
+    private int[] ranking = new int[0];
+
+    @Override
+    public Set<Class<?>> sources() {
+        return Set.of(Accommodation.class);
+    }
+
+    @Override
+    protected void load() {
+        final Map<Integer, Double> newScores = new HashMap<>();
+        this.accommodationRepository
+            .findAllRankingsOf(QueryValues.integerList(null))
+            .forEach(record -> newScores.put(record.getId(), scoreOf(record)));
+        final int[] newRanking = rankingOf(newScores);
+
+        this.writeLocked(() -> {
+            this.scores = newScores;
+            this.ranking = newRanking;
+        });
+        log.info("Accommodation ranking index rebuilt with {} accommodations.", newScores.size());
+    }
+
+    @Override
+    protected void reload(final Set<Integer> accommodationIds) {
+        final List<AccommodationRankingRecord> records = this.accommodationRepository.findAllRankingsOf(accommodationIds);
+        this.writeLocked(() -> {
+            final Map<Integer, Double> newScores = new HashMap<>(this.scores);
+            newScores.keySet().removeAll(accommodationIds);
+            records.forEach(record -> newScores.put(record.getId(), scoreOf(record)));
+            this.scores = newScores;
+            this.ranking = rankingOf(newScores);
+        });
+    }
+
+    /**
+     * Read a page of accommodations in ranking order.
+     *
+     * @param accommodationIds ids of the accommodations matching the search.
+     * @param ascending        lowest score first, ties broken by the lowest id.
+     * @param offset           number of matching accommodations to skip.
+     * @param size             maximum number of ids to return.
+     * @return ids of the page, in order.
+     */
+    public List<Integer> findPage(final Collection<Integer> accommodationIds, final boolean ascending, final long offset, final int size) {
+        return this.readLocked(() -> {
+            if ((long) accommodationIds.size() * WALK_RATIO >= this.ranking.length) {
+                return this.walk(new HashSet<>(accommodationIds), ascending, offset, size);
+            }
+            final Comparator<Integer> order = this.descendingOrder();
+            return accommodationIds
+                .stream()
+                .sorted(ascending ? order.reversed() : order)
+                .skip(offset)
+                .limit(size)
+                .toList();
+        });
+    }
+
+    private List<Integer> walk(final Set<Integer> accommodationIds, final boolean ascending, final long offset, final int size) {
+        final List<Integer> page = new ArrayList<>(size);
+        long skipped = 0;
+        for (int i = 0; i < this.ranking.length && page.size() < size; i++) {
+            final int id = this.ranking[ascending ? this.ranking.length - 1 - i : i];
+            if (!accommodationIds.contains(id)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            page.add(id);
+        }
+        return page;
+    }
+
+    private Comparator<Integer> descendingOrder() {
+        final Map<Integer, Double> currentScores = this.scores;
+        return Comparator
+            .<Integer>comparingDouble(id -> currentScores.getOrDefault(id, 0.0))
+            .thenComparing(Comparator.naturalOrder())
+            .reversed();
+    }
+
+    private static int[] rankingOf(final Map<Integer, Double> scores) {
+        return scores
+            .entrySet()
+            .stream()
+            .sorted(Map.Entry.<Integer, Double>comparingByValue().thenComparing(Map.Entry.<Integer, Double>comparingByKey()).reversed())
+            .mapToInt(Map.Entry::getKey)
+            .toArray();
+    }
+
+    private static double scoreOf(final AccommodationRankingRecord record) {
+        return Optional.ofNullable(record.getRankingScore()).orElse(0.0);
+    }
+}
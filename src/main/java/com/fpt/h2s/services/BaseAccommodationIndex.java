@@ -0,0 +1,8 @@
+package com.fpt.h2s.services;
+
+/**
+ * Base of in-memory accommodation indexes, invalidated with the ids of changed accommodations.
+ */
+public abstract class BaseAccommodationIndex extends BaseIndex implements AccommodationIndex {
+
+}
@@ -0,0 +1,133 @@
+package com.fpt.h2s.services;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Base of in-memory indexes of entities identified by integer ids. It loads the index when the application is ready,
+ * rebuilds it every 10 minutes as a safety net and reloads invalidated entities lazily before the next read.
+ * <p>
+ * Loads and reloads run one at a time. Invalidated ids stay pending until their reload has been written, so readers never
+ * see the structure from before a committed change once it has been invalidated, and ids invalidated while a load reads
+ * the database stay pending after it, so the load never hides their change.
+ */
+public abstract class BaseIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object changesLock = new Object();
+    private final AtomicLong generation = new AtomicLong();
+    /**
+     * Generation of the last invalidation of each pending id.
+     */
+    private final Map<Integer, Long> pendingIds = new ConcurrentHashMap<>();
+    /**
+     * Generation read by the last load, -1 until the first load.
+     */
+    private volatile long loadedGeneration = -1;
+    /**
+     * Generation of the last {@link #invalidateAll()}, the index is stale while it is after the loaded generation.
+     */
+    private volatile long invalidatedGeneration = 0;
+
+    /**
+     * Load the whole index from database. Implementations should build new structures
+     * and swap them using {@link #writeLocked(Runnable)}.
+     */
+    protected abstract void load();
+
+    /**
+     * Reload some entities from database. Entities which no longer exist must be removed from the index.
+     *
+     * @param ids ids of entities that have changed.
+     */
+    protected abstract void reload(Set<Integer> ids);
+
+    /**
+     * Reload the whole index from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedRate = 10, initialDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void rebuild() {
+        synchronized (this.changesLock) {
+            final long startGeneration = this.generation.get();
+            this.load();
+            this.loadedGeneration = startGeneration;
+            // Changes invalidated before the load started have been read by it.
+            this.pendingIds.forEach((id, idGeneration) -> {
+                if (idGeneration <= startGeneration) {
+                    this.pendingIds.remove(id, idGeneration);
+                }
+            });
+        }
+    }
+
+    /**
+     * Mark entities as changed. The index reloads them before answering the next query.
+     */
+    public void invalidate(final Collection<Integer> ids) {
+        final long idGeneration = this.generation.incrementAndGet();
+        ids.forEach(id -> this.pendingIds.put(id, idGeneration));
+    }
+
+    /**
+     * Mark every entity as changed. The index is loaded again before answering the next query.
+     */
+    public void invalidateAll() {
+        this.invalidatedGeneration = this.generation.incrementAndGet();
+    }
+
+    protected <T> T readLocked(final Supplier<T> reader) {
+        this.loadChanges();
+        this.lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    protected void writeLocked(final Runnable writer) {
+        this.lock.writeLock().lock();
+        try {
+            writer.run();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void loadChanges() {
+        if (!this.isStale() && this.pendingIds.isEmpty()) {
+            return;
+        }
+        synchronized (this.changesLock) {
+            if (this.isStale()) {
+                this.rebuild();
+            }
+            if (this.pendingIds.isEmpty()) {
+                return;
+            }
+
+            final Map<Integer, Long> changedIds = new HashMap<>(this.pendingIds);
+            this.reload(new HashSet<>(changedIds.keySet()));
+            // Ids invalidated again during the reload stay pending, it may have read them before their last change.
+            changedIds.forEach((id, idGeneration) -> this.pendingIds.remove(id, idGeneration));
+        }
+    }
+
+    private boolean isStale() {
+        return this.loadedGeneration < this.invalidatedGeneration;
+    }
+}
@@ -0,0 +1,121 @@
+package com.fpt.h2s.services;
+
+import ananta.utility.ListEx;
+import ananta.utility.StringEx;
+import com.fpt.h2s.models.entities.BookingRequest;
+import com.fpt.h2s.models.entities.listeners.AccommodationIndexListener;
+import com.fpt.h2s.models.entities.listeners.SearchVersionListener;
+import com.fpt.h2s.repositories.BookingRequestRepository;
+import com.fpt.h2s.repositories.projections.PendingBookingRecord;
+import com.fpt.h2s.services.commands.transactions.CreateBookingTransactionRequestCommand;
+import com.fpt.h2s.utilities.TimingWheel;
+import com.google.common.collect.Lists;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Marks bookings as not purchased when they have not been paid in time. Bookings created by this node wait in a timing wheel
+ * and are expired with one update once due, so the cost follows the number of expirations instead of the number of pending bookings.
+ * Bookings the wheel does not know, created by other nodes or before a restart, are caught by a slower query on pending bookings.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class BookingExpiryService {
+
+    private static final Duration PAYMENT_DURATION = Duration.ofMinutes(CreateBookingTransactionRequestCommand.TRANSACTION_DURATION);
+    private static final int BOOKINGS_PER_UPDATE = 500;
+
+    private final BookingRequestRepository bookingRequestRepository;
+    private final AccommodationIndexListener accommodationIndexListener;
+    private final SearchVersionListener searchVersionListener;
+    private final TimingWheel<PendingBooking> wheel = new TimingWheel<>(Duration.ofSeconds(1), 1024);
+
+    /**
+     * Expire a booking if it is still pending when its payment time is over.
+     */
+    public void register(final BookingRequest bookingRequest) {
+        final Instant createdAt = Optional.ofNullable(bookingRequest.getCreatedAt()).map(Timestamp::toInstant).orElseGet(Instant::now);
+        this.wheel.add(new PendingBooking(bookingRequest.getId(), bookingRequest.getAccommodationId()), createdAt.plus(PAYMENT_DURATION));
+    }
+
+    /**
+     * Stop waiting for the payment of a booking which has been paid or cancelled.
+     */
+    public void unregister(final BookingRequest bookingRequest) {
+        this.wheel.cancel(new PendingBooking(bookingRequest.getId(), bookingRequest.getAccommodationId()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerPendingBookings() {
+        final List<PendingBookingRecord> bookings = this.bookingRequestRepository.findAllPendingCreatedBefore(Timestamp.from(Instant.now()));
+        bookings.forEach(booking -> this.wheel.add(new PendingBooking(booking.getId(), booking.getAccommodationId()), booking.getCreatedAt().toInstant().plus(PAYMENT_DURATION)));
+        log.info("Registered {} pending bookings to expire.", bookings.size());
+    }
+
+    @Transactional
+    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.SECONDS)
+    public void expireDueBookings() {
+        if (isLocal()) {
+            return;
+        }
+        this.expire(this.wheel.advance(Instant.now()));
+    }
+
+    @Transactional
+    @Scheduled(fixedRate = 5, initialDelay = 5, timeUnit = TimeUnit.MINUTES)
+    public void expireUnregisteredBookings() {
+        if (isLocal()) {
+            return;
+        }
+        final Timestamp timeToCancel = Timestamp.from(Instant.now().minus(PAYMENT_DURATION));
+        this.expire(ListEx.listOf(
+            this.bookingRequestRepository.findAllPendingCreatedBefore(timeToCancel),
+            booking -> new PendingBooking(booking.getId(), booking.getAccommodationId())
+        ));
+    }
+
+    private void expire(final List<PendingBooking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        final List<Integer> ids = ListEx.listOf(bookings, PendingBooking::id);
+        final int totalExpired = Lists
+            .partition(ids, BOOKINGS_PER_UPDATE)
+            .stream()
+            .mapToInt(this.bookingRequestRepository::expireAllPending)
+            .sum();
+        if (totalExpired == 0) {
+            return;
+        }
+
+        // The update skips entity listeners, indexes and cached searches must be told about it.
+        final Set<Integer> accommodationIds = bookings.stream().map(PendingBooking::accommodationId).filter(Objects::nonNull).collect(Collectors.toSet());
+        this.accommodationIndexListener.onBulkChanged(BookingRequest.class, accommodationIds);
+        this.searchVersionListener.onBulkChanged(BookingRequest.class);
+        log.info("Cancel {} booking requests among: {}", totalExpired, ids);
+    }
+
+    private static boolean isLocal() {
+        return StringEx.isBlank(System.getenv("ENVIRONMENT")) || Objects.equals(System.getenv("ENVIRONMENT"), "LOCAL");
+    }
+
+    private record PendingBooking(Integer id, Integer accommodationId) {
+
+    }
+}
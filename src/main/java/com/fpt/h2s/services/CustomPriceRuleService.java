@@ -0,0 +1,167 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.PriceHistory;
+import com.fpt.h2s.models.entities.listeners.SearchVersionListener;
+import com.fpt.h2s.repositories.PriceHistoryRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Writes custom price rules. Changes are painted over the current custom ranges of each room and rule type in memory,
+ * adjacent ranges with the same amount are merged, then only the rows whose range or amount changed are deleted or inserted.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class CustomPriceRuleService {
+
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final DayTypeCalendar dayTypeCalendar;
+    private final RoomPriceCalendarService priceCalendarService;
+    private final SearchVersionListener searchVersionListener;
+
+    /**
+     * Apply changes in order, a later change wins where it overlaps an earlier one.
+     */
+    @Transactional
+    public void apply(final List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        final Set<Integer> roomIds = changes.stream().map(Change::roomId).collect(Collectors.toSet());
+        final LocalDate lastDate = this.dayTypeCalendar.lastDate();
+        final Map<Key, List<PriceHistory>> rulesMapToKey = this.priceHistoryRepository
+            .findAllByRoomIdInAndDayType(roomIds, PriceHistory.DayType.CUSTOM)
+            .stream()
+            // Rules without a valid range never apply, they are left as they are.
+            .filter(rule -> rule.getFromDate() != null && rule.getToDate() != null && !rule.getToDate().isBefore(rule.getFromDate()))
+            .collect(Collectors.groupingBy(rule -> new Key(rule.getRoomId(), rule.getType())));
+        final Map<Key, List<Change>> changesMapToKey = changes
+            .stream()
+            .collect(Collectors.groupingBy(change -> new Key(change.roomId(), change.type()), LinkedHashMap::new, Collectors.toList()));
+
+        final List<PriceHistory> rulesToDelete = new ArrayList<>();
+        final List<PriceHistory> rulesToInsert = new ArrayList<>();
+        changesMapToKey.forEach((key, keyChanges) -> {
+            final List<PriceHistory> existingRules = rulesMapToKey.getOrDefault(key, List.of());
+            final TreeMap<LocalDate, Range> ranges = new TreeMap<>();
+            existingRules.stream().sorted(Comparator.comparing(PriceHistory::getId)).map(Range::of).forEach(range -> paint(ranges, range));
+            keyChanges.forEach(change -> paint(ranges, change.rangeUntil(lastDate)));
+
+            final Map<Range, Deque<PriceHistory>> rulesMapToRange = existingRules
+                .stream()
+                .collect(Collectors.groupingBy(Range::of, Collectors.toCollection(ArrayDeque::new)));
+            for (final Range range : coalesce(ranges.values())) {
+                final Deque<PriceHistory> unchangedRules = rulesMapToRange.get(range);
+                if (unchangedRules == null || unchangedRules.isEmpty()) {
+                    rulesToInsert.add(range.toRule(key));
+                } else {
+                    unchangedRules.pop();
+                }
+            }
+            rulesMapToRange.values().forEach(rulesToDelete::addAll);
+        });
+
+        this.priceHistoryRepository.deleteAllInBatch(rulesToDelete);
+        this.priceHistoryRepository.saveAll(rulesToInsert);
+        if (!rulesToDelete.isEmpty()) {
+            // The batch delete skips entity listeners.
+            this.searchVersionListener.onBulkChanged(PriceHistory.class);
+        }
+        this.priceCalendarService.refreshRooms(roomIds);
+        log.debug("Applied {} price changes: {} rules deleted, {} rules inserted.", changes.size(), rulesToDelete.size(), rulesToInsert.size());
+    }
+
+    /**
+     * Overwrite disjoint ranges, mapped to their start, with a new range. Ranges partly covered are cut to what is left of them.
+     */
+    private static void paint(final TreeMap<LocalDate, Range> ranges, final Range range) {
+        final Map.Entry<LocalDate, Range> before = ranges.lowerEntry(range.from());
+        if (before != null && !before.getValue().to().isBefore(range.from())) {
+            final Range overlapped = before.getValue();
+            ranges.put(overlapped.from(), overlapped.withTo(range.from().minusDays(1)));
+            if (overlapped.to().isAfter(range.to())) {
+                ranges.put(range.to().plusDays(1), overlapped.withFrom(range.to().plusDays(1)));
+            }
+        }
+
+        final NavigableMap<LocalDate, Range> covered = ranges.subMap(range.from(), true, range.to(), true);
+        // Only the last covered range can end after the new one.
+        final Map.Entry<LocalDate, Range> last = covered.lastEntry();
+        covered.clear();
+        if (last != null && last.getValue().to().isAfter(range.to())) {
+            ranges.put(range.to().plusDays(1), last.getValue().withFrom(range.to().plusDays(1)));
+        }
+        ranges.put(range.from(), range);
+    }
+
+    private static List<Range> coalesce(final Collection<Range> sortedRanges) {
+        final List<Range> result = new ArrayList<>();
+        Range current = null;
+        for (final Range range : sortedRanges) {
+            if (current != null && current.to().plusDays(1).equals(range.from()) && Objects.equals(current.amount(), range.amount())) {
+                current = current.withTo(range.to());
+                continue;
+            }
+            if (current != null) {
+                result.add(current);
+            }
+            current = range;
+        }
+        if (current != null) {
+            result.add(current);
+        }
+        return result;
+    }
+
+    /**
+     * @param toDate last day of the change, null to apply it until the end of the day type calendar.
+     */
+    public record Change(int roomId, PriceHistory.Type type, long amount, LocalDate fromDate, @Nullable LocalDate toDate) {
+
+        private Range rangeUntil(@Nullable final LocalDate lastDate) {
+            if (this.toDate != null) {
+                return new Range(this.fromDate, this.toDate, this.amount);
+            }
+            final LocalDate openEnd = lastDate == null || lastDate.isBefore(this.fromDate) ? this.fromDate : lastDate;
+            return new Range(this.fromDate, openEnd, this.amount);
+        }
+    }
+
+    private record Key(int roomId, PriceHistory.Type type) {
+
+    }
+
+    private record Range(LocalDate from, LocalDate to, Long amount) {
+
+        static Range of(final PriceHistory rule) {
+            return new Range(rule.getFromDate(), rule.getToDate(), rule.getAmount());
+        }
+
+        Range withFrom(final LocalDate from) {
+            return new Range(from, this.to, this.amount);
+        }
+
+        Range withTo(final LocalDate to) {
+            return new Range(this.from, to, this.amount);
+        }
+
+        PriceHistory toRule(final Key key) {
+            return PriceHistory.builder()
+                .roomId(key.roomId())
+                .type(key.type())
+                .dayType(PriceHistory.DayType.CUSTOM)
+                .amount(this.amount)
+                .fromDate(this.from)
+                .toDate(this.to)
+                .build();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.DayType;
+import com.fpt.h2s.repositories.DayTypeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Day type of every day of the dates table, held in memory as one byte per day of each year. The calendar is loaded on first use,
+ * reloaded by {@link RoomPriceCalendarService#refreshDates} when days change and every few minutes to see changes made
+ * through other nodes, so pricing never has to read the dates table.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class DayTypeCalendar {
+
+    private static final DayType.Type[] TYPES = DayType.Type.values();
+
+    private final DayTypeRepository dayTypeRepository;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * @return null when the calendar is empty.
+     */
+    @Nullable
+    public LocalDate firstDate() {
+        return this.snapshot().firstDate();
+    }
+
+    /**
+     * @return null when the calendar is empty.
+     */
+    @Nullable
+    public LocalDate lastDate() {
+        return this.snapshot().lastDate();
+    }
+
+    /**
+     * @return null when the day is out of the calendar.
+     */
+    @Nullable
+    public DayType.Type typeOf(final LocalDate date) {
+        return this.snapshot().typeOf(date);
+    }
+
+    /**
+     * Pack the days of the calendar between the input dates into a single JSON parameter, to be joined with
+     * {@code JSON_TABLE(:days, '$[*]' COLUMNS (date DATE PATH '$[0]', type VARCHAR(16) PATH '$[1]')) AS dates}.
+     */
+    public String daysJson(final LocalDate fromDate, final LocalDate toDate) {
+        final Snapshot currentSnapshot = this.snapshot();
+        final StringJoiner json = new StringJoiner(",", "[", "]");
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            final DayType.Type type = currentSnapshot.typeOf(date);
+            if (type != null) {
+                json.add("[\"%s\",\"%s\"]".formatted(date, type));
+            }
+        }
+        return json.toString();
+    }
+
+    @Scheduled(fixedRate = 10, initialDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void reload() {
+        final List<DayType> days = this.dayTypeRepository.findAll();
+        final Map<Integer, byte[]> typesMapToYear = new HashMap<>();
+        LocalDate firstDate = null;
+        LocalDate lastDate = null;
+        for (final DayType day : days) {
+            if (day.getDate() == null || day.getType() == null) {
+                continue;
+            }
+            typesMapToYear.computeIfAbsent(day.getDate().getYear(), year -> new byte[366])[day.getDate().getDayOfYear() - 1] = (byte) (day.getType().ordinal() + 1);
+            firstDate = firstDate == null || day.getDate().isBefore(firstDate) ? day.getDate() : firstDate;
+            lastDate = lastDate == null || day.getDate().isAfter(lastDate) ? day.getDate() : lastDate;
+        }
+        this.snapshot = new Snapshot(typesMapToYear, firstDate, lastDate);
+        log.debug("Day type calendar loaded between {} and {}.", firstDate, lastDate);
+    }
+
+    /**
+     * @return the calendar as currently loaded, to read many days of a single version of the calendar.
+     */
+    public Snapshot snapshot() {
+        final Snapshot currentSnapshot = this.snapshot;
+        if (currentSnapshot != null) {
+            return currentSnapshot;
+        }
+        synchronized (this) {
+            if (this.snapshot == null) {
+                this.reload();
+            }
+            return this.snapshot;
+        }
+    }
+
+    /**
+     * @param typesMapToYear type ordinal plus one for each day of the year, zero for days out of the calendar.
+     */
+    public record Snapshot(Map<Integer, byte[]> typesMapToYear, @Nullable LocalDate firstDate, @Nullable LocalDate lastDate) {
+
+        /**
+         * @return null when the day is out of the calendar.
+         */
+        @Nullable
+        public DayType.Type typeOf(final LocalDate date) {
+            final byte[] types = this.typesMapToYear.get(date.getYear());
+            if (types == null || types[date.getDayOfYear() - 1] == 0) {
+                return null;
+            }
+            return TYPES[types[date.getDayOfYear() - 1] - 1];
+        }
+    }
+}
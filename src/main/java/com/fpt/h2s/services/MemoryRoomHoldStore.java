@@ -0,0 +1,41 @@
+package com.fpt.h2s.services;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds of a single node. Each key is updated atomically by the map, so holds on different rooms or nights never wait for each other.
+ */
+class MemoryRoomHoldStore implements RoomHoldStore {
+
+    private final Map<String, Map<String, Hold>> holdsByKey = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<String, Integer> add(final String holdId, final Map<String, Integer> unitsByKey, final Duration duration) {
+        final long now = System.currentTimeMillis();
+        final long expiresAt = now + duration.toMillis();
+        final Map<String, Integer> heldUnits = new HashMap<>();
+        unitsByKey.forEach((key, units) -> this.holdsByKey.compute(key, (k, existingHolds) -> {
+            final Map<String, Hold> holds = existingHolds == null ? new HashMap<>() : existingHolds;
+            holds.values().removeIf(existingHold -> existingHold.expiresAt() <= now);
+            holds.put(holdId, new Hold(units, expiresAt));
+            heldUnits.put(key, holds.values().stream().mapToInt(Hold::units).sum());
+            return holds;
+        }));
+        return heldUnits;
+    }
+
+    @Override
+    public void remove(final String holdId, final Map<String, Integer> unitsByKey) {
+        unitsByKey.keySet().forEach(key -> this.holdsByKey.computeIfPresent(key, (k, holds) -> {
+            holds.remove(holdId);
+            return holds.isEmpty() ? null : holds;
+        }));
+    }
+
+    private record Hold(int units, long expiresAt) {
+
+    }
+}
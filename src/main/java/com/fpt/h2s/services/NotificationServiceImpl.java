@@ -1,9 +1,9 @@
 package com.fpt.h2s.services;
 
 import com.fpt.h2s.models.entities.NotificationHistory;
+import com.fpt.h2s.models.entities.OutboxEvent;
 import com.fpt.h2s.repositories.NotificationHistoryRepository;
 import com.fpt.h2s.repositories.UserDeviceTokenRepository;
-import com.fpt.h2s.utilities.ExceptionPrinter;
 import com.google.firebase.messaging.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
@@ -24,39 +24,47 @@ public class NotificationServiceImpl implements NotificationService {
 
     private final UserDeviceTokenRepository userDeviceTokenRepository;
     private final NotificationHistoryRepository notificationHistoryRepository;
+    private final Outbox outbox;
 
+    /**
+     * Save the notification to the history of its users in the current transaction. The push to their devices is sent
+     * by {@link OutboxRelay} once the transaction has been committed.
+     */
     @Override
     public void send(final Function<Notification.Builder, Notification.Builder> notificationBuilder) {
         final Notification notification = notificationBuilder.apply(new Notification.Builder()).build();
-        try {
-            final MulticastMessage message = this.createMessage(notification);
-            final BatchResponse batchResponse = this.firebaseMessaging.sendMulticast(message);
-
-            final long totalSucceed = batchResponse.getResponses().stream().filter(SendResponse::isSuccessful).count();
-            final long totalFailed = batchResponse.getResponses().stream().filter(Predicate.not(SendResponse::isSuccessful)).count();
-
-            final List<NotificationHistory> notificationHistories = notification.getUserIds()
-                .stream()
-                .map(
-                    userId -> NotificationHistory.builder().userId(userId).payload(notification.getContent()).build()
-                )
-                .collect(Collectors.toList());
-            this.notificationHistoryRepository.saveAll(notificationHistories);
+        final List<NotificationHistory> notificationHistories = notification.getUserIds()
+            .stream()
+            .map(
+                userId -> NotificationHistory.builder().userId(userId).payload(notification.getContent()).build()
+            )
+            .collect(Collectors.toList());
+        this.notificationHistoryRepository.saveAll(notificationHistories);
+        this.outbox.add(OutboxEvent.Type.NOTIFICATION, new Push(notification.getContent(), notification.getUserIds()));
+    }
 
-            log.info("Total notifications sent succeed: {}", totalSucceed);
-            log.info("Total notifications sent failed: {}", totalFailed);
-        } catch (final FirebaseMessagingException e) {
-            log.info("Firebase error {}", e.getMessage());
-        } catch (final Exception e) {
-            ExceptionPrinter.print(e);
-            log.warn("Send notification failed.");
+    /**
+     * Push a notification to the devices of its users.
+     *
+     * @throws FirebaseMessagingException if Firebase cannot be reached, the push should be retried.
+     */
+    public void deliver(final Push push) throws FirebaseMessagingException {
+        final List<String> tokens = this.userDeviceTokenRepository.findAllByUserIds(push.userIds()).stream().map(token -> token.getId().getToken()).toList();
+        if (tokens.isEmpty()) {
+            return;
         }
+        final BatchResponse batchResponse = this.firebaseMessaging.sendMulticast(this.createMessage(push.content(), tokens));
+
+        final long totalSucceed = batchResponse.getResponses().stream().filter(SendResponse::isSuccessful).count();
+        final long totalFailed = batchResponse.getResponses().stream().filter(Predicate.not(SendResponse::isSuccessful)).count();
+        log.info("Total notifications sent succeed: {}", totalSucceed);
+        log.info("Total notifications sent failed: {}", totalFailed);
     }
 
-    private MulticastMessage createMessage(final Notification notification) {
+    private MulticastMessage createMessage(final String content, final List<String> tokens) {
         final com.google.firebase.messaging.Notification notificationInformation = com.google.firebase.messaging.Notification
             .builder()
-            .setBody(notification.getContent())
+            .setBody(content)
             .build();
 
         // for iOS
@@ -67,17 +75,20 @@ public class NotificationServiceImpl implements NotificationService {
         final AndroidNotification androidNotification = AndroidNotification.builder().setSound("default").build();
         final AndroidConfig androidConfig = AndroidConfig.builder().setNotification(androidNotification).build();
 
-        final List<String> tokens = this.userDeviceTokenRepository.findAllByUserIds(notification.getUserIds()).stream().map(token -> token.getId().getToken()).toList();
-
         return MulticastMessage
             .builder()
             .addAllTokens(tokens)
             .setNotification(notificationInformation)
             .setApnsConfig(apnsConfig)
             .setAndroidConfig(androidConfig)
-            .putAllData(Map.of("content", notification.getContent()))
+            .putAllData(Map.of("content", content))
             .build();
     }
 
+    /**
+     * Push of a notification waiting in the outbox.
+     */
+    public record Push(String content, List<Integer> userIds) {
 
+    }
 }
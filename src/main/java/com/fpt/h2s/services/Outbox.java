@@ -0,0 +1,48 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.OutboxEvent;
+import com.fpt.h2s.repositories.OutboxEventRepository;
+import com.fpt.h2s.utilities.Mappers;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Saves side effects on external systems in the current transaction, so they happen only if it commits
+ * and without holding it open while external systems answer.
+ */
+@Service
+@RequiredArgsConstructor
+public class Outbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectProvider<OutboxRelay> outboxRelay;
+
+    public void add(final OutboxEvent.Type type, final Object payload) {
+        this.outboxEventRepository.save(
+            OutboxEvent
+                .builder()
+                .type(type)
+                .payload(Mappers.jsonOf(payload))
+                .attempts(0)
+                .nextAttemptAt(Timestamp.from(Instant.now()))
+                .build()
+        );
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.outboxRelay.getObject().wakeUp();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Outbox.this.outboxRelay.getObject().wakeUp();
+            }
+        });
+    }
+}
@@ -0,0 +1,145 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.OutboxEvent;
+import com.fpt.h2s.repositories.OutboxEventRepository;
+import com.fpt.h2s.utilities.Mappers;
+import com.fpt.h2s.workers.MailWorker;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Dispatches events of the {@link Outbox} in batches, on one background thread. A batch is claimed in a short transaction
+ * which postpones its events, so other nodes skip them, then dispatched outside of any transaction. Dispatched events are
+ * deleted, failed events are retried with an exponential backoff. Events are dispatched at least once.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private static final int EVENTS_PER_BATCH = 100;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final Duration CLAIM_DURATION = Duration.ofMinutes(2);
+    private static final Duration FIRST_RETRY_DELAY = Duration.ofSeconds(10);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final NotificationServiceImpl notificationService;
+    private final MailWorker mailWorker;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean isWokenUp = new AtomicBoolean();
+
+    /**
+     * Dispatch due events soon, on the relay thread. Calls made while the relay is already woken up are merged.
+     */
+    public void wakeUp() {
+        if (this.isWokenUp.compareAndSet(false, true)) {
+            this.executor.execute(() -> {
+                this.isWokenUp.set(false);
+                this.relayDueEvents();
+            });
+        }
+    }
+
+    /**
+     * Retry failed events and dispatch events whose wake up has been lost, for example after a restart.
+     */
+    @Scheduled(fixedDelay = 5, timeUnit = TimeUnit.SECONDS)
+    public void wakeUpPeriodically() {
+        this.wakeUp();
+    }
+
+    @PreDestroy
+    private void stop() {
+        this.executor.shutdown();
+    }
+
+    private void relayDueEvents() {
+        try {
+            List<OutboxEvent> events;
+            do {
+                events = this.claimNextDueEvents();
+                this.dispatch(events);
+            } while (events.size() == EVENTS_PER_BATCH);
+        } catch (final Exception e) {
+            log.error("Failed to relay outbox events, they will be retried.", e);
+        }
+    }
+
+    private List<OutboxEvent> claimNextDueEvents() {
+        final TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+        return transaction.execute(status -> {
+            final Instant now = Instant.now();
+            final List<OutboxEvent> events = this.outboxEventRepository.lockNextDue(Timestamp.from(now), MAX_ATTEMPTS, EVENTS_PER_BATCH);
+            if (!events.isEmpty()) {
+                this.outboxEventRepository.postponeAll(events.stream().map(OutboxEvent::getId).toList(), Timestamp.from(now.plus(CLAIM_DURATION)));
+            }
+            return events;
+        });
+    }
+
+    private void dispatch(final List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        final List<Long> dispatchedIds = new ArrayList<>();
+        final List<OutboxEvent> failedEvents = new ArrayList<>();
+        for (final OutboxEvent event : events) {
+            try {
+                this.dispatch(event);
+                dispatchedIds.add(event.getId());
+            } catch (final Exception e) {
+                log.warn("Failed to dispatch outbox event {} of type {}, attempt {}.", event.getId(), event.getType(), event.getAttempts() + 1, e);
+                failedEvents.add(event);
+            }
+        }
+
+        final TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+        transaction.executeWithoutResult(status -> {
+            if (!dispatchedIds.isEmpty()) {
+                this.outboxEventRepository.deleteAllOf(dispatchedIds);
+            }
+            failedEvents.forEach(event -> this.outboxEventRepository.recordFailedAttempt(event.getId(), Timestamp.from(Instant.now().plus(retryDelayAfter(event.getAttempts() + 1)))));
+        });
+
+        failedEvents
+            .stream()
+            .filter(event -> event.getAttempts() + 1 >= MAX_ATTEMPTS)
+            .forEach(event -> log.error("Outbox event {} of type {} has been given up after {} attempts.", event.getId(), event.getType(), MAX_ATTEMPTS));
+    }
+
+    private void dispatch(final OutboxEvent event) throws FirebaseMessagingException {
+        switch (event.getType()) {
+            case NOTIFICATION -> this.notificationService.deliver(Mappers.mapToObjectFrom(event.getPayload(), NotificationServiceImpl.Push.class));
+            case MAIL -> this.mailWorker.send(Mappers.mapToObjectFrom(event.getPayload(), MailService.MailData.class));
+        }
+    }
+
+    private static Duration retryDelayAfter(final int attempts) {
+        final Duration delay = FIRST_RETRY_DELAY.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay;
+    }
+}
@@ -0,0 +1,72 @@
+package com.fpt.h2s.services;
+
+import ananta.utility.ListEx;
+import com.fpt.h2s.repositories.RedisRepository;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds shared by every node. A key is a sorted set of "holdId:units" members scored by their expiry time,
+ * expired members are dropped by the script adding a hold. Keys share one hash tag so a script can touch every night of a booking.
+ */
+class RedisRoomHoldStore implements RoomHoldStore {
+
+    private static final String KEY_PREFIX = "{room-holds}:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADD_SCRIPT = RedisScript.of("""
+        local time = redis.call('TIME')
+        local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+        local duration = tonumber(ARGV[1])
+        local totals = {}
+        for i, key in ipairs(KEYS) do
+            redis.call('ZREMRANGEBYSCORE', key, '-inf', now)
+            redis.call('ZADD', key, now + duration, ARGV[1 + i])
+            redis.call('PEXPIRE', key, duration)
+            local total = 0
+            for _, member in ipairs(redis.call('ZRANGE', key, 0, -1)) do
+                total = total + tonumber(string.match(member, ':(%d+)$'))
+            end
+            totals[i] = total
+        end
+        return totals
+        """, List.class);
+
+    private static final RedisScript<Long> REMOVE_SCRIPT = RedisScript.of("""
+        for i, key in ipairs(KEYS) do
+            redis.call('ZREM', key, ARGV[i])
+        end
+        return 0
+        """, Long.class);
+
+    @Override
+    public Map<String, Integer> add(final String holdId, final Map<String, Integer> unitsByKey, final Duration duration) {
+        final List<String> keys = new ArrayList<>(unitsByKey.keySet());
+        final List<String> args = new ArrayList<>();
+        args.add(String.valueOf(duration.toMillis()));
+        keys.forEach(key -> args.add(memberOf(holdId, unitsByKey.get(key))));
+
+        final List<?> totals = RedisRepository.execute(ADD_SCRIPT, ListEx.listOf(keys, KEY_PREFIX::concat), args.toArray(String[]::new));
+        final Map<String, Integer> heldUnits = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            heldUnits.put(keys.get(i), ((Number) totals.get(i)).intValue());
+        }
+        return heldUnits;
+    }
+
+    @Override
+    public void remove(final String holdId, final Map<String, Integer> unitsByKey) {
+        final List<String> keys = new ArrayList<>(unitsByKey.keySet());
+        final String[] members = keys.stream().map(key -> memberOf(holdId, unitsByKey.get(key))).toArray(String[]::new);
+        RedisRepository.execute(REMOVE_SCRIPT, ListEx.listOf(keys, KEY_PREFIX::concat), members);
+    }
+
+    private static String memberOf(final String holdId, final int units) {
+        return holdId + ":" + units;
+    }
+}
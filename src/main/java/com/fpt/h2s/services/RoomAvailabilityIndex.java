@@ -0,0 +1,259 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.BookingRequest;
+import com.fpt.h2s.models.entities.Room;
+import com.fpt.h2s.repositories.BookingRequestDetailRepository;
+import com.fpt.h2s.repositories.RoomRepository;
+import com.fpt.h2s.repositories.projections.BookedRoomRecord;
+import com.fpt.h2s.repositories.projections.RoomCapacityRecord;
+import com.fpt.h2s.utilities.QueryValues;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Keeps the number of booked units of every room for each night, starting from the day the index was loaded.
+ * Pending, purchased and succeed bookings hold their rooms. A room has free units over a stay
+ * when its total units minus the maximum booked units of the nights in the stay is positive;
+ * that maximum is answered from per-block maximums so long stays do not scan every night.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class RoomAvailabilityIndex extends BaseAccommodationIndex {
+
+    private static final int HORIZON_DAYS = 400;
+    private static final int BLOCK_DAYS = 32;
+
+    private final RoomRepository roomRepository;
+    private final BookingRequestDetailRepository bookingRequestDetailRepository;
+
+    private volatile LocalDate firstDay = LocalDate.now();
+    private Map<Integer, RoomCalendar> calendars = new HashMap<>();
+
+    @Override
+    public Set<Class<?>> sources() {
+        return Set.of(Room.class, BookingRequest.class);
+    }
+
+    @Override
+    protected void load() {
+        final LocalDate today = LocalDate.now();
+        final Map<Integer, RoomCalendar> newCalendars = new HashMap<>();
+        this.roomRepository
+            .findAllCapacitiesOf(QueryValues.integerList(null))
+            .forEach(room -> newCalendars.put(room.getId(), RoomCalendar.of(room)));
+        this.bookingRequestDetailRepository
+            .findAllBookedRoomsOf(QueryValues.integerList(null), Timestamp.valueOf(today.atStartOfDay()))
+            .forEach(booking -> book(newCalendars, today, booking));
+
+        this.writeLocked(() -> {
+            this.firstDay = today;
+            this.calendars = newCalendars;
+        });
+        log.info("Room availability index rebuilt with {} rooms from {}.", newCalendars.size(), today);
+    }
+
+    @Override
+    protected void reload(final Set<Integer> accommodationIds) {
+        final LocalDate day = this.firstDay;
+        final Map<Integer, RoomCalendar> changedCalendars = new HashMap<>();
+        this.roomRepository
+            .findAllCapacitiesOf(accommodationIds)
+            .forEach(room -> changedCalendars.put(room.getId(), RoomCalendar.of(room)));
+        this.bookingRequestDetailRepository
+            .findAllBookedRoomsOf(accommodationIds, Timestamp.valueOf(day.atStartOfDay()))
+            .forEach(booking -> book(changedCalendars, day, booking));
+
+        this.writeLocked(() -> {
+            if (!day.equals(this.firstDay)) {
+                // The index has been rebuilt meanwhile, these calendars are based on another day.
+                this.invalidate(accommodationIds);
+                return;
+            }
+            this.calendars.values().removeIf(calendar -> accommodationIds.contains(calendar.accommodationId));
+            this.calendars.putAll(changedCalendars);
+        });
+    }
+
+    /**
+     * Count free units of a room over a stay.
+     *
+     * @param roomId   id of the room.
+     * @param checkIn  check-in time, the stay starts at the night of this day. Null means today.
+     * @param checkOut check-out time, the night of this day is not part of the stay. Null means every known night.
+     * @return the number of units free in every night of the stay, 0 when the room is closed or unknown.
+     */
+    public int countFreeRooms(final Integer roomId, @Nullable final Timestamp checkIn, @Nullable final Timestamp checkOut) {
+        return this.countFreeRooms(List.of(roomId), checkIn, checkOut).get(roomId);
+    }
+
+    /**
+     * Count free units of rooms over a stay.
+     *
+     * @see #countFreeRooms(Integer, Timestamp, Timestamp)
+     */
+    public Map<Integer, Integer> countFreeRooms(final Collection<Integer> roomIds, @Nullable final Timestamp checkIn, @Nullable final Timestamp checkOut) {
+        return this.readLocked(() -> {
+            final Map<Integer, Integer> freeRooms = new HashMap<>();
+            for (final Integer roomId : roomIds) {
+                final RoomCalendar calendar = this.calendars.get(roomId);
+                freeRooms.put(roomId, calendar == null ? 0 : this.freeRoomsOf(calendar, checkIn, checkOut));
+            }
+            return freeRooms;
+        });
+    }
+
+    /**
+     * Find accommodations having at least one opening room with enough free units over a stay.
+     *
+     * @param checkIn          check-in time. Null means today.
+     * @param checkOut         check-out time. Null means every known night.
+     * @param totalRooms       minimum number of free units the room must have.
+     * @param roomIds          only consider these rooms. Null means every room.
+     * @param accommodationIds restrict the result in these ids. Null means every accommodation.
+     * @return ids of accommodations having such a room.
+     */
+    public Set<Integer> findAllHavingFreeRooms(
+        @Nullable final Timestamp checkIn,
+        @Nullable final Timestamp checkOut,
+        final int totalRooms,
+        @Nullable final Collection<Integer> roomIds,
+        @Nullable final Collection<Integer> accommodationIds
+    ) {
+        final Set<Integer> allowedAccommodationIds = accommodationIds == null ? null : new HashSet<>(accommodationIds);
+        return this.readLocked(() -> {
+            final Collection<Integer> candidateIds = roomIds == null ? this.calendars.keySet() : roomIds;
+            final Set<Integer> result = new HashSet<>();
+            for (final Integer roomId : candidateIds) {
+                final RoomCalendar calendar = this.calendars.get(roomId);
+                if (calendar == null || !calendar.isOpening || result.contains(calendar.accommodationId)) {
+                    continue;
+                }
+                if (allowedAccommodationIds != null && !allowedAccommodationIds.contains(calendar.accommodationId)) {
+                    continue;
+                }
+                if (this.freeRoomsOf(calendar, checkIn, checkOut) >= totalRooms) {
+                    result.add(calendar.accommodationId);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @return ids of the rooms of some accommodations, opening or not.
+     */
+    public Set<Integer> findAllRoomIdsOf(final Collection<Integer> accommodationIds) {
+        final Set<Integer> allowedAccommodationIds = new HashSet<>(accommodationIds);
+        return this.readLocked(() -> {
+            final Set<Integer> result = new HashSet<>();
+            this.calendars.forEach((roomId, calendar) -> {
+                if (allowedAccommodationIds.contains(calendar.accommodationId)) {
+                    result.add(roomId);
+                }
+            });
+            return result;
+        });
+    }
+
+    private int freeRoomsOf(final RoomCalendar calendar, @Nullable final Timestamp checkIn, @Nullable final Timestamp checkOut) {
+        if (!calendar.isOpening) {
+            return 0;
+        }
+        final int fromNight = checkIn == null ? 0 : nightOf(this.firstDay, checkIn);
+        final int toNight = checkOut == null ? calendar.lastNight() : Math.max(nightOf(this.firstDay, checkOut), fromNight + 1);
+        return calendar.totalRooms - calendar.maxBookedBetween(fromNight, toNight);
+    }
+
+    private static void book(final Map<Integer, RoomCalendar> calendars, final LocalDate firstDay, final BookedRoomRecord booking) {
+        final RoomCalendar calendar = calendars.get(booking.getRoomId());
+        if (calendar == null || booking.getTotalRooms() == null || booking.getCheckinAt() == null || booking.getCheckoutAt() == null) {
+            return;
+        }
+        final int fromNight = nightOf(firstDay, booking.getCheckinAt());
+        final int toNight = Math.max(nightOf(firstDay, booking.getCheckoutAt()), fromNight + 1);
+        calendar.book(fromNight, toNight, booking.getTotalRooms());
+    }
+
+    private static int nightOf(final LocalDate firstDay, final Timestamp time) {
+        return (int) ChronoUnit.DAYS.between(firstDay, time.toLocalDateTime().toLocalDate());
+    }
+
+    /**
+     * Booked units per night of a room. Nights after the end of the array have no booking.
+     */
+    private static final class RoomCalendar {
+        private final Integer accommodationId;
+        private final int totalRooms;
+        private final boolean isOpening;
+        private int[] bookedRooms = new int[HORIZON_DAYS];
+        private int[] blockMaximums = new int[HORIZON_DAYS / BLOCK_DAYS + 1];
+
+        private RoomCalendar(final Integer accommodationId, final int totalRooms, final boolean isOpening) {
+            this.accommodationId = accommodationId;
+            this.totalRooms = totalRooms;
+            this.isOpening = isOpening;
+        }
+
+        static RoomCalendar of(final RoomCapacityRecord room) {
+            final int totalRooms = Optional.ofNullable(room.getTotalRooms()).orElse(0);
+            return new RoomCalendar(room.getAccommodationId(), totalRooms, room.getStatus() == Room.Status.OPENING);
+        }
+
+        int lastNight() {
+            return this.bookedRooms.length;
+        }
+
+        void book(final int fromNight, final int toNight, final int units) {
+            final int from = Math.max(fromNight, 0);
+            if (from >= toNight) {
+                return;
+            }
+            this.ensureCapacity(toNight);
+            for (int night = from; night < toNight; night++) {
+                this.bookedRooms[night] += units;
+            }
+            for (int block = from / BLOCK_DAYS; block <= (toNight - 1) / BLOCK_DAYS; block++) {
+                int maximum = 0;
+                final int end = Math.min((block + 1) * BLOCK_DAYS, this.bookedRooms.length);
+                for (int night = block * BLOCK_DAYS; night < end; night++) {
+                    maximum = Math.max(maximum, this.bookedRooms[night]);
+                }
+                this.blockMaximums[block] = maximum;
+            }
+        }
+
+        int maxBookedBetween(final int fromNight, final int toNight) {
+            int night = Math.max(fromNight, 0);
+            final int end = Math.min(toNight, this.bookedRooms.length);
+            int maximum = 0;
+            while (night < end && night % BLOCK_DAYS != 0) {
+                maximum = Math.max(maximum, this.bookedRooms[night++]);
+            }
+            while (night + BLOCK_DAYS <= end) {
+                maximum = Math.max(maximum, this.blockMaximums[night / BLOCK_DAYS]);
+                night += BLOCK_DAYS;
+            }
+            while (night < end) {
+                maximum = Math.max(maximum, this.bookedRooms[night++]);
+            }
+            return maximum;
+        }
+
+        private void ensureCapacity(final int nights) {
+            if (nights <= this.bookedRooms.length) {
+                return;
+            }
+            final int length = (nights / BLOCK_DAYS + 1) * BLOCK_DAYS;
+            this.bookedRooms = Arrays.copyOf(this.bookedRooms, length);
+            this.blockMaximums = Arrays.copyOf(this.blockMaximums, length / BLOCK_DAYS + 1);
+        }
+    }
+}
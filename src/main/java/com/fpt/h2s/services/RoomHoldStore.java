@@ -0,0 +1,42 @@
+package com.fpt.h2s.services;
+
+import ananta.utility.StringEx;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Short-lived holds on room units, keyed by room and night. Adding a hold and counting the units held
+ * on its keys is atomic, so two holds added concurrently always see each other.
+ */
+public interface RoomHoldStore {
+
+    /**
+     * Add a hold and count the units held on each of its keys, this hold included. Expired holds are not counted.
+     *
+     * @param holdId     unique id of the hold.
+     * @param unitsByKey units held by key.
+     * @param duration   the hold is ignored after this duration.
+     * @return units held by every hold, by key.
+     */
+    Map<String, Integer> add(String holdId, Map<String, Integer> unitsByKey, Duration duration);
+
+    /**
+     * Remove a hold added by {@link #add(String, Map, Duration)} with the same units.
+     */
+    void remove(String holdId, Map<String, Integer> unitsByKey);
+
+    /**
+     * Holds are kept in Redis, so several nodes can sell the same rooms, unless running locally.
+     * INVENTORY_HOLD_STORE set to REDIS or MEMORY overrides this choice.
+     */
+    static RoomHoldStore fromEnvironment() {
+        final String store = System.getenv("INVENTORY_HOLD_STORE");
+        if (!StringEx.isBlank(store)) {
+            return "MEMORY".equalsIgnoreCase(store) ? new MemoryRoomHoldStore() : new RedisRoomHoldStore();
+        }
+        final boolean isLocal = StringEx.isBlank(System.getenv("ENVIRONMENT")) || Objects.equals(System.getenv("ENVIRONMENT"), "LOCAL");
+        return isLocal ? new MemoryRoomHoldStore() : new RedisRoomHoldStore();
+    }
+}
@@ -0,0 +1,129 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.Room;
+import com.fpt.h2s.models.exceptions.ApiException;
+import com.fpt.h2s.repositories.BookingRequestDetailRepository;
+import com.fpt.h2s.repositories.projections.BookedRoomRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Reserves room units for bookings being created, so concurrent bookings of the same rooms do not serialize on room rows.
+ * A reservation first holds its units on every night of the stay, then counts the units booked in the database
+ * from a fresh snapshot. A booking is visible either as a hold, until its transaction completes, or as a committed row,
+ * so the same units cannot be sold twice; a booking committing meanwhile may only be counted twice and cause a retry.
+ * Holds of transactions that never complete expire after {@link #HOLD_DURATION}.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class RoomInventory {
+
+    private static final Duration HOLD_DURATION = Duration.ofMinutes(2);
+
+    private final BookingRequestDetailRepository bookingRequestDetailRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final RoomHoldStore holdStore = RoomHoldStore.fromEnvironment();
+
+    /**
+     * Hold units of rooms over a stay until the current transaction completes.
+     *
+     * @param rooms    rooms to book.
+     * @param units    number of units to book, by room id.
+     * @param checkIn  check-in time, the stay starts at the night of this day.
+     * @param checkOut check-out time, the night of this day is not part of the stay.
+     * @throws ApiException if a room has not enough free units on a night of the stay.
+     */
+    public void reserve(final List<Room> rooms, final Map<Integer, Integer> units, final Timestamp checkIn, final Timestamp checkOut) {
+        final List<LocalDate> nights = nightsOf(checkIn, checkOut);
+        final Map<String, Integer> unitsByKey = new TreeMap<>();
+        units.forEach((roomId, totalUnits) -> nights.forEach(night -> unitsByKey.put(keyOf(roomId, night), totalUnits)));
+
+        final String holdId = UUID.randomUUID().toString();
+        final Map<String, Integer> heldUnits = this.holdStore.add(holdId, unitsByKey, HOLD_DURATION);
+        try {
+            final Map<String, Integer> bookedUnits = this.countBookedUnits(units.keySet(), checkIn, checkOut);
+            final List<String> fullRooms = rooms
+                .stream()
+                .filter(room -> units.containsKey(room.getId()))
+                .filter(room -> nights.stream().anyMatch(night -> {
+                    final String key = keyOf(room.getId(), night);
+                    final int totalRooms = Optional.ofNullable(room.getTotalRooms()).orElse(0);
+                    return bookedUnits.getOrDefault(key, 0) + heldUnits.getOrDefault(key, 0) > totalRooms;
+                }))
+                .map(Room::getName)
+                .toList();
+            if (!fullRooms.isEmpty()) {
+                throw ApiException.badRequest("Các phòng sau hiện tại đã hết phòng: {}. Xin vui lòng chọn phòng khác.", fullRooms);
+            }
+        } catch (final RuntimeException e) {
+            this.holdStore.remove(holdId, unitsByKey);
+            throw e;
+        }
+        this.releaseAfterCompletion(holdId, unitsByKey);
+    }
+
+    /**
+     * Bookings are read in a new transaction, so bookings committed after the current transaction started are counted.
+     */
+    private Map<String, Integer> countBookedUnits(final Collection<Integer> roomIds, final Timestamp checkIn, final Timestamp checkOut) {
+        final TransactionTemplate newTransaction = new TransactionTemplate(this.transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newTransaction.setReadOnly(true);
+        final List<BookedRoomRecord> bookings = newTransaction.execute(status -> this.bookingRequestDetailRepository.findAllBookedRoomsBetween(roomIds, checkIn, checkOut));
+
+        final Map<String, Integer> bookedUnits = new HashMap<>();
+        Optional.ofNullable(bookings).orElse(List.of()).forEach(booking -> {
+            if (booking.getTotalRooms() == null || booking.getCheckinAt() == null || booking.getCheckoutAt() == null) {
+                return;
+            }
+            nightsOf(booking.getCheckinAt(), booking.getCheckoutAt()).forEach(night -> bookedUnits.merge(keyOf(booking.getRoomId(), night), booking.getTotalRooms(), Integer::sum));
+        });
+        return bookedUnits;
+    }
+
+    private void releaseAfterCompletion(final String holdId, final Map<String, Integer> unitsByKey) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            log.warn("Rooms reserved outside of a transaction are held until their hold expires.");
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                try {
+                    RoomInventory.this.holdStore.remove(holdId, unitsByKey);
+                } catch (final Exception e) {
+                    log.warn("Failed to release hold {}, its rooms stay held until it expires.", holdId, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Nights of a stay, counted the same way as {@link RoomAvailabilityIndex}: at least one night.
+     */
+    private static List<LocalDate> nightsOf(final Timestamp checkIn, final Timestamp checkOut) {
+        final LocalDate firstNight = checkIn.toLocalDateTime().toLocalDate();
+        final LocalDate checkOutDay = checkOut.toLocalDateTime().toLocalDate();
+        final List<LocalDate> nights = new ArrayList<>();
+        for (LocalDate night = firstNight; night.isBefore(checkOutDay) || night.equals(firstNight); night = night.plusDays(1)) {
+            nights.add(night);
+        }
+        return nights;
+    }
+
+    private static String keyOf(final Integer roomId, final LocalDate night) {
+        return roomId + ":" + night;
+    }
+}
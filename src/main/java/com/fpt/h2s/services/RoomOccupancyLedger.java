@@ -0,0 +1,105 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.BookingRequest;
+import com.fpt.h2s.repositories.BookingRequestDetailRepository;
+import com.fpt.h2s.repositories.RoomOccupancyRepository;
+import com.fpt.h2s.utilities.QueryValues;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintains the room_occupancies table. Every write which makes a booking enter or leave the purchased and succeed statuses
+ * must refresh the booking, so calendars can read booked units with a range scan.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class RoomOccupancyLedger {
+
+    private static final int MAX_REFRESH_ATTEMPTS = 2;
+
+    private final RoomOccupancyRepository roomOccupancyRepository;
+    private final BookingRequestDetailRepository bookingRequestDetailRepository;
+    private final DayTypeCalendar dayTypeCalendar;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Recompute the days of a booking for its rooms once the current transaction has been committed, after its status changed.
+     * The recount reads the other bookings of these rooms with shared locks, so it runs in its own transaction: writers such as
+     * the payment callback never wait on it, and a failed recount never rolls their change back.
+     */
+    public void refreshBookingAfterCommit(final BookingRequest booking) {
+        final Integer bookingId = booking.getId();
+        final LocalDate checkIn = booking.getCheckinAt().toLocalDateTime().toLocalDate();
+        final LocalDate lastNight = booking.getCheckoutAt().toLocalDateTime().toLocalDate().minusDays(1);
+        if (lastNight.isBefore(checkIn)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.refreshBooking(bookingId, checkIn, lastNight);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                RoomOccupancyLedger.this.refreshBooking(bookingId, checkIn, lastNight);
+            }
+        });
+    }
+
+    private void refreshBooking(final Integer bookingId, final LocalDate checkIn, final LocalDate lastNight) {
+        final TransactionTemplate newTransaction = new TransactionTemplate(this.transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int attempt = 1; attempt <= MAX_REFRESH_ATTEMPTS; attempt++) {
+            try {
+                newTransaction.executeWithoutResult(status -> {
+                    final List<Integer> roomIds = this.bookingRequestDetailRepository.findAllRoomIdsOf(bookingId);
+                    if (!roomIds.isEmpty()) {
+                        this.refresh(roomIds, checkIn, lastNight);
+                    }
+                });
+                return;
+            } catch (final RuntimeException e) {
+                // Concurrent recounts of the same rooms may deadlock, the loser simply counts again.
+                log.warn("Failed to refresh room occupancies of booking {}, attempt {} of {}.", bookingId, attempt, MAX_REFRESH_ATTEMPTS, e);
+            }
+        }
+    }
+
+    /**
+     * Fill the ledger on the first start after it has been introduced.
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillIfEmpty() {
+        if (this.roomOccupancyRepository.count() > 0) {
+            return;
+        }
+        final LocalDate firstDate = this.dayTypeCalendar.firstDate();
+        final LocalDate lastDate = this.dayTypeCalendar.lastDate();
+        if (firstDate == null || lastDate == null) {
+            return;
+        }
+        this.refresh(QueryValues.integerList(null), firstDate, lastDate);
+        log.info("Room occupancy ledger filled between {} and {}.", firstDate, lastDate);
+    }
+
+    private void refresh(final Collection<Integer> roomIds, final LocalDate fromDate, final LocalDate toDate) {
+        this.roomOccupancyRepository.deleteAllOf(roomIds, fromDate, toDate);
+        final int totalDays = this.roomOccupancyRepository.insertAllOf(roomIds, this.dayTypeCalendar.daysJson(fromDate, toDate));
+        log.debug("Refreshed {} room occupancies between {} and {}.", totalDays, fromDate, toDate);
+    }
+}
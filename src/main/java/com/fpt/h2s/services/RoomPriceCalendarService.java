@@ -0,0 +1,88 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.repositories.RoomDayPriceRepository;
+import com.fpt.h2s.repositories.RoomRepository;
+import com.fpt.h2s.repositories.projections.RoomCapacityRecord;
+import com.fpt.h2s.utilities.QueryValues;
+import com.google.common.collect.Lists;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintains the room_day_prices table. Every write of price rules, room base prices or the day type calendar
+ * must refresh the affected rooms or dates in the same transaction, so searches can read prices with a range scan.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class RoomPriceCalendarService {
+
+    private static final int ROOMS_PER_BATCH = 100;
+
+    private final RoomDayPriceRepository roomDayPriceRepository;
+    private final DayTypeCalendar dayTypeCalendar;
+    private final RoomRepository roomRepository;
+    private final RoomPriceEngine roomPriceEngine;
+    private final AccommodationPriceBounds accommodationPriceBounds;
+
+    /**
+     * Recompute every day of some rooms, after their price rules or base price changed.
+     */
+    @Transactional
+    public void refreshRooms(final Collection<Integer> roomIds) {
+        if (roomIds.isEmpty()) {
+            return;
+        }
+        final LocalDate firstDate = this.dayTypeCalendar.firstDate();
+        final LocalDate lastDate = this.dayTypeCalendar.lastDate();
+        this.roomPriceEngine.invalidateAfterCommit(roomIds);
+        if (firstDate != null && lastDate != null) {
+            this.refresh(roomIds, firstDate, lastDate);
+        }
+        this.accommodationPriceBounds.refreshRooms(roomIds);
+    }
+
+    /**
+     * Reload the day type calendar and recompute some days of every room, after the type of these days changed.
+     */
+    @Transactional
+    public void refreshDates(final LocalDate fromDate, final LocalDate toDate) {
+        this.dayTypeCalendar.reload();
+        this.refresh(QueryValues.integerList(null), fromDate, toDate);
+        this.accommodationPriceBounds.refreshAll();
+    }
+
+    /**
+     * Fill the calendar on the first start after it has been introduced.
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillIfEmpty() {
+        if (this.roomDayPriceRepository.count() > 0) {
+            return;
+        }
+        final List<Integer> roomIds = this.roomRepository
+            .findAllCapacitiesOf(QueryValues.integerList(null))
+            .stream()
+            .map(RoomCapacityRecord::getId)
+            .toList();
+        Lists.partition(roomIds, ROOMS_PER_BATCH).forEach(this::refreshRooms);
+        log.info("Room price calendar filled for {} rooms.", roomIds.size());
+    }
+
+    private void refresh(final Collection<Integer> roomIds, final LocalDate fromDate, final LocalDate toDate) {
+        // Pending price rules must reach the database before prices are computed from them.
+        this.roomDayPriceRepository.flush();
+        this.roomDayPriceRepository.deleteAllOf(roomIds, fromDate, toDate);
+        final int totalDays = this.roomDayPriceRepository.insertAllOf(roomIds, this.dayTypeCalendar.daysJson(fromDate, toDate));
+        log.debug("Refreshed {} room prices between {} and {}.", totalDays, fromDate, toDate);
+    }
+}
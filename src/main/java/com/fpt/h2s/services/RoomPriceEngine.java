@@ -0,0 +1,247 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.DayType;
+import com.fpt.h2s.models.entities.PriceHistory;
+import com.fpt.h2s.models.entities.Room;
+import com.fpt.h2s.repositories.PriceHistoryRepository;
+import com.fpt.h2s.repositories.RoomRepository;
+import com.fpt.h2s.utilities.IntervalTree;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Computes room prices in memory from their {@link PriceHistory} rules, following the same rules as the room_day_prices table:
+ * for each night and each rule type, the latest custom rule covering the night wins over the latest rule of its day type.
+ * Rules of each room are compiled once into an interval tree of custom rules and a table of day type rules, so pricing
+ * a stay takes O(log n + nights). Compiled rules are dropped after rule changes are committed, and expire after a few
+ * minutes so changes made through other nodes are seen too.
+ */
+@Service
+@RequiredArgsConstructor
+public class RoomPriceEngine {
+
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final RoomRepository roomRepository;
+    private final DayTypeCalendar dayTypeCalendar;
+
+    private final Cache<Integer, RoomRules> rulesMapToRoomId = Caffeine
+        .newBuilder()
+        .expireAfterWrite(5, TimeUnit.MINUTES)
+        .maximumSize(10000)
+        .build();
+
+    /**
+     * Price stays of some rooms. Nights without price rule or out of the day type calendar are free, as in the room_day_prices table.
+     *
+     * @param firstNight first night of the stays.
+     * @param lastNight  last night of the stays, the day before check-out.
+     * @return prices mapped to room ids, missing for rooms which do not exist.
+     */
+    public Map<Integer, StayPrice> priceStays(final Collection<Integer> roomIds, final LocalDate firstNight, final LocalDate lastNight) {
+        final DayTypeCalendar.Snapshot calendar = this.dayTypeCalendar.snapshot();
+        // An empty calendar prices every night at zero.
+        final LocalDate firstDate = Objects.requireNonNullElse(calendar.firstDate(), LocalDate.MAX);
+        final LocalDate lastDate = Objects.requireNonNullElse(calendar.lastDate(), LocalDate.MIN);
+        final LocalDate from = firstNight.isBefore(firstDate) ? firstDate : firstNight;
+        final LocalDate to = lastNight.isAfter(lastDate) ? lastDate : lastNight;
+
+        final Map<Integer, StayPrice> prices = new HashMap<>();
+        this.rulesOf(roomIds).forEach((roomId, rules) -> {
+            long price = 0;
+            long displayPrice = 0;
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                final NightPrice night = rules.priceOf(date, calendar.typeOf(date));
+                if (night != null) {
+                    price += night.price();
+                    displayPrice += night.displayPrice();
+                }
+            }
+            prices.put(roomId, new StayPrice(roomId, price, displayPrice));
+        });
+        return prices;
+    }
+
+    /**
+     * @return compiled rules mapped to room ids, missing for rooms which do not exist.
+     */
+    public Map<Integer, RoomRules> rulesOf(final Collection<Integer> roomIds) {
+        return this.rulesMapToRoomId.getAll(new HashSet<>(roomIds), this::compile);
+    }
+
+    /**
+     * Drop compiled rules of some rooms once the current transaction has been committed.
+     */
+    public void invalidateAfterCommit(final Collection<Integer> roomIds) {
+        this.afterCommit(() -> this.rulesMapToRoomId.invalidateAll(roomIds));
+    }
+
+    private void afterCommit(final Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private Map<Integer, RoomRules> compile(final Set<? extends Integer> roomIds) {
+        final Map<Integer, List<PriceHistory>> rulesMapToRoomId = this.priceHistoryRepository
+            .findAllByRoomIdIn(new ArrayList<>(roomIds))
+            .stream()
+            .collect(Collectors.groupingBy(PriceHistory::getRoomId));
+        return this.roomRepository
+            .findAllById(roomIds.stream().map(Integer.class::cast).toList())
+            .stream()
+            .collect(Collectors.toMap(Room::getId, room -> new RoomRules(room, rulesMapToRoomId.getOrDefault(room.getId(), List.of()))));
+    }
+
+    /**
+     * Rules of a room, compiled for pricing.
+     */
+    public static final class RoomRules {
+
+        @Getter
+        private final int roomId;
+        @Getter
+        private final long roomPrice;
+        private final Map<PriceHistory.Type, Map<PriceHistory.DayType, PriceHistory>> dayTypeRules = new EnumMap<>(PriceHistory.Type.class);
+        private final Map<PriceHistory.Type, IntervalTree<PriceHistory>> customRules = new EnumMap<>(PriceHistory.Type.class);
+
+        private RoomRules(final Room room, final List<PriceHistory> rules) {
+            this.roomId = room.getId();
+            this.roomPrice = Optional.ofNullable(room.getPrice()).orElse(0L);
+            final Comparator<PriceHistory> latestFirst = Comparator.comparing(PriceHistory::getId).reversed();
+            for (final PriceHistory.Type type : PriceHistory.Type.values()) {
+                final List<PriceHistory> rulesOfType = rules.stream().filter(rule -> rule.getType() == type).sorted(latestFirst).toList();
+                this.dayTypeRules.put(
+                    type,
+                    rulesOfType
+                        .stream()
+                        .filter(rule -> rule.getDayType() != null && rule.getDayType() != PriceHistory.DayType.CUSTOM)
+                        .collect(Collectors.toMap(PriceHistory::getDayType, Function.identity(), (latest, older) -> latest, () -> new EnumMap<>(PriceHistory.DayType.class)))
+                );
+                this.customRules.put(
+                    type,
+                    IntervalTree.of(
+                        rulesOfType
+                            .stream()
+                            .filter(rule -> rule.getDayType() == PriceHistory.DayType.CUSTOM && rule.getFromDate() != null && rule.getToDate() != null)
+                            .toList(),
+                        PriceHistory::getFromDate,
+                        PriceHistory::getToDate
+                    )
+                );
+            }
+        }
+
+        /**
+         * @param dayType type of the day in the calendar, null when the day is out of the calendar.
+         * @return the rule applied on the day, null when no rule applies.
+         */
+        @Nullable
+        public PriceHistory ruleOf(final PriceHistory.Type type, final LocalDate date, @Nullable final DayType.Type dayType) {
+            final PriceHistory customRule = this.customRuleOf(type, date);
+            if (customRule != null) {
+                return customRule;
+            }
+            return dayType == null ? null : this.dayTypeRules.get(type).get(PriceHistory.DayType.valueOf(dayType.name()));
+        }
+
+        /**
+         * @return the latest custom rule covering the day, null when there is none.
+         */
+        @Nullable
+        public PriceHistory customRuleOf(final PriceHistory.Type type, final LocalDate date) {
+            return this.customRules
+                .get(type)
+                .findAllCovering(date)
+                .stream()
+                .max(Comparator.comparing(PriceHistory::getId))
+                .orElse(null);
+        }
+
+        /**
+         * @return custom rules of every type starting on the first custom rule start after the day.
+         */
+        public List<PriceHistory> nextCustomRulesAfter(final LocalDate date) {
+            final List<PriceHistory> rules = this.customRules
+                .values()
+                .stream()
+                .flatMap(tree -> tree.values().stream())
+                .filter(rule -> rule.getFromDate().isAfter(date))
+                .toList();
+            return rules
+                .stream()
+                .map(PriceHistory::getFromDate)
+                .min(Comparator.naturalOrder())
+                .map(nextStart -> rules.stream().filter(rule -> nextStart.equals(rule.getFromDate())).toList())
+                .orElse(List.of());
+        }
+
+        /**
+         * @return the latest rule of a day type, null when the room has none.
+         */
+        @Nullable
+        public PriceHistory dayTypeRuleOf(final PriceHistory.Type type, final PriceHistory.DayType dayType) {
+            return this.dayTypeRules.get(type).get(dayType);
+        }
+
+        /**
+         * @return null when no price rule applies to the night.
+         */
+        @Nullable
+        public NightPrice priceOf(final LocalDate date, @Nullable final DayType.Type dayType) {
+            if (dayType == null) {
+                return null;
+            }
+            final PriceHistory priceRule = this.ruleOf(PriceHistory.Type.PRICE, date, dayType);
+            if (priceRule == null || priceRule.getAmount() == null) {
+                return null;
+            }
+            final PriceHistory discountRule = this.ruleOf(PriceHistory.Type.DISCOUNT, date, dayType);
+            final long discount = discountRule == null || discountRule.getAmount() == null ? 0 : discountRule.getAmount();
+            final long price = this.roomPrice * priceRule.getAmount();
+            // Rounded half up from exact values, as MySQL rounds decimals.
+            return new NightPrice(date, (price + 50) / 100, discount, (price * (100 - discount) + 5000) / 10000);
+        }
+    }
+
+    /**
+     * @param price        price before discount, rounded.
+     * @param discount     discount in percent.
+     * @param displayPrice price after discount, rounded.
+     */
+    public record NightPrice(LocalDate date, long price, long discount, long displayPrice) {
+
+    }
+
+    /**
+     * @param price        sum of night prices before discount.
+     * @param displayPrice sum of night prices after discount.
+     */
+    public record StayPrice(int roomId, long price, long displayPrice) {
+
+        /**
+         * @return discount of the whole stay in percent, rounded down.
+         */
+        public int discount() {
+            return this.price == 0 ? 0 : (int) ((this.price - this.displayPrice) * 100 / this.price);
+        }
+    }
+}
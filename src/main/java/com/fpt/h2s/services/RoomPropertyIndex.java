@@ -0,0 +1,208 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.Room;
+import com.fpt.h2s.models.entities.RoomProperty;
+import com.fpt.h2s.repositories.RoomPropertyRepository;
+import com.fpt.h2s.repositories.projections.RoomPropertyValueRecord;
+import com.fpt.h2s.utilities.QueryValues;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.DoublePredicate;
+
+/**
+ * Numeric room properties stored by column: every room has a position, and every property key has a double array
+ * holding the value of each room at its position, NaN when the room has no numeric value for the key. Conditions on properties
+ * are answered by scanning these arrays instead of joining rooms_properties once per condition. Values are compared as numbers,
+ * as the database does with numeric parameters. Values which are not numbers are not stored, so they do not meet conditions on their key.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class RoomPropertyIndex extends BaseAccommodationIndex {
+
+    private final RoomPropertyRepository roomPropertyRepository;
+
+    private Columns columns = new Columns();
+
+    @Override
+    public Set<Class<?>> sources() {
+        return Set.of(Room.class, RoomProperty.class);
+    }
+
+    @Override
+    protected void load() {
+        final Columns newColumns = new Columns();
+        this.roomPropertyRepository.findAllValuesOf(QueryValues.integerList(null)).forEach(newColumns::put);
+        this.writeLocked(() -> this.columns = newColumns);
+        log.info("Room property index rebuilt with {} rooms and {} keys.", newColumns.positions.size(), newColumns.values.size());
+    }
+
+    @Override
+    protected void reload(final Set<Integer> accommodationIds) {
+        final List<RoomPropertyValueRecord> values = this.roomPropertyRepository.findAllValuesOf(accommodationIds);
+        this.writeLocked(() -> {
+            this.columns.removeRoomsOf(accommodationIds);
+            values.forEach(this.columns::put);
+        });
+    }
+
+    /**
+     * Find rooms whose properties meet every condition.
+     *
+     * @param conditions       conditions on property values, a room without a value for the key does not meet it.
+     * @param accommodationIds only keep rooms of these accommodations. Null means every accommodation.
+     * @return ids of rooms meeting every condition.
+     */
+    public Set<Integer> findAllThatMeet(final List<Condition> conditions, @Nullable final Collection<Integer> accommodationIds) {
+        final Set<Integer> allowedAccommodationIds = accommodationIds == null ? null : new HashSet<>(accommodationIds);
+        return this.readLocked(() -> {
+            final BitSet positions = this.columns.positionsMeeting(conditions);
+            final Set<Integer> roomIds = new HashSet<>();
+            for (int position = positions.nextSetBit(0); position >= 0; position = positions.nextSetBit(position + 1)) {
+                if (allowedAccommodationIds == null || allowedAccommodationIds.contains(this.columns.accommodationIds[position])) {
+                    roomIds.add(this.columns.roomIds[position]);
+                }
+            }
+            return roomIds;
+        });
+    }
+
+    /**
+     * @param keyId     id of the property key.
+     * @param predicate condition on the numeric value of the property.
+     */
+    public record Condition(int keyId, DoublePredicate predicate) {
+
+    }
+
+    /**
+     * Positions are reused after their room has been removed. A free position has room id 0.
+     */
+    private static final class Columns {
+        private static final double MISSING = Double.NaN;
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private int[] roomIds = new int[INITIAL_CAPACITY];
+        private int[] accommodationIds = new int[INITIAL_CAPACITY];
+        private final Map<Integer, Integer> positions = new HashMap<>();
+        private final Map<Integer, double[]> values = new HashMap<>();
+        private final Deque<Integer> freePositions = new ArrayDeque<>();
+        private int size = 0;
+
+        void put(final RoomPropertyValueRecord record) {
+            if (record.getRoomId() == null || record.getAccommodationId() == null || record.getKeyId() == null) {
+                return;
+            }
+            final double value = numberOf(record.getValue());
+            final int position = this.positionOf(record.getRoomId(), record.getAccommodationId());
+            if (Double.isNaN(value)) {
+                return;
+            }
+            this.values.computeIfAbsent(record.getKeyId(), key -> missingValues(this.roomIds.length))[position] = value;
+        }
+
+        void removeRoomsOf(final Set<Integer> removedAccommodationIds) {
+            for (int position = 0; position < this.size; position++) {
+                if (this.roomIds[position] == 0 || !removedAccommodationIds.contains(this.accommodationIds[position])) {
+                    continue;
+                }
+                this.positions.remove(this.roomIds[position]);
+                this.roomIds[position] = 0;
+                this.accommodationIds[position] = 0;
+                for (final double[] column : this.values.values()) {
+                    column[position] = MISSING;
+                }
+                this.freePositions.push(position);
+            }
+        }
+
+        BitSet positionsMeeting(final List<Condition> conditions) {
+            BitSet matched = null;
+            for (final Condition condition : conditions) {
+                final double[] column = this.values.get(condition.keyId());
+                if (column == null) {
+                    return new BitSet();
+                }
+                final BitSet next = new BitSet(this.size);
+                if (matched == null) {
+                    for (int position = 0; position < this.size; position++) {
+                        if (!Double.isNaN(column[position]) && condition.predicate().test(column[position])) {
+                            next.set(position);
+                        }
+                    }
+                } else {
+                    for (int position = matched.nextSetBit(0); position >= 0; position = matched.nextSetBit(position + 1)) {
+                        if (!Double.isNaN(column[position]) && condition.predicate().test(column[position])) {
+                            next.set(position);
+                        }
+                    }
+                }
+                matched = next;
+                if (matched.isEmpty()) {
+                    return matched;
+                }
+            }
+            if (matched != null) {
+                return matched;
+            }
+
+            final BitSet occupied = new BitSet(this.size);
+            for (int position = 0; position < this.size; position++) {
+                if (this.roomIds[position] != 0) {
+                    occupied.set(position);
+                }
+            }
+            return occupied;
+        }
+
+        private int positionOf(final int roomId, final int accommodationId) {
+            final Integer existingPosition = this.positions.get(roomId);
+            if (existingPosition != null) {
+                this.accommodationIds[existingPosition] = accommodationId;
+                return existingPosition;
+            }
+            final int position = this.freePositions.isEmpty() ? this.size++ : this.freePositions.pop();
+            this.ensureCapacity(position + 1);
+            this.roomIds[position] = roomId;
+            this.accommodationIds[position] = accommodationId;
+            this.positions.put(roomId, position);
+            return position;
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (capacity <= this.roomIds.length) {
+                return;
+            }
+            final int length = Math.max(capacity, this.roomIds.length * 2);
+            this.roomIds = Arrays.copyOf(this.roomIds, length);
+            this.accommodationIds = Arrays.copyOf(this.accommodationIds, length);
+            this.values.replaceAll((key, column) -> {
+                final double[] grownColumn = Arrays.copyOf(column, length);
+                Arrays.fill(grownColumn, column.length, length, MISSING);
+                return grownColumn;
+            });
+        }
+
+        private static double[] missingValues(final int length) {
+            final double[] column = new double[length];
+            Arrays.fill(column, MISSING);
+            return column;
+        }
+
+        private static double numberOf(@Nullable final String value) {
+            if (value == null) {
+                return MISSING;
+            }
+            try {
+                final double number = Double.parseDouble(value.trim());
+                return Double.isFinite(number) ? number : MISSING;
+            } catch (final NumberFormatException e) {
+                return MISSING;
+            }
+        }
+    }
+}
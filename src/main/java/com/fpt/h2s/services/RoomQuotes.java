@@ -0,0 +1,138 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.configurations.ConsulConfiguration;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Signs the prices shown by room searches, so bookings can be charged the price the user has seen without storing searches.
+ * A quote is a short text holding its fields and their HMAC, it is only accepted back for the user it has been issued to,
+ * before it expires and while the room has not been updated since.
+ */
+@Service
+@RequiredArgsConstructor
+public class RoomQuotes {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String FORMAT_VERSION = "1";
+    private static final Duration DURATION = Duration.ofHours(1);
+
+    private final ConsulConfiguration consul;
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    private void postInit() {
+        // Quotes are signed with a key derived from the auth secret, so they can never be mistaken for auth tokens.
+        final byte[] derivedKey = this.sign(new SecretKeySpec(this.consul.get("secret-key.AUTH_TOKEN").getBytes(StandardCharsets.UTF_8), ALGORITHM), "room-quote");
+        this.key = new SecretKeySpec(derivedKey, ALGORITHM);
+    }
+
+    public String issue(final Quote quote) {
+        final String payload = String.join(
+            "|",
+            FORMAT_VERSION,
+            String.valueOf(quote.userId()),
+            String.valueOf(quote.roomId()),
+            String.valueOf(quote.roomVersion()),
+            String.valueOf(quote.fromDate().toEpochDay()),
+            String.valueOf(quote.toDate().toEpochDay()),
+            String.valueOf(quote.originalPrice()),
+            String.valueOf(quote.discount()),
+            String.valueOf(quote.discountedPrice()),
+            String.valueOf(quote.expiresAt().getEpochSecond())
+        );
+        final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "." + encoder.encodeToString(this.sign(this.key, payload));
+    }
+
+    /**
+     * @return empty when the quote has been altered, has expired or has not been issued by this service.
+     */
+    public Optional<Quote> read(@Nullable final String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        final int separator = token.indexOf('.');
+        if (separator < 0) {
+            return Optional.empty();
+        }
+        try {
+            final Base64.Decoder decoder = Base64.getUrlDecoder();
+            final String payload = new String(decoder.decode(token.substring(0, separator)), StandardCharsets.UTF_8);
+            final byte[] signature = decoder.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, this.sign(this.key, payload))) {
+                return Optional.empty();
+            }
+
+            final String[] fields = payload.split("\\|");
+            if (fields.length != 10 || !FORMAT_VERSION.equals(fields[0])) {
+                return Optional.empty();
+            }
+            final Quote quote = new Quote(
+                Integer.parseInt(fields[1]),
+                Integer.parseInt(fields[2]),
+                Integer.parseInt(fields[3]),
+                LocalDate.ofEpochDay(Long.parseLong(fields[4])),
+                LocalDate.ofEpochDay(Long.parseLong(fields[5])),
+                Long.parseLong(fields[6]),
+                Integer.parseInt(fields[7]),
+                Long.parseLong(fields[8]),
+                Instant.ofEpochSecond(Long.parseLong(fields[9]))
+            );
+            return quote.expiresAt().isAfter(Instant.now()) ? Optional.of(quote) : Optional.empty();
+        } catch (final IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static Instant expiryOfNewQuotes() {
+        return Instant.now().plus(DURATION);
+    }
+
+    @SneakyThrows
+    private byte[] sign(final SecretKeySpec key, final String data) {
+        final Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(key);
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param userId          user the quote has been shown to.
+     * @param roomVersion     version of the room when prices were computed, updates of the room invalidate the quote.
+     * @param fromDate        check-in day.
+     * @param toDate          check-out day.
+     * @param originalPrice   price of one unit for the stay, before discount.
+     * @param discount        discount in percent.
+     * @param discountedPrice price of one unit for the stay, after discount.
+     */
+    public record Quote(
+        int userId,
+        int roomId,
+        int roomVersion,
+        LocalDate fromDate,
+        LocalDate toDate,
+        long originalPrice,
+        int discount,
+        long discountedPrice,
+        Instant expiresAt
+    ) {
+
+        public boolean covers(final int userId, final int roomId, final LocalDate fromDate, final LocalDate toDate) {
+            return this.userId == userId && this.roomId == roomId && this.fromDate.equals(fromDate) && this.toDate.equals(toDate);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.fpt.h2s.services;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms of every search stage, written in the Prometheus text format.
+ */
+@Service
+public class SearchMetrics {
+
+    private static final double[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public void record(final SearchProfile profile) {
+        for (final SearchProfile.Stage stage : profile.getStages()) {
+            this.histogramOf(stage.name(), stage.source()).observe(stage.wallMillis());
+        }
+    }
+
+    private Histogram histogramOf(final String stage, final SearchProfile.Source source) {
+        return this.histograms.computeIfAbsent("stage=\"%s\",source=\"%s\"".formatted(stage, source.name().toLowerCase()), labels -> new Histogram());
+    }
+
+    public String toPrometheusText() {
+        final StringBuilder text = new StringBuilder();
+        text.append("# HELP search_stage_duration_milliseconds Duration of accommodation search stages.\n");
+        text.append("# TYPE search_stage_duration_milliseconds histogram\n");
+        this.histograms.forEach((labels, histogram) -> histogram.writeTo(text, "search_stage_duration_milliseconds", labels));
+        return text.toString();
+    }
+
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Histogram() {
+            for (int i = 0; i < this.buckets.length; i++) {
+                this.buckets[i] = new LongAdder();
+            }
+        }
+
+        private void observe(final double millis) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            this.buckets[bucket].increment();
+            this.sum.add(millis);
+        }
+
+        private void writeTo(final StringBuilder text, final String name, final String labels) {
+            long count = 0;
+            for (int i = 0; i < this.buckets.length; i++) {
+                count += this.buckets[i].sum();
+                final String bound = i < BUCKET_BOUNDS_MILLIS.length ? String.valueOf(BUCKET_BOUNDS_MILLIS[i]) : "+Inf";
+                text.append("%s_bucket{%s,le=\"%s\"} %d\n".formatted(name, labels, bound, count));
+            }
+            text.append("%s_sum{%s} %s\n".formatted(name, labels, this.sum.sum()));
+            text.append("%s_count{%s} %d\n".formatted(name, labels, count));
+        }
+    }
+}
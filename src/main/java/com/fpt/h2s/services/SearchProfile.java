@@ -0,0 +1,83 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.utilities.SqlTimer;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Stages executed by one search, with their timings and the number of candidates they received and kept.
+ * Stages may run concurrently, they are listed in completion order.
+ */
+public class SearchProfile {
+
+    private final List<Stage> stages = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Run a stage filtering ids.
+     *
+     * @param candidates ids the stage filters, null when it searches every accommodation.
+     * @return ids kept by the stage, null to keep every id.
+     */
+    public <T> Set<T> run(final String name, final Source source, @Nullable final Collection<?> candidates, final Supplier<Set<T>> stage) {
+        return this.run(name, source, candidates, stage, Set::size);
+    }
+
+    /**
+     * Run a stage producing any result.
+     *
+     * @param sizeOf number of items of the result.
+     */
+    public <T> T run(final String name, final Source source, @Nullable final Collection<?> candidates, final Supplier<T> stage, final ToIntFunction<T> sizeOf) {
+        final long start = System.nanoTime();
+        final SqlTimer.Measured<T> measured = SqlTimer.measure(stage);
+        final Duration wallTime = Duration.ofNanos(System.nanoTime() - start);
+        final T result = measured.value();
+        this.stages.add(new Stage(
+            name,
+            source,
+            wallTime.toNanos() / 1e6,
+            measured.sqlTime().toNanos() / 1e6,
+            measured.statements(),
+            candidates == null ? null : candidates.size(),
+            result == null ? null : sizeOf.applyAsInt(result)
+        ));
+        return result;
+    }
+
+    public List<Stage> getStages() {
+        synchronized (this.stages) {
+            return List.copyOf(this.stages);
+        }
+    }
+
+    /**
+     * @param wallMillis       time spent by the stage.
+     * @param sqlMillis        time spent executing statements by the stage.
+     * @param statements       number of statements executed.
+     * @param candidatesBefore number of ids the stage received, null for every accommodation.
+     * @param candidatesAfter  number of ids or rows the stage returned, null for every accommodation.
+     */
+    public record Stage(
+        String name,
+        Source source,
+        double wallMillis,
+        double sqlMillis,
+        int statements,
+        @Nullable Integer candidatesBefore,
+        @Nullable Integer candidatesAfter
+    ) {
+
+    }
+
+    public enum Source {
+        INDEX, DATABASE, CACHE
+    }
+}
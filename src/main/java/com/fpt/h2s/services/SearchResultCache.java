@@ -0,0 +1,138 @@
+package com.fpt.h2s.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fpt.h2s.repositories.RedisRepository;
+import com.fpt.h2s.utilities.Mappers;
+import com.fpt.h2s.utilities.MoreStrings;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches pages of search results as ordered ids. Keys contain the version of every entity type results depend on,
+ * versions are increased after each committed write by {@link com.fpt.h2s.models.entities.listeners.SearchVersionListener},
+ * so a cached page is never read again once the data behind it has changed.
+ * <p>
+ * Results are partly read from the in-memory indexes of each node, which receive changes through Redis messages.
+ * New versions are sent on the {@value VERSIONS_CHANNEL} channel after the index changes of the same write,
+ * a node only stores results under versions it has received, so its indexes had every change behind them.
+ */
+@Log4j2
+@Service
+public class SearchResultCache {
+
+    public static final String VERSIONS_CHANNEL = "search-versions";
+
+    private static final String VERSIONS_KEY = "search-versions";
+    private static final Duration DURATION = Duration.ofMinutes(10);
+
+    /**
+     * Latest version of each entity type whose changes have been applied to the indexes of this node.
+     */
+    private final Map<String, Long> appliedVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Start from the current versions, before indexes are loaded from the data behind them.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void readAppliedVersions() {
+        try {
+            RedisRepository.getAll(VERSIONS_KEY).forEach((type, version) -> this.apply(type, Long.parseLong(version)));
+        } catch (final Exception e) {
+            log.warn("Failed to read search versions, search results will be cached once new versions are received.", e);
+        }
+    }
+
+    /**
+     * Record versions sent by any node, once indexes of this node have received the changes behind them.
+     */
+    public void applyLocally(final String message) {
+        try {
+            Mappers.mapToObjectFrom(message, new TypeReference<Map<String, Long>>() {}).forEach(this::apply);
+        } catch (final Exception e) {
+            log.error("Failed to apply search versions {}, search results of their types will not be cached.", message, e);
+        }
+    }
+
+    private void apply(final String type, final long version) {
+        this.appliedVersions.merge(type, version, Math::max);
+    }
+
+    /**
+     * Build the cache key of a search. The key must be computed before searching,
+     * so results computed from older data are stored under older versions.
+     *
+     * @param namespace        kind of the search.
+     * @param canonicalRequest request written the same way for the same filters.
+     * @return empty if versions cannot be read.
+     */
+    public Optional<Key> keyOf(final String namespace, final String canonicalRequest) {
+        try {
+            final Map<String, String> versions = new TreeMap<>(RedisRepository.getAll(VERSIONS_KEY));
+            final boolean isStorable = versions
+                .entrySet()
+                .stream()
+                .allMatch(version -> this.appliedVersions.getOrDefault(version.getKey(), 0L) >= Long.parseLong(version.getValue()));
+            return Optional.of(new Key("search-%s-%s".formatted(namespace, MoreStrings.Sha256(canonicalRequest + versions)), isStorable));
+        } catch (final Exception e) {
+            log.warn("Failed to read search versions, search results will not be cached.", e);
+            return Optional.empty();
+        }
+    }
+
+    public Optional<CachedPage> get(final String key) {
+        try {
+            return RedisRepository.get(key, CachedPage.class);
+        } catch (final Exception e) {
+            log.warn("Failed to read cached search results of {}", key, e);
+            return Optional.empty();
+        }
+    }
+
+    public void put(final String key, final CachedPage page) {
+        try {
+            RedisRepository.set(key, page, DURATION);
+        } catch (final Exception e) {
+            log.warn("Failed to cache search results of {}", key, e);
+        }
+    }
+
+    /**
+     * Make every cached result depending on the input entity type stale.
+     */
+    public void bump(final Class<?> source) {
+        try {
+            final long version = RedisRepository.increment(VERSIONS_KEY, source.getSimpleName());
+            RedisRepository.publish(VERSIONS_CHANNEL, Mappers.jsonOf(Map.of(source.getSimpleName(), version)));
+        } catch (final Exception e) {
+            log.error("Failed to bump search version of {}, cached search results may be stale.", source.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * @param value      key of the cached page.
+     * @param isStorable whether this node may store results under the key, false until it received its versions.
+     *                   Pages stored under the key by other nodes can always be read.
+     */
+    public record Key(String value, boolean isStorable) {
+
+    }
+
+    /**
+     * @param ids        ids of the items in the page, in order.
+     * @param totalItems number of items of every page, null when the page has been read from a cursor.
+     * @param nextCursor cursor to read the next page, null on the last page.
+     */
+    public record CachedPage(List<Integer> ids, @Nullable Long totalItems, @Nullable String nextCursor) {
+
+    }
+}
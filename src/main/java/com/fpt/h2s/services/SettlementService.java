@@ -0,0 +1,127 @@
+package com.fpt.h2s.services;
+
+import ananta.utility.ListEx;
+import ananta.utility.StringEx;
+import com.fpt.h2s.repositories.BookingRequestRepository;
+import com.fpt.h2s.repositories.RedisRepository;
+import com.fpt.h2s.repositories.projections.SettlementRecord;
+import com.fpt.h2s.utilities.LocalDateTimes;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pays house owners 80% of purchased bookings once their check-in day has come, and marks the bookings as succeed.
+ * Bookings are settled in chunks, each in its own transaction: the chunk is locked, its payouts are inserted with one batch
+ * and its bookings are updated with one statement. A checkpoint is saved after each chunk, so a run interrupted by a crash
+ * continues after the last settled booking instead of starting over.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class SettlementService {
+
+    private static final String CHECKPOINT_KEY = "settlement-checkpoint";
+    private static final int BOOKINGS_PER_CHUNK = 1000;
+    private static final double OWNER_SHARE = 0.8;
+    private static final Timestamp FIRST_CHECKIN = new Timestamp(0);
+
+    private final BookingRequestRepository bookingRequestRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Scheduled(fixedRate = 15, timeUnit = TimeUnit.SECONDS)
+    public void settle() {
+        final boolean isLocal = StringEx.isBlank(System.getenv("ENVIRONMENT")) || Objects.equals(System.getenv("ENVIRONMENT"), "LOCAL");
+        if (isLocal) {
+            return;
+        }
+
+        Checkpoint checkpoint = RedisRepository.get(CHECKPOINT_KEY, Checkpoint.class).orElseGet(Checkpoint::start);
+        final TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+        while (true) {
+            final Checkpoint lastCheckpoint = checkpoint;
+            final Checkpoint nextCheckpoint = transaction.execute(status -> this.settleChunkAfter(lastCheckpoint));
+            if (nextCheckpoint == null) {
+                break;
+            }
+            checkpoint = nextCheckpoint;
+            RedisRepository.set(CHECKPOINT_KEY, checkpoint);
+        }
+
+        RedisRepository.remove(CHECKPOINT_KEY);
+        if (checkpoint.totalSettled() > 0) {
+            log.info("Paid house owners for {} bookings checked in before {}.", checkpoint.totalSettled(), checkpoint.checkinBefore());
+        }
+    }
+
+    /**
+     * @return checkpoint after the settled chunk, null when no booking is left.
+     */
+    private Checkpoint settleChunkAfter(final Checkpoint checkpoint) {
+        final List<SettlementRecord> bookings = this.bookingRequestRepository.lockNextToSettle(
+            checkpoint.checkinBefore(),
+            checkpoint.lastCheckinAt(),
+            checkpoint.lastBookingId(),
+            BOOKINGS_PER_CHUNK
+        );
+        if (bookings.isEmpty()) {
+            return null;
+        }
+
+        final String payDate = payDateOf(Calendar.getInstance(TimeZone.getTimeZone("Etc/GMT+7")));
+        this.jdbcTemplate.batchUpdate(
+            """
+                INSERT INTO transactions (amount, payment_method, transaction_request_no, bank_transaction_no, pay_date, receiver_id, created_at, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?, NOW(), NOW())
+                """,
+            bookings,
+            BOOKINGS_PER_CHUNK,
+            (statement, booking) -> {
+                statement.setLong(1, (long) (Optional.ofNullable(booking.getAmount()).orElse(0L) * OWNER_SHARE));
+                statement.setString(2, booking.getPaymentMethod());
+                statement.setString(3, booking.getTransactionRequestNo());
+                statement.setString(4, booking.getBankTransactionNo());
+                statement.setString(5, payDate);
+                statement.setObject(6, booking.getOwnerId());
+            }
+        );
+        // Purchased and succeed bookings hold their rooms the same way, indexes and cached searches are not affected.
+        this.bookingRequestRepository.settleAll(ListEx.listOf(bookings, SettlementRecord::getBookingId));
+
+        final SettlementRecord last = bookings.get(bookings.size() - 1);
+        return new Checkpoint(checkpoint.checkinBefore(), last.getCheckinAt(), last.getBookingId(), checkpoint.totalSettled() + bookings.size());
+    }
+
+    private static String payDateOf(final Calendar calendar) {
+        return new SimpleDateFormat("yyyyMMddHHmmss").format(calendar.getTime());
+    }
+
+    /**
+     * @param checkinBefore bookings checked in from this time are settled by later runs.
+     * @param lastCheckinAt check-in time of the last settled booking.
+     * @param lastBookingId id of the last settled booking.
+     * @param totalSettled  number of bookings settled by the run.
+     */
+    record Checkpoint(Timestamp checkinBefore, Timestamp lastCheckinAt, Integer lastBookingId, long totalSettled) {
+
+        static Checkpoint start() {
+            final Timestamp today = Timestamp.valueOf(LocalDateTimes.startDayOf(LocalDateTime.now()).plusMinutes(1));
+            return new Checkpoint(today, FIRST_CHECKIN, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.User;
+import com.fpt.h2s.repositories.UserRepository;
+import com.fpt.h2s.repositories.projections.UserTextRecord;
+import com.fpt.h2s.utilities.Criteria;
+import com.fpt.h2s.utilities.QueryValues;
+import com.fpt.h2s.utilities.TrigramIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accent-insensitive text index over user emails, usernames and phones.
+ * Notified by {@link com.fpt.h2s.models.entities.listeners.UserKeywordIndexListener}.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class UserKeywordIndex extends BaseIndex {
+
+    private static final Map<String, Double> WEIGHTS = Map.of(
+        User.Fields.username, 2.0,
+        User.Fields.email, 2.0,
+        User.Fields.phone, 1.0
+    );
+
+    private final UserRepository userRepository;
+
+    private TrigramIndex index = new TrigramIndex(WEIGHTS);
+
+    @Override
+    protected void load() {
+        final TrigramIndex newIndex = new TrigramIndex(WEIGHTS);
+        this.userRepository
+            .findAllTextsOf(QueryValues.integerList(null))
+            .forEach(record -> add(newIndex, record));
+
+        this.writeLocked(() -> this.index = newIndex);
+        log.info("User keyword index rebuilt with {} users.", newIndex.size(User.Fields.email));
+    }
+
+    @Override
+    protected void reload(final Set<Integer> userIds) {
+        final List<UserTextRecord> records = this.userRepository.findAllTextsOf(userIds);
+        this.writeLocked(() -> {
+            userIds.forEach(this.index::remove);
+            records.forEach(record -> add(this.index, record));
+        });
+    }
+
+    private static void add(final TrigramIndex index, final UserTextRecord record) {
+        final Map<String, String> texts = new HashMap<>();
+        texts.put(User.Fields.email, record.getEmail());
+        texts.put(User.Fields.username, record.getUsername());
+        texts.put(User.Fields.phone, record.getPhone());
+        index.put(record.getId(), texts);
+    }
+
+    /**
+     * @return ids of users whose field matches, null when the filter must be run by the database.
+     */
+    @Nullable
+    public Set<Integer> findAllMatching(final String field, final Criteria operation, final Object... value) {
+        return this.readLocked(() -> this.index.findAllMatching(field, operation, value));
+    }
+}
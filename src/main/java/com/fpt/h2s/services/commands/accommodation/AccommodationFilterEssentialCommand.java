@@ -1,5 +1,6 @@
 package com.fpt.h2s.services.commands.accommodation;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fpt.h2s.models.domains.ApiResponse;
 import com.fpt.h2s.models.entities.Property;
 import com.fpt.h2s.repositories.CategoryRepository;
@@ -18,6 +19,12 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AccommodationFilterEssentialCommand implements BaseCommand<Void, AccommodationFilterEssentialCommand.Response> {
 
+    /**
+     * Keys of the cached filter items, writers of amenities or searchable properties must invalidate them.
+     */
+    public static final String AMENITIES_CACHE_KEY = "getSearchableAmenities";
+    public static final String DETAILS_CACHE_KEY = "getSearchDetails";
+
     private final CategoryRepository categoryRepository;
     private final PropertyRepository propertyRepository;
 
@@ -25,7 +32,7 @@ public class AccommodationFilterEssentialCommand implements BaseCommand<Void, Ac
     @Override
     public ApiResponse<Response> execute(final Void request) {
         final List<CategoryResponse> amenities = Caches.storeIfNotFound(
-            "getSearchableAmenities", () -> this.categoryRepository
+            AMENITIES_CACHE_KEY, new TypeReference<List<CategoryResponse>>() {}, () -> this.categoryRepository
             .findAllSuggestionAmenities()
             .stream()
             .map(CategoryResponse::of)
@@ -34,7 +41,7 @@ public class AccommodationFilterEssentialCommand implements BaseCommand<Void, Ac
         );
 
         final List<PropertyResponse> details = Caches.storeIfNotFound(
-                "getSearchDetails", () -> this.propertyRepository
+                DETAILS_CACHE_KEY, new TypeReference<List<PropertyResponse>>() {}, () -> this.propertyRepository
                         .findAll()
                         .stream()
                         .filter(Property::isSearchable)
@@ -7,9 +7,11 @@ import com.fpt.h2s.models.entities.Accommodation;
 import com.fpt.h2s.models.entities.converters.JPAEnumConverter;
 import com.fpt.h2s.models.exceptions.ApiException;
 import com.fpt.h2s.repositories.AccommodationRepository;
+import com.fpt.h2s.services.AccommodationKeywordIndex;
 import com.fpt.h2s.services.commands.BaseCommand;
 import com.fpt.h2s.services.commands.responses.AdminAccommodationResponse;
 import com.fpt.h2s.utilities.Criteria;
+import com.fpt.h2s.utilities.Keyset;
 import com.fpt.h2s.utilities.SpringBeans;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -101,6 +103,10 @@ public class AdminSearchAccommodationCommand implements BaseCommand<AdminSearchA
                 throw ApiException.badRequest("Key must be one of {}", CriteriaRequest.REQUIRED_FIELDS);
             }
             final Object[] values = this.getValue();
+            final Set<Integer> indexedIds = SpringBeans.getBean(AccommodationKeywordIndex.class).findAllMatching(this.key, this.operation, values);
+            if (indexedIds != null) {
+                return indexedIds.isEmpty() ? (root, query, cb) -> cb.disjunction() : Keyset.idIn(indexedIds);
+            }
             return this.operation.<Accommodation>value(values).apply(this.key);
         }
         
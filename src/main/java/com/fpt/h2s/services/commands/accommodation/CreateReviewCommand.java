@@ -114,7 +114,7 @@ public class CreateReviewCommand implements BaseCommand<CreateReviewCommand.Requ
     private Accommodation updateReviewCountFor(Accommodation accommodation) {
         Set<AccommodationReview> accommodationReviews = accommodation.getReviews();
         Float reviewRate = reviewRateOf(accommodationReviews);
-        Accommodation accommodationToUpdate = accommodation.withReviewRate(reviewRate).withTotalReviews(accommodationReviews.size());
+        Accommodation accommodationToUpdate = accommodation.withReviewRate(reviewRate).withTotalReviews(accommodationReviews.size()).withRankingScoreComputed();
         return accommodationRepository.save(accommodationToUpdate);
     }
 
@@ -6,22 +6,29 @@ import com.fpt.h2s.models.domains.BaseRequest;
 import com.fpt.h2s.models.domains.BaseValidator;
 import com.fpt.h2s.models.entities.Accommodation;
 import com.fpt.h2s.models.entities.Contract;
+import com.fpt.h2s.models.entities.PriceHistory;
+import com.fpt.h2s.models.entities.Room;
 import com.fpt.h2s.models.entities.User;
 import com.fpt.h2s.models.exceptions.ApiException;
 import com.fpt.h2s.repositories.AccommodationRepository;
 import com.fpt.h2s.repositories.ContractRepository;
-import com.fpt.h2s.repositories.PriceHistoryRepository;
+import com.fpt.h2s.repositories.RoomRepository;
+import com.fpt.h2s.services.RoomPriceEngine;
 import com.fpt.h2s.services.commands.BaseCommand;
 import com.fpt.h2s.services.commands.responses.HouseOwnerViewDetailAccommodationAmountResponse;
 import lombok.*;
 import lombok.experimental.FieldNameConstants;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,18 +36,76 @@ import java.util.stream.Collectors;
 public class HouseOwnerViewDetailAccommodationAmountCommand implements
         BaseCommand<HouseOwnerViewDetailAccommodationAmountCommand.Request, Map<Integer, List<HouseOwnerViewDetailAccommodationAmountResponse>>> {
 
-    private final PriceHistoryRepository priceHistoryRepository;
+    private final RoomRepository roomRepository;
+    private final RoomPriceEngine roomPriceEngine;
+
     @Override
     public ApiResponse<Map<Integer, List<HouseOwnerViewDetailAccommodationAmountResponse>>> execute(final Request request) {
+        final List<Integer> roomIds = this.roomRepository
+                .findAllByAccommodationId(request.getId())
+                .stream()
+                .map(Room::getId)
+                .toList();
 
         Map<Integer, List<HouseOwnerViewDetailAccommodationAmountResponse>> results =
-                this.priceHistoryRepository.getAmountByDate(request.getId(), request.getDate())
+                this.roomPriceEngine.rulesOf(roomIds)
+                        .values()
                         .stream()
-                        .map(HouseOwnerViewDetailAccommodationAmountResponse::of)
+                        .flatMap(rules -> responsesOf(rules, request.getDate()).stream())
                         .collect(Collectors.groupingBy(HouseOwnerViewDetailAccommodationAmountResponse::getRoomId));
         return ApiResponse.success(results);
     }
 
+    /**
+     * @return the day type rules, shown until the end of the year of the input date, followed by the next custom rules.
+     */
+    private static List<HouseOwnerViewDetailAccommodationAmountResponse> responsesOf(final RoomPriceEngine.RoomRules rules, final LocalDate date) {
+        final List<HouseOwnerViewDetailAccommodationAmountResponse> responses = new ArrayList<>();
+        final LocalDate endOfYear = date.with(TemporalAdjusters.lastDayOfYear());
+        for (final PriceHistory.Type type : PriceHistory.Type.values()) {
+            for (final PriceHistory.DayType dayType : List.of(PriceHistory.DayType.WEEKDAY, PriceHistory.DayType.WEEKEND, PriceHistory.DayType.SPECIAL_DAY)) {
+                final PriceHistory rule = rules.dayTypeRuleOf(type, dayType);
+                if (rule == null) {
+                    continue;
+                }
+                final PriceHistory priceRule = rules.dayTypeRuleOf(PriceHistory.Type.PRICE, dayType);
+                responses.add(responseOf(rules, rule, priceRule, null, endOfYear));
+            }
+        }
+        for (final PriceHistory rule : rules.nextCustomRulesAfter(date)) {
+            final PriceHistory priceRule = rule.getType() == PriceHistory.Type.PRICE ? null : rules.customRuleOf(PriceHistory.Type.PRICE, rule.getFromDate());
+            responses.add(responseOf(rules, rule, priceRule, rule.getFromDate(), rule.getToDate()));
+        }
+        return responses;
+    }
+
+    /**
+     * Price rules show the price of the day type, discount rules show the discounted price of the day type.
+     * Custom price rules show the base price of the room.
+     */
+    private static HouseOwnerViewDetailAccommodationAmountResponse responseOf(final RoomPriceEngine.RoomRules rules,
+                                                                             final PriceHistory rule,
+                                                                             @Nullable final PriceHistory priceRule,
+                                                                             @Nullable final LocalDate fromDate,
+                                                                             final LocalDate toDate) {
+        final long amount = Optional.ofNullable(rule.getAmount()).orElse(0L);
+        final long priceAmount = priceRule == null ? 100 : Optional.ofNullable(priceRule.getAmount()).orElse(0L);
+        final long price = switch (rule.getType()) {
+            case PRICE -> rule.getDayType() == PriceHistory.DayType.CUSTOM ? rules.getRoomPrice() : Math.round(rules.getRoomPrice() * amount / 100.0);
+            case DISCOUNT -> Math.round(rules.getRoomPrice() * priceAmount * (100 - amount) / 10000.0);
+        };
+        return HouseOwnerViewDetailAccommodationAmountResponse.builder()
+                .id(rule.getId())
+                .roomId(rules.getRoomId())
+                .type(rule.getType())
+                .dayType(rule.getDayType())
+                .fromDate(fromDate == null ? null : fromDate.toString())
+                .toDate(toDate.toString())
+                .amount((int) amount)
+                .price((int) price)
+                .build();
+    }
+
     @Getter
     @Builder
     @FieldNameConstants
@@ -1,16 +1,20 @@
 package com.fpt.h2s.services.commands.accommodation;
 
 import ananta.utility.ListEx;
-import ananta.utility.MapEx;
 import ananta.utility.SetEx;
+import ananta.utility.StreamEx;
 import com.fpt.h2s.models.domains.ApiResponse;
 import com.fpt.h2s.models.domains.BaseRequest;
+import com.fpt.h2s.models.entities.Room;
 import com.fpt.h2s.models.entities.RoomImage;
-import com.fpt.h2s.models.entities.RoomProperty;
 import com.fpt.h2s.models.entities.User;
 import com.fpt.h2s.repositories.*;
 import com.fpt.h2s.repositories.projections.AvailableRoomRecord;
 import com.fpt.h2s.repositories.projections.RoomPropertyDetail;
+import com.fpt.h2s.services.RoomAvailabilityIndex;
+import com.fpt.h2s.services.RoomPriceEngine;
+import com.fpt.h2s.services.RoomPropertyIndex;
+import com.fpt.h2s.services.RoomQuotes;
 import com.fpt.h2s.services.commands.BaseCommand;
 import com.fpt.h2s.services.commands.responses.CategoryResponse;
 import com.fpt.h2s.services.commands.responses.DetailedRoomProperty;
@@ -19,12 +23,14 @@ import lombok.*;
 import lombok.experimental.FieldNameConstants;
 import lombok.extern.jackson.Jacksonized;
 import org.jetbrains.annotations.NotNull;
-import org.springframework.data.jpa.domain.Specification;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.stereotype.Service;
 
 import java.sql.Timestamp;
-import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.DoublePredicate;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,43 +40,64 @@ public class SearchAccommodationAvailableRoomsCommand implements BaseCommand<Sea
     private final RoomRepository roomRepository;
     private final CategoryRepository categoryRepository;
     private final RoomPropertyRepository roomPropertyRepository;
-    private final PriceHistoryRepository priceHistoryRepository;
+    private final RoomPriceEngine roomPriceEngine;
     private final RoomImageRepository roomImageRepository;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final RoomPropertyIndex roomPropertyIndex;
+    private final RoomQuotes roomQuotes;
+
     @Override
     public ApiResponse<List<RoomResponse>> execute(final Request request) {
         final List<AvailableRoomRecord> rooms = this.searchAvailableRooms(request);
-        final Map<Integer, PriceDTO> priceMapToRoomId = getPriceMapToRoomId(request, rooms);
+        final Map<Integer, RoomPriceEngine.StayPrice> priceMapToRoomId = getPriceMapToRoomId(request, rooms);
         final Map<Integer, List<CategoryResponse>> categoriesMapToRoomId = getCategoriesMapToRoomId(rooms);
         final Map<Integer, List<RoomPropertyDetail>> roomPropertiesMapToId = this.getRoomProperties(rooms);
         final Map<Integer, List<RoomImage>> roomImagesMapToRoomId = this.getRoomImages(rooms);
 
+        final Instant quotesExpireAt = RoomQuotes.expiryOfNewQuotes();
         final List<RoomResponse> responses = rooms.stream().map(room -> {
-                PriceDTO price = priceMapToRoomId.get(room.getId());
-                return RoomResponse
+                final RoomPriceEngine.StayPrice price = priceMapToRoomId.get(room.getId());
+                final RoomResponse response = RoomResponse
                     .builder()
                     .properties(roomPropertiesMapToId.get(room.getId()).stream().map(DetailedRoomProperty::of).filter(Objects::nonNull).toList())
                     .amenities(ListEx.emptyListIfNull(categoriesMapToRoomId.get(room.getId())))
                     .id(room.getId())
                     .name(room.getName())
-                    .originalPrice(Optional.ofNullable(price).map(PriceDTO::getPrice).orElse(0L))
-                    .discount(Optional.ofNullable(price).map(PriceDTO::getDiscount).orElse(0))
-                    .discountedPrice(Optional.ofNullable(price).map(PriceDTO::getDisplayPrice).orElse(0L))
+                    .originalPrice(Optional.ofNullable(price).map(RoomPriceEngine.StayPrice::price).orElse(0L))
+                    .discount(Optional.ofNullable(price).map(RoomPriceEngine.StayPrice::discount).orElse(0))
+                    .discountedPrice(Optional.ofNullable(price).map(RoomPriceEngine.StayPrice::displayPrice).orElse(0L))
                     .totalRoomsLeft(room.getAvailableRooms())
                     .images(roomImagesMapToRoomId.get(room.getId()))
                     .build();
+                return response.withQuote(this.quoteForLaterBook(request, room, response, quotesExpireAt));
             }
         ).toList();
 
-        cacheForLaterBook(request, responses);
         return ApiResponse.success(responses);
     }
 
-    private static void cacheForLaterBook(Request request, List<RoomResponse> responses) {
-        if (User.currentUserId().isPresent()) {
-            String token = Tokens.getTokenFrom(MoreRequests.getCurrentHttpRequest());
-            RedisRepository.set("search-request-%s".formatted(token), request);
-            RedisRepository.set("search-rooms-%s".formatted(token), responses, Duration.ofHours(1));
+    /**
+     * @return null when the user cannot book from this search.
+     */
+    @Nullable
+    private String quoteForLaterBook(final Request request, final AvailableRoomRecord room, final RoomResponse response, final Instant expiresAt) {
+        final Integer userId = User.currentUserId().orElse(null);
+        if (userId == null || request.fromDate == null || request.toDate == null) {
+            return null;
         }
+        return this.roomQuotes.issue(
+            new RoomQuotes.Quote(
+                userId,
+                room.getId(),
+                Objects.requireNonNullElse(room.getVersion(), 0),
+                LocalDateTimes.startDayOf(request.fromDate).toLocalDate(),
+                LocalDateTimes.startDayOf(request.toDate).toLocalDate(),
+                response.getOriginalPrice(),
+                response.getDiscount(),
+                response.getDiscountedPrice(),
+                expiresAt
+            )
+        );
     }
 
     private Map<Integer, List<CategoryResponse>> getCategoriesMapToRoomId(List<AvailableRoomRecord> rooms) {
@@ -89,44 +116,48 @@ public class SearchAccommodationAvailableRoomsCommand implements BaseCommand<Sea
     }
 
     @NotNull
-    private Map<Integer, PriceDTO> getPriceMapToRoomId(Request request, List<AvailableRoomRecord> rooms) {
-        Set<Integer> roomIds = SetEx.setOf(rooms, AvailableRoomRecord::getId);
-        List<Map<String, Object>> tuples = priceHistoryRepository
-            .findPricesOf(
-                roomIds,
-                QueryValues.unreachablePastOr(request.getFromDate()),
-                QueryValues.unreachableFutureOr(request.getToDate())
-            );
+    private Map<Integer, RoomPriceEngine.StayPrice> getPriceMapToRoomId(Request request, List<AvailableRoomRecord> rooms) {
+        return this.roomPriceEngine.priceStays(
+            SetEx.setOf(rooms, AvailableRoomRecord::getId),
+            request.getFromDate() == null ? LocalDate.MIN : request.getFromDate().toLocalDateTime().toLocalDate(),
+            request.getToDate() == null ? LocalDate.MAX : request.getToDate().toLocalDateTime().toLocalDate()
+        );
+    }
 
-        List<PriceDTO> prices = tuples.stream().map(tuple -> Mappers.fromTuple(tuple, PriceDTO.class)).toList();
+    /**
+     * @return null when there is no criteria.
+     */
+    @Nullable
+    private Set<Integer> searchRoomsThatMeet(final List<CriteriaRequest> criteriaList, final Integer accommodationId) {
+        final List<CriteriaRequest> cleanCriteriaList = StreamEx.from(criteriaList).filter(Objects::nonNull).toList();
+        if (cleanCriteriaList.isEmpty()) {
+            return null;
+        }
 
-        return MapEx.mapOf(prices, PriceDTO::getRoomId);
+        final List<RoomPropertyIndex.Condition> indexConditions = ListEx.listOf(cleanCriteriaList, CriteriaRequest::toIndexCondition);
+        if (indexConditions.stream().allMatch(Objects::nonNull)) {
+            return this.roomPropertyIndex.findAllThatMeet(indexConditions, List.of(accommodationId));
+        }
+        return this.roomRepository.getRoomsThatMeet(ListEx.listOf(cleanCriteriaList, CriteriaRequest::toSqlCondition));
     }
 
     public List<AvailableRoomRecord> searchAvailableRooms(final Request request) {
-        final Specification<RoomProperty> criteria = request.criteriaList
-            .stream()
-            .map(CriteriaRequest::toSpecification)
-            .reduce(Specification::and)
-            .orElse(null);
-
-        if (criteria == null) {
-            return this.roomRepository.findAvailableRoomsOfAccommodationBetween(
-                QueryValues.unreachablePastOr(request.getFromDate()),
-                QueryValues.unreachableFutureOr(request.getToDate()),
-                request.accommodationId,
-                QueryValues.integerList(null)
-            );
-        }
+        final Set<Integer> roomsThatMeetCriteria = this.searchRoomsThatMeet(request.criteriaList, request.accommodationId);
 
-        Set<Integer> roomsThatMeetCriteria = roomRepository.getRoomsThatMeet(criteria, request.criteriaList.stream().filter(Objects::nonNull).toList().size());
+        final List<Room> rooms = this.roomRepository
+            .findAllByAccommodationId(request.accommodationId)
+            .stream()
+            .filter(room -> room.getStatus() == Room.Status.OPENING)
+            .filter(room -> roomsThatMeetCriteria == null || roomsThatMeetCriteria.contains(room.getId()))
+            .toList();
 
-        return this.roomRepository.findAvailableRoomsOfAccommodationBetween(
-            QueryValues.unreachablePastOr(request.getFromDate()),
-            QueryValues.unreachableFutureOr(request.getToDate()),
-            request.accommodationId,
-            roomsThatMeetCriteria
+        final Map<Integer, Integer> freeRoomsMapToRoomId = this.availabilityIndex.countFreeRooms(
+            ListEx.listOf(rooms, Room::getId),
+            request.fromDate,
+            request.toDate
         );
+
+        return ListEx.listOf(rooms, room -> new AvailableRoom(room.getId(), room.getName(), freeRoomsMapToRoomId.get(room.getId()), room.getVersion()));
     }
 
     @NotNull
@@ -175,10 +206,24 @@ public class SearchAccommodationAvailableRoomsCommand implements BaseCommand<Sea
         private final Criteria operation;
         private final Object[] value;
 
-        public Specification<RoomProperty> toSpecification() {
-            final Object[] values = this.getValue();
-            final Specification<RoomProperty> specification = (root, query, cb) -> cb.equal(root.get(RoomProperty.Fields.id).get(RoomProperty.PK.Fields.keyId), this.key);
-            return specification.and(this.operation.<RoomProperty>value(values).apply(RoomProperty.Fields.value));
+        public Criteria.SqlCondition toSqlCondition() {
+            final Criteria.SqlCondition condition = this.operation.sqlOf("value", this.getValue());
+            final List<Object> parameters = new ArrayList<>();
+            parameters.add(this.key);
+            parameters.addAll(condition.parameters());
+            return new Criteria.SqlCondition("key_id = ? AND (%s)".formatted(condition.sql()), parameters);
+        }
+
+        /**
+         * @return null when the condition cannot be answered by {@link RoomPropertyIndex}.
+         */
+        @Nullable
+        public RoomPropertyIndex.Condition toIndexCondition() {
+            final DoublePredicate predicate = this.operation.numberPredicateOf(this.getValue());
+            if (this.key == null || predicate == null) {
+                return null;
+            }
+            return new RoomPropertyIndex.Condition(this.key, predicate);
         }
     }
 
@@ -199,16 +244,20 @@ public class SearchAccommodationAvailableRoomsCommand implements BaseCommand<Sea
         private List<CategoryResponse> amenities;
         private List<DetailedRoomProperty> properties;
 
+        /**
+         * Signed price to send back when booking the room, null for anonymous users or searches without dates.
+         */
+        private String quote;
+
     }
 
     @Getter
-    @Setter
-    @NoArgsConstructor
-    private static class PriceDTO {
-        private Integer roomId;
-        private Long price;
-        private Integer discount;
-        private Long displayPrice;
+    @AllArgsConstructor
+    private static class AvailableRoom implements AvailableRoomRecord {
+        private final Integer id;
+        private final String name;
+        private final Integer availableRooms;
+        private final Integer version;
     }
 
     @Getter
@@ -0,0 +1,90 @@
+package com.fpt.h2s.services.commands.accommodation;
+
+import ananta.utility.StreamEx;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fpt.h2s.models.domains.ApiResponse;
+import com.fpt.h2s.models.domains.ListResult;
+import com.fpt.h2s.models.domains.SearchRequest;
+import com.fpt.h2s.models.entities.Accommodation;
+import com.fpt.h2s.models.exceptions.ApiException;
+import com.fpt.h2s.repositories.AccommodationRepository;
+import com.fpt.h2s.services.AccommodationFacetIndex;
+import com.fpt.h2s.services.AccommodationKeywordIndex;
+import com.fpt.h2s.services.commands.BaseCommand;
+import com.fpt.h2s.services.commands.responses.AccommodationResponse;
+import com.fpt.h2s.utilities.TrigramIndex;
+import lombok.*;
+import lombok.experimental.FieldNameConstants;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Search opening accommodations by a keyword matched against their names, addresses and short descriptions,
+ * most relevant first.
+ */
+@Service
+@RequiredArgsConstructor
+public class SearchAccommodationByKeywordCommand implements BaseCommand<SearchAccommodationByKeywordCommand.Request, ListResult<AccommodationResponse>> {
+
+    private static final int MAX_HITS = 1000;
+
+    private final AccommodationRepository accommodationRepository;
+    private final AccommodationKeywordIndex keywordIndex;
+    private final AccommodationFacetIndex facetIndex;
+    private final AccommodationAdapter adapter;
+
+    @Override
+    public ApiResponse<ListResult<AccommodationResponse>> execute(final Request request) {
+        if (request.getKeyword() == null || request.getKeyword().isBlank()) {
+            throw ApiException.badRequest("Vui lòng nhập từ khoá tìm kiếm.");
+        }
+
+        final List<Integer> hitIds = StreamEx.from(this.keywordIndex.search(request.getKeyword(), MAX_HITS)).map(TrigramIndex.Hit::id).toList();
+        final Set<Integer> openingIds = this.facetIndex.findAllThatMeet(List.of(Accommodation.Type.values()), List.of(Accommodation.Status.OPENING), hitIds);
+        final List<Integer> rankedIds = StreamEx.from(hitIds).filter(openingIds::contains).toList();
+
+        final PageRequest pageable = request.toPageRequest();
+        final List<Integer> pageIds = rankedIds
+            .stream()
+            .skip(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .toList();
+        final Map<Integer, Accommodation> accommodations = this.accommodationRepository
+            .findAllById(pageIds)
+            .stream()
+            .collect(Collectors.toMap(Accommodation::getId, Function.identity()));
+        final List<Accommodation> content = StreamEx.from(pageIds).map(accommodations::get).filter(Objects::nonNull).toList();
+
+        final ListResult<Accommodation> result = ListResult.of(new PageImpl<>(content, pageable, rankedIds.size()));
+        return ApiResponse.success(result.withContent(this.adapter.responsesOf(content)));
+    }
+
+    @Getter
+    @Builder(toBuilder = true)
+    @FieldNameConstants
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY, creatorVisibility = JsonAutoDetect.Visibility.ANY)
+    public static class Request extends SearchRequest {
+        private String keyword;
+        private Integer size;
+        private Integer page;
+
+        @Override
+        protected String getOrderBy() {
+            return null;
+        }
+
+        @Override
+        protected Boolean getIsDescending() {
+            return null;
+        }
+    }
+}
@@ -5,33 +5,46 @@ import ananta.utility.SetEx;
 import ananta.utility.StreamEx;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fpt.h2s.models.domains.ApiResponse;
+import com.fpt.h2s.models.domains.Cursor;
 import com.fpt.h2s.models.domains.ListResult;
 import com.fpt.h2s.models.domains.Range;
 import com.fpt.h2s.models.domains.SearchRequest;
 import com.fpt.h2s.models.entities.Accommodation;
-import com.fpt.h2s.models.entities.Room;
-import com.fpt.h2s.models.entities.RoomProperty;
+import com.fpt.h2s.models.entities.Category;
 import com.fpt.h2s.models.exceptions.ApiException;
 import com.fpt.h2s.repositories.AccommodationRepository;
 import com.fpt.h2s.repositories.RoomRepository;
-import com.fpt.h2s.repositories.projections.IdHolder;
+import com.fpt.h2s.services.AccommodationFacetIndex;
+import com.fpt.h2s.services.AccommodationGeoIndex;
+import com.fpt.h2s.services.AccommodationPriceIndex;
+import com.fpt.h2s.services.AccommodationRankingIndex;
+import com.fpt.h2s.services.RoomAvailabilityIndex;
+import com.fpt.h2s.services.RoomPropertyIndex;
+import com.fpt.h2s.services.SearchMetrics;
+import com.fpt.h2s.services.SearchProfile;
+import com.fpt.h2s.services.SearchProfile.Source;
+import com.fpt.h2s.services.SearchResultCache;
+import com.fpt.h2s.services.SearchResultCache.CachedPage;
 import com.fpt.h2s.services.commands.BaseCommand;
 import com.fpt.h2s.services.commands.accommodation.SearchAccommodationAvailableRoomsCommand.CriteriaRequest;
 import com.fpt.h2s.services.commands.responses.AccommodationResponse;
 import com.fpt.h2s.utilities.FluentSearch;
+import com.fpt.h2s.utilities.Keyset;
 import com.fpt.h2s.utilities.LocalDateTimes;
+import com.fpt.h2s.utilities.Mappers;
 import com.fpt.h2s.utilities.MoreStrings;
-import com.fpt.h2s.utilities.QueryValues;
+import com.fpt.h2s.utilities.ParallelSearch;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.experimental.FieldNameConstants;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.JpaSort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.sql.Timestamp;
@@ -44,23 +57,80 @@ public class SearchAccommodationCommand implements BaseCommand<SearchAccommodati
 
     private static final Set<Integer> ALL_IDS = null;
     private static final Set<Integer> NO_IDS_FOUND = Collections.emptySet();
+    private static final long MAX_PRICE = 500_000_000L;
 
     private final AccommodationRepository accommodationRepository;
     private final RoomRepository roomRepository;
     private final AccommodationAdapter adapter;
+    private final AccommodationFacetIndex facetIndex;
+    private final AccommodationGeoIndex geoIndex;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final AccommodationPriceIndex priceIndex;
+    private final RoomPropertyIndex roomPropertyIndex;
+    private final AccommodationRankingIndex rankingIndex;
+    private final SearchResultCache searchResultCache;
+    private final SearchMetrics searchMetrics;
 
     @Override
     public ApiResponse<ListResult<AccommodationResponse>> execute(final Request request) {
-        Page<Accommodation> page = FluentSearch
-            .start(() -> searchAccommodationsHavingViewsIn(request.getViewIds()))
-            .then((ids) -> searchAccommodationsHavingMapLocationNear(request.getCoordinate(), ids))
-            .then((ids) -> searchAccommodationsHavingAmenitiesIn(request.getAmenityIds(), ids))
-            .then((ids) -> searchAccommodationsHavingRoomsMetDetails(request, ids))
-            .then((ids) -> searchAccommodationsByTypeWithPaging(request.types, request.toPageRequest(), ids))
+        final SearchProfile profile = new SearchProfile();
+        final Optional<SearchResultCache.Key> cacheKey = searchResultCache.keyOf("accommodations", request.toCanonicalString());
+        final ListResult<Accommodation> result = cacheKey
+            .flatMap(key -> profile.run("cache", Source.CACHE, null, () -> searchResultCache.get(key.value()), cachedPage -> cachedPage.map(page -> page.ids().size()).orElse(0)))
+            .map(cachedPage -> resultOf(cachedPage, request))
+            .orElseGet(() -> {
+                final ListResult<Accommodation> foundResult = search(request, profile);
+                cacheKey.filter(SearchResultCache.Key::isStorable).ifPresent(key -> searchResultCache.put(key.value(), new CachedPage(ListEx.listOf(foundResult.getItems(), Accommodation::getId), foundResult.getTotalItems(), foundResult.getNextCursor())));
+                return foundResult;
+            });
+        searchMetrics.record(profile);
+
+        return ApiResponse.success(result.withContent(this.adapter.responsesOf(result.getItems())));
+    }
+
+    /**
+     * Search without reading cached results, and report the work done by every stage.
+     */
+    public ApiResponse<Explanation> explain(final Request request) {
+        final SearchProfile profile = new SearchProfile();
+        final long start = System.nanoTime();
+        final ListResult<Accommodation> result = search(request, profile);
+        final double totalMillis = (System.nanoTime() - start) / 1e6;
+        searchMetrics.record(profile);
+
+        return ApiResponse.success(new Explanation(result.withContent(this.adapter.responsesOf(result.getItems())), totalMillis, profile.getStages()));
+    }
+
+    private ListResult<Accommodation> resultOf(CachedPage cachedPage, Request request) {
+        List<Accommodation> content = findAllInOrder(cachedPage.ids());
+        if (cachedPage.totalItems() == null) {
+            PageRequest pageable = PageRequest.of(0, request.toPageRequest().getPageSize());
+            return ListResult.of(new SliceImpl<>(content, pageable, cachedPage.nextCursor() != null), cachedPage.nextCursor());
+        }
+        return ListResult.of(new PageImpl<>(content, request.toPageRequest(), cachedPage.totalItems())).withNextCursor(cachedPage.nextCursor());
+    }
+
+    private ListResult<Accommodation> search(final Request request, final SearchProfile profile) {
+        ParallelSearch.Result<Integer> filtered = ParallelSearch
+            .start("views", () -> profile.run("views", Source.INDEX, ALL_IDS, () -> searchAccommodationsHavingViewsIn(request.getViewIds())))
+            .and("location", () -> profile.run("location", Source.INDEX, ALL_IDS, () -> searchAccommodationsHavingMapLocationWithin(request.getCoordinate())))
+            .and("amenities", () -> profile.run("amenities", Source.INDEX, ALL_IDS, () -> searchAccommodationsHavingAmenitiesIn(request.getAmenityIds(), ALL_IDS)))
+            .and("rooms", () -> searchAccommodationsHavingRoomsMetDetails(request, ALL_IDS, profile))
+            .get();
+
+        Set<Integer> accommodationIds = FluentSearch
+            .start(filtered::getIds)
+            .then((ids) -> profile.run("types", Source.INDEX, ids, () -> searchOpeningAccommodationsOfTypes(request.types, ids)))
+            .then((ids) -> profile.run("nearest", Source.INDEX, ids, () -> searchAccommodationsNearestTo(request.getCoordinate(), ids)))
             .get();
 
-        final ListResult<AccommodationResponse> response = ListResult.of(page).withContent(this.adapter.responsesOf(page.getContent()));
-        return ApiResponse.success(response);
+        Cursor cursor = request.toCursor();
+        if (cursor == null) {
+            // Ranked pages are cut by the ranking index, the database only loads their accommodations by id.
+            Source source = request.isOrderedByRanking() ? Source.INDEX : Source.DATABASE;
+            return profile.run("page", source, accommodationIds, () -> readPageOf(accommodationIds, request), page -> page.getItems().size());
+        }
+        return profile.run("page", Source.DATABASE, accommodationIds, () -> readAfter(cursor, accommodationIds, request), page -> page.getItems().size());
     }
 
     private Set<Integer> searchAccommodationsHavingViewsIn(List<Integer> viewIds) {
@@ -68,7 +138,7 @@ public class SearchAccommodationCommand implements BaseCommand<SearchAccommodati
         if (cleanViewIds.isEmpty()) {
             return ALL_IDS;
         }
-        return IdHolder.unwrapList(accommodationRepository.findAllByViewIdsIn(cleanViewIds, cleanViewIds.size()));
+        return facetIndex.findAllHavingCategories(Category.Type.LOCATION, cleanViewIds, ALL_IDS);
     }
 
     private Set<Integer> searchAccommodationsHavingAmenitiesIn(final List<Integer> categoryIds, Set<Integer> previousQueryFoundIds) {
@@ -78,54 +148,61 @@ public class SearchAccommodationCommand implements BaseCommand<SearchAccommodati
         if (previousQueryFoundIds != ALL_IDS && previousQueryFoundIds.isEmpty()) {
             return NO_IDS_FOUND;
         }
-        List<IdHolder> ids = this.accommodationRepository.findAllByRoomHavingAmenities(ListEx.listOf(categoryIds), categoryIds.size(), QueryValues.integerList(previousQueryFoundIds));
-        return IdHolder.unwrapList(ids);
+        return facetIndex.findAllHavingCategories(Category.Type.AMENITY, StreamEx.from(categoryIds).filter(Objects::nonNull).toList(), previousQueryFoundIds);
+    }
+
+    private Set<Integer> searchAccommodationsHavingMapLocationWithin(Request.Coordinate coordinate) {
+        if (coordinate == null || coordinate.lng() == null || coordinate.lat() == null || coordinate.range() == null) {
+            return ALL_IDS;
+        }
+
+        if (coordinate.nearest() != null) {
+            // Nearest accommodations are picked among the ones matching every other filter.
+            return ALL_IDS;
+        }
+
+        return geoIndex.findAllWithin(coordinate.lat(), coordinate.lng(), coordinate.range(), ALL_IDS);
     }
 
-    private Set<Integer> searchAccommodationsHavingMapLocationNear(Request.Coordinate coordinate, Set<Integer> previousQueryFoundIds) {
+    private Set<Integer> searchAccommodationsNearestTo(Request.Coordinate coordinate, Set<Integer> previousQueryFoundIds) {
         if (previousQueryFoundIds != ALL_IDS && previousQueryFoundIds.isEmpty()) {
             return NO_IDS_FOUND;
         }
 
-        if (coordinate == null || coordinate.lng() == null || coordinate.lat() == null || coordinate.range() == null) {
+        if (coordinate == null || coordinate.lng() == null || coordinate.lat() == null || coordinate.nearest() == null) {
             return previousQueryFoundIds;
         }
 
-        List<IdHolder> ids = accommodationRepository.findAccommodationsByCoordinateNear(
-            coordinate.lng(),
-            coordinate.lat(),
-            coordinate.range(),
-            QueryValues.integerList(previousQueryFoundIds)
-        );
-        return IdHolder.unwrapList(ids);
+        double range = Optional.ofNullable(coordinate.range()).orElse(Double.MAX_VALUE);
+        List<Integer> ids = geoIndex.findNearest(coordinate.lat(), coordinate.lng(), coordinate.nearest(), range, previousQueryFoundIds);
+        return SetEx.setOf(ids);
     }
 
-    private Set<Integer> searchAccommodationsHavingRoomsMetDetails(Request request, Set<Integer> previousQueryFoundIds) {
+    private Set<Integer> searchAccommodationsHavingRoomsMetDetails(Request request, Set<Integer> previousQueryFoundIds, SearchProfile profile) {
         if (previousQueryFoundIds != ALL_IDS && previousQueryFoundIds.isEmpty()) {
             return NO_IDS_FOUND;
         }
 
         return FluentSearch
-            .start(() -> searchRoomsHavingDetailsMet(request.getCriteriaList()))
-            .then(roomIds -> searchAccommodationsHavingRoomsAvailableFor(request, roomIds, previousQueryFoundIds))
+            .start(() -> searchRoomsHavingDetailsMet(request.getCriteriaList(), profile))
+            .then(roomIds -> searchAccommodationsHavingRoomsAvailableFor(request, roomIds, previousQueryFoundIds, profile))
             .get();
     }
 
-    private Set<Integer> searchRoomsHavingDetailsMet(List<CriteriaRequest> criteriaList) {
-        final Specification<RoomProperty> criteria = StreamEx
-            .from(criteriaList)
-            .map(CriteriaRequest::toSpecification)
-            .reduce(Specification::and)
-            .orElse(null);
-
-        if (criteria == null) {
+    private Set<Integer> searchRoomsHavingDetailsMet(List<CriteriaRequest> criteriaList, SearchProfile profile) {
+        final List<CriteriaRequest> cleanCriteriaList = StreamEx.from(criteriaList).filter(Objects::nonNull).toList();
+        if (cleanCriteriaList.isEmpty()) {
             return ALL_IDS;
         }
 
-        return roomRepository.getRoomsThatMeet(criteria, criteriaList.size());
+        final List<RoomPropertyIndex.Condition> indexConditions = ListEx.listOf(cleanCriteriaList, CriteriaRequest::toIndexCondition);
+        if (indexConditions.stream().allMatch(Objects::nonNull)) {
+            return profile.run("room-criteria", Source.INDEX, ALL_IDS, () -> roomPropertyIndex.findAllThatMeet(indexConditions, ALL_IDS));
+        }
+        return profile.run("room-criteria", Source.DATABASE, ALL_IDS, () -> roomRepository.getRoomsThatMeet(ListEx.listOf(cleanCriteriaList, CriteriaRequest::toSqlCondition)));
     }
 
-    private Set<Integer> searchAccommodationsHavingRoomsAvailableFor(Request request, Set<Integer> roomIds, Set<Integer> previousQueryFoundIds) {
+    private Set<Integer> searchAccommodationsHavingRoomsAvailableFor(Request request, Set<Integer> roomIds, Set<Integer> previousQueryFoundIds, SearchProfile profile) {
         if (previousQueryFoundIds != ALL_IDS && previousQueryFoundIds.isEmpty()) {
             return NO_IDS_FOUND;
         }
@@ -139,7 +216,15 @@ public class SearchAccommodationCommand implements BaseCommand<SearchAccommodati
                 return previousQueryFoundIds;
             }
 
-            Set<Integer> accommodationIdsHavingRoomsMet = roomRepository.findAllById(roomIds).stream().map(Room::getAccommodationId).collect(Collectors.toSet());
+            Set<Integer> accommodationIdsHavingRoomsMet = profile.run(
+                "room-accommodations",
+                Source.DATABASE,
+                roomIds,
+                () -> roomRepository.findAllAccommodationIdsOf(roomIds)
+            );
+            if (previousQueryFoundIds == ALL_IDS) {
+                return accommodationIdsHavingRoomsMet;
+            }
             List<Integer> accommodationsThatExistingInBoth = ListEx.inBothList(ListEx.listOf(accommodationIdsHavingRoomsMet), ListEx.listOf(previousQueryFoundIds));
             return SetEx.setOf(accommodationsThatExistingInBoth);
         }
@@ -152,15 +237,45 @@ public class SearchAccommodationCommand implements BaseCommand<SearchAccommodati
             Timestamp.valueOf(LocalDateTimes.startDayOf(request.getDates().getEnd()).minusDays(1))
         );
 
-        List<IdHolder> accommodationIdsFound = accommodationRepository.findAllAccommodationsThatHavingRoomsMeet(
-            dateRange.getStart(),
-            dateRange.getEnd(),
+        Set<Integer> accommodationIdsMayMeetPrice = profile.run("price-bounds", Source.INDEX, previousQueryFoundIds, () -> searchAccommodationsWhosePricesMayMeet(priceRange, dateRange, request, previousQueryFoundIds));
+        if (accommodationIdsMayMeetPrice != ALL_IDS && accommodationIdsMayMeetPrice.isEmpty()) {
+            return NO_IDS_FOUND;
+        }
+        Set<Integer> candidateRoomIds = accommodationIdsMayMeetPrice == ALL_IDS
+            ? roomIds
+            : profile.run("price-bounds-rooms", Source.INDEX, roomIds, () -> searchRoomsOf(accommodationIdsMayMeetPrice, roomIds));
+
+        Set<Integer> roomIdsMeetingPrice = profile.run("room-prices", Source.DATABASE, candidateRoomIds, () -> searchRoomIdsMeetingPriceIn(priceRange, dateRange, request, candidateRoomIds));
+        return profile.run("availability", Source.INDEX, roomIdsMeetingPrice, () -> availabilityIndex.findAllHavingFreeRooms(
+            request.getDates().getStart(),
+            request.getDates().getEnd(),
             totalRooms,
-            QueryValues.integerList(searchRoomIdsMeetingPriceIn(priceRange, dateRange, request, roomIds)),
-            QueryValues.integerList(previousQueryFoundIds)
+            roomIdsMeetingPrice,
+            accommodationIdsMayMeetPrice == ALL_IDS ? previousQueryFoundIds : accommodationIdsMayMeetPrice
+        ));
+    }
+
+    /**
+     * Discard accommodations whose upcoming price bounds cannot meet the price range, before computing prices of their rooms.
+     */
+    private Set<Integer> searchAccommodationsWhosePricesMayMeet(Range<Long> priceRange, Range<Timestamp> dateRange, Request request, Set<Integer> previousQueryFoundIds) {
+        return priceIndex.findAllWhosePricesMayBeBetween(
+            priceRange.getStartOr(0L),
+            priceRange.getEndOr(MAX_PRICE),
+            dateRange.getStart().toLocalDateTime().toLocalDate(),
+            dateRange.getEnd().toLocalDateTime().toLocalDate(),
+            request.isSearchTotalPrice(),
+            previousQueryFoundIds
         );
+    }
 
-        return IdHolder.unwrapList(accommodationIdsFound);
+    private Set<Integer> searchRoomsOf(Set<Integer> accommodationIds, Set<Integer> previousQueryFoundRoomIds) {
+        Set<Integer> roomIdsOfAccommodations = availabilityIndex.findAllRoomIdsOf(accommodationIds);
+        if (previousQueryFoundRoomIds == ALL_IDS) {
+            return roomIdsOfAccommodations;
+        }
+        roomIdsOfAccommodations.retainAll(previousQueryFoundRoomIds);
+        return roomIdsOfAccommodations;
     }
 
     private Set<Integer> searchRoomIdsMeetingPriceIn(Range<Long> priceRange, Range<Timestamp> dateRange, Request request, Collection<Integer> roomIds) {
@@ -171,31 +286,83 @@ public class SearchAccommodationCommand implements BaseCommand<SearchAccommodati
         if (request.isSearchTotalPrice()) {
             return roomRepository.findAllRoomsHavingTotalPriceBetween(
                 priceRange.getStartOr(0L),
-                priceRange.getEndOr(500_000_000L),
+                priceRange.getEndOr(MAX_PRICE),
                 dateRange.getStart(),
                 dateRange.getEnd(),
-                QueryValues.integerList(roomIds)
+                roomIds
             );
         }
 
         return roomRepository.findAllRoomsHavingEveryDayPriceBetween(
             priceRange.getStartOr(0L),
-            priceRange.getEndOr(500_000_000L),
+            priceRange.getEndOr(MAX_PRICE),
             dateRange.getStart(),
             dateRange.getEnd(),
-            QueryValues.integerList(roomIds)
+            roomIds
+        );
+    }
+
+    private Set<Integer> searchOpeningAccommodationsOfTypes(List<Accommodation.Type> types, Set<Integer> previousQueryFoundIds) {
+        return facetIndex.findAllThatMeet(
+            ListEx.listOf(types),
+            List.of(Accommodation.Status.OPENING),
+            previousQueryFoundIds
         );
     }
 
-    private Page<Accommodation> searchAccommodationsByTypeWithPaging(List<Accommodation.Type> types, PageRequest pageable, Set<Integer> previousQueryFoundIds) {
-        return this.accommodationRepository.findAllThatMeet(
-            QueryValues.enumListOf(types),
-            QueryValues.enumListOf(List.of(Accommodation.Status.OPENING)),
-            QueryValues.integerList(previousQueryFoundIds),
-            pageable
+    private ListResult<Accommodation> readPageOf(Set<Integer> accommodationIds, Request request) {
+        PageRequest pageable = request.toPageRequest();
+        if (accommodationIds.isEmpty()) {
+            return ListResult.of(Page.empty(pageable));
+        }
+        Page<Accommodation> page = request.isOrderedByRanking()
+            ? readRankedPageOf(accommodationIds, request, pageable)
+            : this.accommodationRepository.findAllByIdIn(accommodationIds, pageable);
+        if (!page.hasNext()) {
+            return ListResult.of(page);
+        }
+
+        // Let clients continue scrolling by cursor after the first page.
+        Accommodation last = page.getContent().get(page.getNumberOfElements() - 1);
+        return ListResult.of(page).withNextCursor(Keyset.cursorAt(Accommodation.class, request.toKeysetOrder(), last.getId()).encode());
+    }
+
+    private Page<Accommodation> readRankedPageOf(Set<Integer> accommodationIds, Request request, PageRequest pageable) {
+        List<Integer> pageIds = rankingIndex.findPage(accommodationIds, !request.isDescendingOrder(), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(findAllInOrder(pageIds), pageable, accommodationIds.size());
+    }
+
+    private List<Accommodation> findAllInOrder(List<Integer> accommodationIds) {
+        Map<Integer, Accommodation> accommodations = accommodationRepository
+            .findAllById(accommodationIds)
+            .stream()
+            .collect(Collectors.toMap(Accommodation::getId, accommodation -> accommodation));
+        return StreamEx.from(accommodationIds).map(accommodations::get).filter(Objects::nonNull).toList();
+    }
+
+    private ListResult<Accommodation> readAfter(Cursor cursor, Set<Integer> accommodationIds, Request request) {
+        int size = request.toPageRequest().getPageSize();
+        if (accommodationIds.isEmpty()) {
+            return ListResult.of(new SliceImpl<>(List.of(), PageRequest.of(0, size), false), null);
+        }
+        return Keyset.findAllAfter(
+            Accommodation.class,
+            Keyset.idIn(accommodationIds),
+            request.toKeysetOrder(),
+            cursor,
+            size
         );
     }
 
+    /**
+     * @param result      same result as a search reading no cache.
+     * @param totalMillis time spent searching, without building responses.
+     * @param stages      work done by every stage, concurrent stages overlap.
+     */
+    public record Explanation(ListResult<AccommodationResponse> result, double totalMillis, List<SearchProfile.Stage> stages) {
+
+    }
+
     @Getter
     @Builder(toBuilder = true)
     @FieldNameConstants
@@ -203,6 +370,7 @@ public class SearchAccommodationCommand implements BaseCommand<SearchAccommodati
     @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY, creatorVisibility = JsonAutoDetect.Visibility.ANY)
     public static class Request extends SearchRequest {
         private static final Set<Object> REQUIRED_ORDERS = Set.of(Accommodation.Fields.reviewRate, Accommodation.Fields.totalViews);
+        private static final String RANKING_SCORE = "rankingScore";
         private String orderBy;
         private Boolean isDescending;
         private Integer size;
@@ -215,18 +383,29 @@ public class SearchAccommodationCommand implements BaseCommand<SearchAccommodati
         private List<Integer> amenityIds;
         private List<Integer> viewIds;
         private boolean searchTotalPrice;
+        /**
+         * Opaque position returned as nextCursor, when set the page number is ignored and items are not counted.
+         */
+        private String cursor;
 
-        private record Coordinate(Double lng, Double lat, Double range) {
+        /**
+         * @param range   radius in miles.
+         * @param nearest when set, only keep this number of accommodations nearest to the point, range becomes optional.
+         */
+        private record Coordinate(Double lng, Double lat, Double range, Integer nearest) {
 
         }
 
         private final List<CriteriaRequest> criteriaList;
 
+        /**
+         * Sort key of {@link #toKeysetOrder()} written in SQL, qualified because the large-list page read joins another table having an id.
+         */
         private static String orderByOf(final String orderBy) {
             if (orderBy == null || orderBy.equals(Accommodation.Fields.totalViews)) {
-                return "total_bookings * (1 + (review_rate / 5))";
+                return "COALESCE(accommodations.ranking_score, 0)";
             }
-            return MoreStrings.snakeCaseOf(orderBy);
+            return "COALESCE(accommodations.%s, 0)".formatted(MoreStrings.snakeCaseOf(orderBy));
         }
 
         @Override
@@ -241,7 +420,70 @@ public class SearchAccommodationCommand implements BaseCommand<SearchAccommodati
 
             final Boolean descending = Optional.ofNullable(this.getIsDescending()).orElse(true);
             final Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
-            return PageRequest.of(page - 1, size, JpaSort.unsafe(direction, orderBy));
+            return PageRequest.of(page - 1, size, JpaSort.unsafe(direction, orderBy, "accommodations.id"));
+        }
+
+        private boolean isOrderedByRanking() {
+            return this.getOrderBy() == null || this.getOrderBy().equals(Accommodation.Fields.totalViews);
+        }
+
+        private boolean isDescendingOrder() {
+            return Optional.ofNullable(this.getIsDescending()).orElse(true);
+        }
+
+        /**
+         * Same ordering as {@link #toPageRequest()}, written for seek pagination.
+         */
+        public Keyset.Order<Accommodation> toKeysetOrder() {
+            final boolean ascending = !this.isDescendingOrder();
+            if (!this.isOrderedByRanking()) {
+                return new Keyset.Order<>(
+                    Accommodation.Fields.reviewRate,
+                    ascending,
+                    (root, cb) -> cb.coalesce(root.<Float>get(Accommodation.Fields.reviewRate), 0F)
+                );
+            }
+            return new Keyset.Order<>(
+                RANKING_SCORE,
+                ascending,
+                (root, cb) -> cb.coalesce(root.<Double>get(Accommodation.Fields.rankingScore), 0D)
+            );
+        }
+
+        /**
+         * Write the request so that requests searching for the same results are written the same way.
+         */
+        public String toCanonicalString() {
+            final PageRequest pageable = this.toPageRequest();
+            final Map<String, Object> values = new LinkedHashMap<>();
+            values.put(Fields.cursor, this.cursor);
+            values.put(Fields.page, this.cursor == null ? pageable.getPageNumber() : null);
+            values.put(Fields.size, pageable.getPageSize());
+            values.put(Fields.orderBy, pageable.getSort().toString());
+            values.put(Fields.types, StreamEx.from(this.types).filter(Objects::nonNull).map(Enum::name).distinct().sorted().toList());
+            values.put(Fields.amenityIds, sortedIdsOf(this.amenityIds));
+            values.put(Fields.viewIds, sortedIdsOf(this.viewIds));
+            if (this.coordinate != null) {
+                values.put(Fields.coordinate, Arrays.asList(this.coordinate.lng(), this.coordinate.lat(), this.coordinate.range(), this.coordinate.nearest()));
+            }
+            values.put(Fields.criteriaList, StreamEx
+                .from(this.criteriaList)
+                .filter(Objects::nonNull)
+                .map(criteria -> "%s|%s|%s".formatted(criteria.getKey(), criteria.getOperation(), Arrays.toString(criteria.getValue())))
+                .sorted()
+                .toList());
+            if (this.dates != null && this.dates.getStart() != null && this.dates.getEnd() != null) {
+                final Range<Long> prices = Optional.ofNullable(this.priceRange).orElse(Range.blank());
+                values.put(Fields.dates, List.of(LocalDateTimes.startDayOf(this.dates.getStart()).toLocalDate(), LocalDateTimes.startDayOf(this.dates.getEnd()).toLocalDate()));
+                values.put(Fields.totalRooms, Optional.ofNullable(this.totalRooms).orElse(0));
+                values.put(Fields.priceRange, List.of(prices.getStartOr(0L), prices.getEndOr(MAX_PRICE)));
+                values.put(Fields.searchTotalPrice, this.searchTotalPrice);
+            }
+            return Mappers.jsonOf(values);
+        }
+
+        private static List<Integer> sortedIdsOf(final List<Integer> ids) {
+            return StreamEx.from(ids).filter(Objects::nonNull).distinct().sorted().toList();
         }
     }
 
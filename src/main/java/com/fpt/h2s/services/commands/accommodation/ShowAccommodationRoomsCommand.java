@@ -57,16 +57,9 @@ public class ShowAccommodationRoomsCommand implements BaseCommand<ShowAccommodat
                 .build()
         ).toList();
 
-        cacheForLaterBook(responses);
         return ApiResponse.success(responses);
     }
 
-    private static void cacheForLaterBook(List<RoomResponse> responses) {
-        if (User.currentUserId().isPresent()) {
-            RedisRepository.set("search-rooms-%s".formatted(Tokens.getTokenFrom(MoreRequests.getCurrentHttpRequest())), responses);
-        }
-    }
-
     private Map<Integer, List<CategoryResponse>> getCategoriesMapToRoomId(Set<Integer> roomIds) {
         return this.categoryRepository
             .findAllByRoomsIds(roomIds)
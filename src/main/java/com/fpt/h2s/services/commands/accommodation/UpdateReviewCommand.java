@@ -111,7 +111,7 @@ public class UpdateReviewCommand implements BaseCommand<UpdateReviewCommand.Requ
     private Accommodation updateReviewCountFor(Accommodation accommodation) {
         Set<AccommodationReview> accommodationReviews = accommodation.getReviews();
         Float reviewRate = reviewRateOf(accommodationReviews);
-        Accommodation accommodationToUpdate = accommodation.withReviewRate(reviewRate).withTotalReviews(accommodationReviews.size());
+        Accommodation accommodationToUpdate = accommodation.withReviewRate(reviewRate).withTotalReviews(accommodationReviews.size()).withRankingScoreComputed();
         return accommodationRepository.save(accommodationToUpdate);
     }
 
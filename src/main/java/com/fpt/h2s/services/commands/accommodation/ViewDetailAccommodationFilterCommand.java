@@ -5,7 +5,10 @@ import com.fpt.h2s.models.domains.ApiResponse;
 import com.fpt.h2s.models.entities.Accommodation;
 import com.fpt.h2s.models.entities.Property;
 import com.fpt.h2s.models.entities.Room;
+import com.fpt.h2s.models.entities.RoomOccupancy;
 import com.fpt.h2s.repositories.*;
+import com.fpt.h2s.services.RoomPriceEngine;
+import com.fpt.h2s.services.RoomPropertyIndex;
 import com.fpt.h2s.services.commands.BaseCommand;
 import com.fpt.h2s.services.commands.requests.DetailAccommodationFilterRequest;
 import com.fpt.h2s.services.commands.responses.*;
@@ -14,8 +17,11 @@ import org.springframework.stereotype.Service;
 
 import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -24,12 +30,17 @@ import java.util.stream.Collectors;
 public class ViewDetailAccommodationFilterCommand implements
         BaseCommand<DetailAccommodationFilterRequest, DetailAccommodationResponse> {
 
+    private static final int BEDS_KEY_ID = 1;
+    private static final int ADULTS_KEY_ID = 4;
+    private static final int CHILDREN_KEY_ID = 5;
+    private static final int PETS_KEY_ID = 6;
+
     private final AccommodationRepository accommodationRepository;
     private final RoomPropertyRepository roomPropertyRepository;
     private final RoomRepository roomRepository;
-    private final BookingRequestRepository bookingRequestRepository;
-    private final PriceHistoryRepository priceHistoryRepository;
-    private Integer duration;
+    private final RoomPropertyIndex roomPropertyIndex;
+    private final RoomOccupancyRepository roomOccupancyRepository;
+    private final RoomPriceEngine roomPriceEngine;
 
     @Override
     public ApiResponse<DetailAccommodationResponse> execute(final DetailAccommodationFilterRequest request) {
@@ -39,19 +50,22 @@ public class ViewDetailAccommodationFilterCommand implements
 
     private DetailAccommodationResponse getAccommodationDetail(final DetailAccommodationFilterRequest request) {
         final Accommodation accommodation = this.accommodationRepository.findById(request.getId()).orElseThrow();
-        final List<Room> rooms = this.roomRepository.findRoomByProperty(
-                request.getNumberOfBeds(),
-                request.getNumberOfAdults(),
-                request.getNumberOfChildren(),
-                request.getNumberOfPets(),
-                request.getId()
+        final Set<Integer> roomIds = this.roomPropertyIndex.findAllThatMeet(
+                List.of(
+                        new RoomPropertyIndex.Condition(BEDS_KEY_ID, beds -> beds >= request.getNumberOfBeds()),
+                        new RoomPropertyIndex.Condition(ADULTS_KEY_ID, adults -> adults >= request.getNumberOfAdults()),
+                        new RoomPropertyIndex.Condition(CHILDREN_KEY_ID, children -> children >= request.getNumberOfChildren()),
+                        new RoomPropertyIndex.Condition(PETS_KEY_ID, pets -> pets >= request.getNumberOfPets())
+                ),
+                List.of(request.getId())
         );
+        final List<Room> rooms = this.roomRepository.findAllById(roomIds);
         return DetailAccommodationResponse.of(
                 accommodation,
                 accommodation.getImages(),
                 accommodation.getCategories(),
                 (request.getCheckIn() == null && request.getCheckOut() == null) ? getRooms(rooms) : getRoomsWithDate(request, rooms),
-                (request.getCheckIn() == null && request.getCheckOut() == null) ? 0 : duration
+                (request.getCheckIn() == null && request.getCheckOut() == null) ? 0 : nightsOf(request)
         );
     }
 
@@ -73,14 +87,19 @@ public class ViewDetailAccommodationFilterCommand implements
 
     private Set<DetailAccommodationRoomResponse> getRoomsWithDate(final DetailAccommodationFilterRequest request,
                                                                   final List<Room> rooms) {
+        final Map<Integer, RoomPriceEngine.StayPrice> pricesMapToRoomId = this.roomPriceEngine.priceStays(
+                rooms.stream().map(Room::getId).toList(),
+                request.getCheckIn().toLocalDateTime().toLocalDate(),
+                request.getCheckOut().toLocalDateTime().toLocalDate().minusDays(1)
+        );
         return rooms.stream()
                 .map(room -> {
-                    DetailAccommodationRoomRemainingResponse remainingRoom = remainingRoomByDate(request, room.getId());
+                    DetailAccommodationRoomRemainingResponse remainingRoom = remainingRoomByDate(request, room);
                     return new DetailAccommodationRoomResponse(
                             room.getId(),
                             room.getName(),
                             room.getStatus(),
-                            getTotalBookingPrice(request.getCheckIn(), request.getCheckOut(), room.getId()),
+                            Optional.ofNullable(pricesMapToRoomId.get(room.getId())).map(RoomPriceEngine.StayPrice::displayPrice).orElse(0L),
                             room.getTotalRooms(),
                             getImages(room),
                             getProperties(room),
@@ -116,32 +135,46 @@ public class ViewDetailAccommodationFilterCommand implements
     }
 
 
+    /**
+     * @return the fewest units left between check-in and check-out days, counting only days with fewer units left than requested,
+     * null when every day has enough units.
+     */
     private DetailAccommodationRoomRemainingResponse remainingRoomByDate(final DetailAccommodationFilterRequest request,
-                                                                         final Integer roomId) {
-        final Object[][] result = this.bookingRequestRepository.
-                getBookingResultsByRoomIdCheckInCheckOut(
-                        roomId,
-                        request.getCheckIn(),
-                        request.getCheckOut(),
-                        request.getTotalRoomBook()
-                );
-
-        if (result[0][0] == null || result[0][1] == null || result[0][2] == null) return null;
-        return DetailAccommodationRoomRemainingResponse.of(result[0][0], result[0][1], result[0][2]);
+                                                                         final Room room) {
+        final LocalDate checkIn = request.getCheckIn().toLocalDateTime().toLocalDate();
+        final LocalDate checkOut = request.getCheckOut().toLocalDateTime().toLocalDate();
+        final Map<LocalDate, Integer> bookedUnitsMapToDate = this.roomOccupancyRepository
+                .findAllOf(room.getId(), checkIn, checkOut)
+                .stream()
+                .collect(Collectors.toMap(occupancy -> occupancy.getId().getDate(), RoomOccupancy::getBookedUnits));
+
+        final int totalRooms = Optional.ofNullable(room.getTotalRooms()).orElse(0);
+        Integer minRemainingRooms = null;
+        LocalDate firstDate = null;
+        LocalDate lastDate = null;
+        for (LocalDate date = checkIn; !date.isAfter(checkOut); date = date.plusDays(1)) {
+            final int remainingRooms = totalRooms - bookedUnitsMapToDate.getOrDefault(date, 0);
+            if (remainingRooms >= request.getTotalRoomBook()) {
+                continue;
+            }
+            minRemainingRooms = minRemainingRooms == null ? remainingRooms : Math.min(minRemainingRooms, remainingRooms);
+            firstDate = firstDate == null ? date : firstDate;
+            lastDate = date;
+        }
+
+        if (minRemainingRooms == null) return null;
+        return DetailAccommodationRoomRemainingResponse.builder()
+                .fromDate(Timestamp.valueOf(firstDate.atStartOfDay()))
+                .toDate(Timestamp.valueOf(lastDate.atStartOfDay()))
+                .totalRoomsRemaining(minRemainingRooms)
+                .build();
     }
 
-    private Long getTotalBookingPrice(final Timestamp checkInDate,
-                                      final Timestamp checkOutDate,
-                                      final Integer roomId) {
-        final LocalDate checkIn = checkInDate.toLocalDateTime().toLocalDate();
-        final LocalDate checkOut = checkOutDate.toLocalDateTime().toLocalDate();
-        final List<Object[]> results = this.priceHistoryRepository.getAmountByCheckInCheckOutDate(roomId, checkIn, checkOut);
-        duration = results.size();
-        return (long) results.stream()
-                .mapToDouble( result ->
-                        (1 - (Integer.parseInt(result[1].toString())* 0.01)) *
-                        Long.parseLong(result[2].toString()))
-                .sum();
+    private static int nightsOf(final DetailAccommodationFilterRequest request) {
+        return (int) ChronoUnit.DAYS.between(
+                request.getCheckIn().toLocalDateTime().toLocalDate(),
+                request.getCheckOut().toLocalDateTime().toLocalDate()
+        );
     }
 
 }
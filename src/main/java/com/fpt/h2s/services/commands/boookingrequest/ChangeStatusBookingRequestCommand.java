@@ -12,9 +12,11 @@ import com.fpt.h2s.repositories.BookingRequestRepository;
 import com.fpt.h2s.repositories.UserRepository;
 import com.fpt.h2s.services.NotificationService;
 import com.fpt.h2s.services.PaymentService;
+import com.fpt.h2s.services.RoomOccupancyLedger;
 import com.fpt.h2s.services.commands.BaseCommand;
 import com.fpt.h2s.services.commands.responses.BookingRequestResponse;
 import com.fpt.h2s.workers.MailWorker;
+import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.*;
@@ -29,6 +31,7 @@ import java.util.Set;
 
 
 @Service
+@Transactional
 @RequiredArgsConstructor
 public class ChangeStatusBookingRequestCommand implements BaseCommand<ChangeStatusBookingRequestCommand.ChangeStatusBookingRequestRequest, BookingRequestResponse> {
     private final BookingRequestRepository bookingRequestRepository;
@@ -36,6 +39,7 @@ public class ChangeStatusBookingRequestCommand implements BaseCommand<ChangeStat
     private final MailWorker mailWorker;
     private final PaymentService paymentService;
     private final NotificationService notificationService;
+    private final RoomOccupancyLedger roomOccupancyLedger;
 
     private static final Map<BookingRequest.Status, Set<BookingRequest.Status>> nextStatusesMapToCurrentStatus = Map.ofEntries(
             Map.entry(BookingRequest.Status.PURCHASED, Set.of(BookingRequest.Status.CANCELED))
@@ -98,6 +102,7 @@ public class ChangeStatusBookingRequestCommand implements BaseCommand<ChangeStat
 
         BookingRequest bookingRequestToChange = bookingRequest.toBuilder().status(request.getStatus()).build();
         this.bookingRequestRepository.save(bookingRequestToChange);
+        this.roomOccupancyLedger.refreshBookingAfterCommit(bookingRequestToChange);
 
         if(currentUser.is(User.Role.BUSINESS_ADMIN)) {
             sendMail(bookingRequestToChange, currentUser);
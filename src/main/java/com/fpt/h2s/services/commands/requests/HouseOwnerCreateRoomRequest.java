@@ -172,33 +172,12 @@ public class HouseOwnerCreateRoomRequest extends BaseRequest {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Price bounds are refreshed with the room prices, by {@link com.fpt.h2s.services.AccommodationPriceBounds}.
+     */
     public Optional<Accommodation> toAccommodation(final Accommodation originAccommodation,
                                                    final Room savedRoom) {
         Integer updatedTotalRooms = originAccommodation.getTotalRoom() + count;
-        final Long originMinPrice = originAccommodation.getMinPrice();
-        final Long originMaxPrice = originAccommodation.getMaxPrice();
-        if (savedRoom.getId() > 0) {
-            long updatedMinPrice = 0L;
-            Long updatedMaxPrice = 0L;
-            if (originMinPrice == 0L && originMaxPrice == 0L) {
-                updatedMinPrice = (this.price);
-                updatedMaxPrice = (this.price);
-            } else if (originMinPrice > this.price) {
-                updatedMinPrice = (this.price);
-                updatedMaxPrice = originMaxPrice;
-            } else if (originMaxPrice < this.price) {
-                updatedMinPrice = originMinPrice;
-                updatedMaxPrice = (this.price);
-            }
-            if (updatedMaxPrice != 0L && updatedMinPrice != 0L) {
-                return Optional.ofNullable(originAccommodation
-                        .toBuilder()
-                        .minPrice(updatedMinPrice)
-                        .maxPrice(updatedMaxPrice)
-                        .totalRoom(updatedTotalRooms)
-                        .build());
-            }
-        }
         return Optional.ofNullable(originAccommodation
                 .toBuilder()
                 .totalRoom(updatedTotalRooms)
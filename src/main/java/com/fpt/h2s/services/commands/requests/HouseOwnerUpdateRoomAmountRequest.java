@@ -8,6 +8,7 @@ import com.fpt.h2s.models.exceptions.ApiException;
 import com.fpt.h2s.repositories.AccommodationRepository;
 import com.fpt.h2s.repositories.ContractRepository;
 import com.fpt.h2s.repositories.RoomRepository;
+import com.fpt.h2s.services.CustomPriceRuleService;
 import com.fpt.h2s.utilities.MoreStrings;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
@@ -46,44 +47,10 @@ public class HouseOwnerUpdateRoomAmountRequest extends BaseRequest {
     @Nullable
     private LocalDate toDate;
 
-    public PriceHistory toAmount(LocalDate from, LocalDate to) {
-        return PriceHistory.builder()
-                .roomId(this.roomId)
-                .type(this.type)
-                .dayType(PriceHistory.DayType.CUSTOM)
-                .amount(this.amount)
-                .fromDate(from == null ? this.fromDate : from)
-                .toDate(to == null? this.toDate : to)
-                .build();
+    public CustomPriceRuleService.Change toChange() {
+        return new CustomPriceRuleService.Change(this.roomId, this.type, this.amount, this.fromDate, this.toDate);
     }
 
-    public PriceHistory toFromDate(PriceHistory originPriceHistory) {
-        return originPriceHistory
-                .toBuilder()
-                .fromDate(this.toDate.plusDays(1))
-                .build();
-    }
-
-    public PriceHistory toToDate(PriceHistory originPriceHistory) {
-        return originPriceHistory
-                .toBuilder()
-                .toDate(this.fromDate.minusDays(1))
-                .build();
-    }
-
-    public PriceHistory toNewFromDate(PriceHistory originPriceHistory) {
-        return PriceHistory.builder()
-                .fromDate(this.toDate.plusDays(1))
-                .toDate(originPriceHistory.getToDate())
-                .amount(originPriceHistory.getAmount())
-                .roomId(originPriceHistory.getRoomId())
-                .type(originPriceHistory.getType())
-                .dayType(originPriceHistory.getDayType())
-                .build();
-    }
-
-
-
     @Component
     @RequiredArgsConstructor
     public static class Validator extends BaseValidator<HouseOwnerUpdateRoomAmountRequest> {
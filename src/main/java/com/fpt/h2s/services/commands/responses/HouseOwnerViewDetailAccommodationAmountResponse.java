@@ -2,7 +2,6 @@ package com.fpt.h2s.services.commands.responses;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fpt.h2s.models.entities.PriceHistory;
-import com.fpt.h2s.repositories.projections.PriceHistoryType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -21,16 +20,4 @@ public class HouseOwnerViewDetailAccommodationAmountResponse {
     private Integer amount;
     private Integer price;
 
-    public static HouseOwnerViewDetailAccommodationAmountResponse of(PriceHistoryType priceHistoryType) {
-      return HouseOwnerViewDetailAccommodationAmountResponse.builder()
-              .id(priceHistoryType.getId())
-              .roomId(priceHistoryType.getRoomId())
-              .type(priceHistoryType.getType())
-              .dayType(priceHistoryType.getDayType())
-              .fromDate(priceHistoryType.getFromDate())
-              .toDate(priceHistoryType.getToDate())
-              .amount(priceHistoryType.getAmount())
-              .price(priceHistoryType.getPrice())
-              .build();
-    }
 }
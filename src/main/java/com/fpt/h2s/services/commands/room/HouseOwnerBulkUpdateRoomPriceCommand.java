@@ -0,0 +1,173 @@
+package com.fpt.h2s.services.commands.room;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fpt.h2s.models.domains.ApiResponse;
+import com.fpt.h2s.models.domains.BaseRequest;
+import com.fpt.h2s.models.domains.BaseValidator;
+import com.fpt.h2s.models.entities.*;
+import com.fpt.h2s.models.exceptions.ApiException;
+import com.fpt.h2s.repositories.AccommodationRepository;
+import com.fpt.h2s.repositories.ContractRepository;
+import com.fpt.h2s.repositories.RoomRepository;
+import com.fpt.h2s.services.CustomPriceRuleService;
+import com.fpt.h2s.services.commands.BaseCommand;
+import com.fpt.h2s.utilities.MoreStrings;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+import lombok.experimental.FieldNameConstants;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Apply many price ranges to many rooms at once, such as the prices of a holiday for a whole accommodation.
+ */
+@Service
+@RequiredArgsConstructor
+public class HouseOwnerBulkUpdateRoomPriceCommand
+        implements BaseCommand<HouseOwnerBulkUpdateRoomPriceCommand.Request, Void> {
+
+    private final CustomPriceRuleService customPriceRuleService;
+
+    @Override
+    public ApiResponse<Void> execute(final Request request) {
+        final List<CustomPriceRuleService.Change> changes = new ArrayList<>();
+        for (final Integer roomId : new LinkedHashSet<>(request.getRoomIds())) {
+            request.getRanges().forEach(range -> changes.add(range.toChange(roomId)));
+        }
+        this.customPriceRuleService.apply(changes);
+        return ApiResponse.success("Áp dụng thay đổi giá phòng thành công");
+    }
+
+    @Getter
+    @Builder
+    @FieldNameConstants
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY, creatorVisibility = JsonAutoDetect.Visibility.ANY)
+    public static class Request extends BaseRequest {
+
+        private static final int MAX_CHANGES = 10000;
+
+        @NotEmpty(message = "Xin vui lòng chọn ít nhất một phòng.")
+        private List<Integer> roomIds;
+
+        /**
+         * Ranges are applied in order, a later range wins where it overlaps an earlier one.
+         */
+        @NotEmpty(message = "Xin vui lòng nhập ít nhất một khoảng thời gian thay đổi giá.")
+        private List<RangeRequest> ranges;
+
+        @Getter
+        @Builder
+        @AllArgsConstructor(access = AccessLevel.PRIVATE)
+        @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY, creatorVisibility = JsonAutoDetect.Visibility.ANY)
+        public static class RangeRequest {
+
+            private PriceHistory.Type type;
+
+            private Long amount;
+
+            private LocalDate fromDate;
+
+            @Nullable
+            private LocalDate toDate;
+
+            public CustomPriceRuleService.Change toChange(final Integer roomId) {
+                return new CustomPriceRuleService.Change(roomId, this.type, this.amount, this.fromDate, this.toDate);
+            }
+        }
+
+        @Component
+        @RequiredArgsConstructor
+        public static class Validator extends BaseValidator<Request> {
+            private final AccommodationRepository accommodationRepository;
+            private final RoomRepository roomRepository;
+            private final ContractRepository contractRepository;
+
+            @Override
+            protected void validate() {
+                this.rejectIfEmpty(Fields.roomIds, this::validateRoomIds);
+                this.rejectIfEmpty(Fields.ranges, this::validateRanges);
+            }
+
+            private String validateRoomIds() {
+                Integer houseOwnerId = User.currentUserId()
+                        .orElseThrow(() -> ApiException.badRequest("Phiên đăng nhập hết hạn. Xin vui lòng đăng nhập."));
+
+                final Contract contract = this.contractRepository.findContractByCreatorId(houseOwnerId);
+                if (contract == null) {
+                    return "Xin vui lòng đăng kí làm người cho thuê chỗ ở trước khi quản lí chỗ ở. Người dùng thuộc tài khoản công ty không được phép quản lý chỗ ở.";
+                }
+
+                if (contract.is(Contract.Status.PENDING) || contract.is(Contract.Status.REJECTED)) {
+                    return "Người dùng không thể quản lí chỗ ở do hợp đồng bị huỷ hoặc hợp đồng chưa được duyêt.";
+                }
+
+                final Set<Integer> roomIds = new HashSet<>(this.request.roomIds);
+                if (roomIds.contains(null)) {
+                    return "Xin vui lòng không để trống ID của phòng.";
+                }
+                final List<Room> rooms = this.roomRepository.findAllById(roomIds);
+                if (rooms.size() < roomIds.size()) {
+                    roomIds.removeAll(rooms.stream().map(Room::getId).collect(Collectors.toSet()));
+                    return MoreStrings.format("Không thể tìm thấy phòng với id = {}.", roomIds);
+                }
+
+                final Set<Integer> accommodationIds = rooms.stream().map(Room::getAccommodationId).collect(Collectors.toSet());
+                final boolean ownsEveryAccommodation = this.accommodationRepository
+                        .findAllById(accommodationIds)
+                        .stream()
+                        .filter(accommodation -> Objects.equals(accommodation.getOwnerId(), houseOwnerId))
+                        .count() == accommodationIds.size();
+                if (!ownsEveryAccommodation) {
+                    return "Chỗ ở này không thuộc quyền quản lí của bạn.";
+                }
+
+                return null;
+            }
+
+            private String validateRanges() {
+                // Missing room ids are reported on their own field.
+                if (this.request.roomIds != null && (long) new HashSet<>(this.request.roomIds).size() * this.request.ranges.size() > MAX_CHANGES) {
+                    return MoreStrings.format("Xin vui lòng chỉ áp dụng tối đa {} thay đổi giá mỗi lần.", MAX_CHANGES);
+                }
+                for (int i = 0; i < this.request.ranges.size(); i++) {
+                    final String error = validateRange(this.request.ranges.get(i));
+                    if (error != null) {
+                        return MoreStrings.format("Khoảng thời gian thứ {}: {}", i + 1, error);
+                    }
+                }
+                return null;
+            }
+
+            @Nullable
+            private static String validateRange(@Nullable final RangeRequest range) {
+                if (range == null || range.type == null || range.amount == null || range.fromDate == null) {
+                    return "Xin vui lòng nhập đầy đủ loại, % giá hoặc phần trăm giảm giá và ngày bắt đầu áp dụng thay đổi.";
+                }
+
+                if (range.type == PriceHistory.Type.PRICE && (range.amount < 100 || range.amount > 1000)) {
+                    return "Xin vui lòng nhập % giá cần thay đổi trong khoảng từ 100 đến 1000.";
+                }
+
+                if (range.type == PriceHistory.Type.DISCOUNT && (range.amount < 0 || range.amount > 100)) {
+                    return "Phần trăm giá giảm phải trong khoảng từ 0% đến 100%.";
+                }
+
+                if (range.fromDate.isBefore(LocalDate.now().plusDays(1))) {
+                    return "Xin vui lòng chọn ngày bắt đầu áp dụng thay đổi sau ngày hiện tại.";
+                }
+
+                if (range.toDate != null && range.toDate.isBefore(range.fromDate)) {
+                    return "Xin vui lòng chọn ngày kết thúc sau ngày bắt đầu.";
+                }
+
+                return null;
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.fpt.h2s.models.domains.ApiResponse;
 import com.fpt.h2s.models.entities.*;
 import com.fpt.h2s.models.exceptions.ApiException;
 import com.fpt.h2s.repositories.*;
+import com.fpt.h2s.services.RoomPriceCalendarService;
 import com.fpt.h2s.services.commands.BaseCommand;
 import com.fpt.h2s.services.commands.requests.HouseOwnerCreateRoomRequest;
 import jakarta.transaction.Transactional;
@@ -11,6 +12,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -28,6 +30,7 @@ public class HouseOwnerCreateRoomCommand
     private final RoomImageRepository roomImageRepository;
     private final RoomPropertyRepository roomPropertyRepository;
     private final PriceHistoryRepository priceHistoryRepository;
+    private final RoomPriceCalendarService priceCalendarService;
 
     @Override
     public ApiResponse<Void> execute(final HouseOwnerCreateRoomRequest request) {
@@ -41,6 +44,7 @@ public class HouseOwnerCreateRoomCommand
         this.saveRoomImageAndProperty(request, savedRoom);
         this.savePriceHistory(request, savedRoom);
         this.saveUpdatedAccommodation(request, originAccommodation, savedRoom);
+        this.priceCalendarService.refreshRooms(List.of(savedRoom.getId()));
         return ApiResponse.success("Tạo phòng thành công.");
     }
 
@@ -6,6 +6,7 @@ import com.fpt.h2s.models.entities.User;
 import com.fpt.h2s.models.exceptions.ApiException;
 import com.fpt.h2s.repositories.BookingRequestRepository;
 import com.fpt.h2s.repositories.RedisRepository;
+import com.fpt.h2s.services.BookingExpiryService;
 import com.fpt.h2s.services.commands.BaseCommand;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +19,7 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class CancelBookingRequestCommand implements BaseCommand<Integer, Void> {
     private final BookingRequestRepository bookingRequestRepository;
+    private final BookingExpiryService bookingExpiryService;
 
     @Override
     public ApiResponse<Void> execute(Integer id) {
@@ -32,9 +34,9 @@ public class CancelBookingRequestCommand implements BaseCommand<Integer, Void> {
         }
         BookingRequest bookingToSave = bookingRequest.withStatus(BookingRequest.Status.UN_PURCHASED);
         bookingRequestRepository.save(bookingToSave);
+        bookingExpiryService.unregister(bookingToSave);
 
         String lastTransactionKey = CreateBookingTransactionRequestCommand.getLastTransactionKey(currentId);
-        RedisRepository.get(lastTransactionKey).ifPresent(RedisRepository::remove);
         RedisRepository.remove(lastTransactionKey);
 
         log.info("Cancel booking request with id {} successfully", id);
@@ -1,10 +1,8 @@
 package com.fpt.h2s.services.commands.transactions;
 
 import ananta.utility.ListEx;
-import ananta.utility.MapEx;
 import ananta.utility.StreamEx;
 import ananta.utility.StringEx;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fpt.h2s.configurations.requests.DataContext;
 import com.fpt.h2s.models.domains.ApiResponse;
 import com.fpt.h2s.models.domains.BaseRequest;
@@ -12,11 +10,12 @@ import com.fpt.h2s.models.domains.BaseValidator;
 import com.fpt.h2s.models.entities.*;
 import com.fpt.h2s.models.exceptions.ApiException;
 import com.fpt.h2s.repositories.*;
-import com.fpt.h2s.repositories.projections.AvailableRoomRecord;
+import com.fpt.h2s.services.BookingExpiryService;
 import com.fpt.h2s.services.PaymentService;
+import com.fpt.h2s.services.RoomAvailabilityIndex;
+import com.fpt.h2s.services.RoomInventory;
+import com.fpt.h2s.services.RoomQuotes;
 import com.fpt.h2s.services.commands.BaseCommand;
-import com.fpt.h2s.services.commands.accommodation.SearchAccommodationAvailableRoomsCommand;
-import com.fpt.h2s.services.commands.accommodation.SearchAccommodationAvailableRoomsCommand.RoomResponse;
 import com.fpt.h2s.services.commands.requests.Payment;
 import com.fpt.h2s.services.commands.user.utils.Urls;
 import com.fpt.h2s.utilities.*;
@@ -31,17 +30,15 @@ import lombok.experimental.FieldNameConstants;
 import lombok.extern.jackson.Jacksonized;
 import lombok.extern.log4j.Log4j2;
 import org.hibernate.validator.constraints.Length;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
 import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -57,10 +54,12 @@ public class CreateBookingTransactionRequestCommand implements BaseCommand<Creat
     private final PaymentService paymentService;
     private final RoomRepository roomRepository;
     private final BookingRequestRepository bookingRequestRepository;
-    private final TransactionRepository transactionRepository;
     private final BookingRequestDetailRepository bookingRequestDetailRepository;
     private final TravelStatementRepository travelStatementRepository;
     private final UserRepository userRepository;
+    private final RoomInventory roomInventory;
+    private final BookingExpiryService bookingExpiryService;
+    private final RoomQuotes roomQuotes;
 
     @Override
     @SneakyThrows
@@ -71,41 +70,50 @@ public class CreateBookingTransactionRequestCommand implements BaseCommand<Creat
         final List<BookingRequestDetail> detailsToSave = this.getBookingRoomDetailsToSave(request);
 
         String lastTransactionKey = getLastTransactionKey(userId);
-        String currentTransactionJson = jsonOf(request);
-        String lastTransactionJson = RedisRepository.get(lastTransactionKey).orElse(null);
-
         final List<Room> rooms = this.getRooms(request);
 
-        if (lastTransactionJson != null) {
-            Integer bookingId = RedisRepository.get(lastTransactionJson).map(Integer::parseInt).orElseThrow();
-            cancelLastBooking(bookingId);
-        }
+        RedisRepository.get(lastTransactionKey).flatMap(CreateBookingTransactionRequestCommand::bookingIdOf).ifPresent(this::cancelLastBooking);
 
         checkIfUserCanBookRooms(user, rooms);
+        this.roomInventory.reserve(rooms, unitsOf(request), request.getFromDate(), request.getToDate());
 
         final BookingRequest bookingRequest = this.bookingRequestRepository.save(this.getBookingRequest(request, rooms));
         saveBookingDetails(detailsToSave, bookingRequest);
+        this.bookingExpiryService.register(bookingRequest);
 
         long totalPriceToPay = detailsToSave.stream().mapToLong(BookingRequestDetail::getPrice).sum();
         Payment.PurchaseResponse payRequest = this.createPayRequest(totalPriceToPay, bookingRequest.getId(), request, user);
 
-        updateVersionFor(rooms);
-        saveRequestToVerifyAfterBookedSuccessfully(bookingRequest.getId(), request, user, payRequest);
-
-        RedisRepository.set(lastTransactionKey, currentTransactionJson, Duration.ofMinutes(TRANSACTION_DURATION));
-        RedisRepository.set(currentTransactionJson, bookingRequest.getId(), Duration.ofMinutes(TRANSACTION_DURATION));
+        RedisRepository.setAll(
+            Map.of(
+                verificationKeyOf(payRequest), verificationPayloadOf(bookingRequest.getId(), request, user),
+                lastTransactionKey, String.valueOf(bookingRequest.getId())
+            ),
+            Duration.ofMinutes(TRANSACTION_DURATION)
+        );
 
         return ApiResponse.success(Response.builder().id(bookingRequest.getId()).request(payRequest).build());
     }
 
-    private void updateVersionFor(List<Room> rooms) {
-        roomRepository.saveAll(rooms.stream().map(room -> room.withUpdatedAt(Timestamp.from(Instant.now()))).toList());
+    private static Map<Integer, Integer> unitsOf(Request request) {
+        return request.getDetails().stream().collect(Collectors.toMap(BookingRoomDetails::getRoomId, BookingRoomDetails::getTotalRooms, Integer::sum));
     }
 
+    /**
+     * @return key of the id of the last booking of a user which may still be waiting for payment.
+     */
     public static String getLastTransactionKey(Integer userId) {
         return "user-%s-booking".formatted(userId);
     }
 
+    private static Optional<Integer> bookingIdOf(String lastTransaction) {
+        try {
+            return Optional.of(Integer.parseInt(lastTransaction));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
     private boolean isLastTransactionCanceled(Integer bookingId) {
         try {
             BookingRequest bookingRequest = bookingRequestRepository.getById(bookingId);
@@ -143,15 +151,8 @@ public class CreateBookingTransactionRequestCommand implements BaseCommand<Creat
         this.bookingRequestDetailRepository.saveAll(detailsToSave);
     }
 
-    private static String jsonOf(Request request) {
-        HashMap<Object, Object> payload = new HashMap<>();
-        payload.put("id", User.currentUserId().orElseThrow());
-        payload.put("data", request);
-        return Mappers.jsonOf(payload);
-    }
-
     private List<Room> getRooms(final Request request) {
-        return this.roomRepository.findWithLockingByIdIn(ListEx.listOf(request.getDetails(), BookingRoomDetails::getRoomId));
+        return this.roomRepository.findAllById(ListEx.listOf(request.getDetails(), BookingRoomDetails::getRoomId));
     }
 
 
@@ -161,34 +162,31 @@ public class CreateBookingTransactionRequestCommand implements BaseCommand<Creat
         return (Payment.PurchaseResponse) this.paymentService.createPayRequest(priceToPay, returnUrl);
     }
 
-    private static void saveRequestToVerifyAfterBookedSuccessfully(Integer bookingId, Request request, User user, Payment.PurchaseResponse response) {
-        final String redisToken = StringEx.format("tr-code-{}", response.getId());
+    private static String verificationKeyOf(Payment.PurchaseResponse response) {
+        return StringEx.format("tr-code-{}", response.getId());
+    }
 
+    /**
+     * @return payload read by {@link SaveBookingTransactionResult} to verify the booking once it has been paid.
+     */
+    private static Map<String, Integer> verificationPayloadOf(Integer bookingId, Request request, User user) {
         final HashMap<String, Integer> payload = new HashMap<>();
         payload.put(Transaction.Fields.creatorId, user.getId());
         payload.put("bookingId", bookingId);
-        payload.put("creatorId", User.currentUserId().orElseThrow());
         if (request.statement != null) {
             payload.put("statementId", request.statement);
         }
-        RedisRepository.set(redisToken, payload, Duration.ofMinutes(15));
+        return payload;
     }
 
     private List<BookingRequestDetail> getBookingRoomDetailsToSave(final Request request) {
-        String token = Tokens.getTokenFrom(MoreRequests.getCurrentHttpRequest());
-        List<RoomResponse> searchRooms = RedisRepository
-            .get("search-rooms-%s".formatted(token), new TypeReference<List<RoomResponse>>() {
-            })
-            .orElseThrow(() -> ApiException.forbidden("Có gì đó không ổn. Xin vui lòng thử lại bằng cách quay lại trang tìm kiếm."));
-
-        Map<Integer, RoomResponse> searchRoomsMapToId = MapEx.mapOf(searchRooms, RoomResponse::getId);
-
-        List<BookingRequestDetail> bookingRequestDetails = request.toBookingRoomDetails();
-        return bookingRequestDetails.stream().map(detail -> {
-            final RoomResponse room = searchRoomsMapToId.get(detail.getRoomId());
-            final long totalPrice = room.getDiscountedPrice() * detail.getTotalRooms();
-            final long totalOriginalPrice = room.getOriginalPrice() * detail.getTotalRooms();
-            return detail.withPrice(totalPrice).withOriginalPrice(totalOriginalPrice);
+        return request.getDetails().stream().map(details -> {
+            final RoomQuotes.Quote quote = this.roomQuotes
+                .read(details.getQuote())
+                .orElseThrow(() -> ApiException.forbidden("Có gì đó không ổn. Xin vui lòng thử lại bằng cách quay lại trang tìm kiếm."));
+            final long totalPrice = quote.discountedPrice() * details.getTotalRooms();
+            final long totalOriginalPrice = quote.originalPrice() * details.getTotalRooms();
+            return details.toDetails().withPrice(totalPrice).withOriginalPrice(totalOriginalPrice);
         }).toList();
     }
 
@@ -266,6 +264,11 @@ public class CreateBookingTransactionRequestCommand implements BaseCommand<Creat
         private final Integer totalRooms;
         private final Integer roomId;
 
+        /**
+         * Quote of the room returned by the room search.
+         */
+        private final String quote;
+
         public BookingRequestDetail toDetails() {
             return BookingRequestDetail.builder().roomId(this.roomId).totalRooms(this.totalRooms).build();
         }
@@ -276,6 +279,9 @@ public class CreateBookingTransactionRequestCommand implements BaseCommand<Creat
     public static class Validator extends BaseValidator<Request> {
 
         private final RoomRepository roomRepository;
+        private final RoomAvailabilityIndex availabilityIndex;
+        private final RoomQuotes roomQuotes;
+
         @Override
         protected void validate() {
             this.rejectIfEmpty(Request.Fields.fromDate, this::validateFromDate);
@@ -315,17 +321,17 @@ public class CreateBookingTransactionRequestCommand implements BaseCommand<Creat
 
             DataContext.store("rooms", rooms);
 
-            final List<RoomResponse> searchRooms = RedisRepository
-                .get("search-rooms-%s".formatted(Tokens.getTokenFrom(MoreRequests.getCurrentHttpRequest())), new TypeReference<List<RoomResponse>>() {
-                })
-                .orElseThrow(() -> ApiException.forbidden("Có gì đó không ổn. Xin vui lòng thử lại bằng cách quay lại trang tìm kiếm."));
-
-            final List<Integer> invalidRoomIds = findInvalidRoomIds(roomIds, searchRooms);
+            final List<Integer> invalidRoomIds = findInvalidRoomIds(roomIds, rooms);
             if (!invalidRoomIds.isEmpty()) {
                 return "Các phòng sau không tồn tại: %s".formatted(invalidRoomIds);
             }
 
-            final List<String> invalidRooms = this.findRoomsWhichIsBookingMoreThanAvailableRooms(searchRooms);
+            final List<String> roomsWithChangedPrice = this.findRoomsWhosePriceHasChanged(rooms);
+            if (!roomsWithChangedPrice.isEmpty()) {
+                return "Giá của các phòng sau đã thay đổi: %s. Xin vui lòng tìm kiếm lại.".formatted(roomsWithChangedPrice);
+            }
+
+            final List<String> invalidRooms = this.findRoomsWhichIsBookingMoreThanAvailableRooms(rooms);
             if (!invalidRooms.isEmpty()) {
                 return "Các phòng sau hiện tại đã hết phòng: %s. Xin vui lòng chọn phòng khác.".formatted(invalidRooms);
             }
@@ -333,14 +339,35 @@ public class CreateBookingTransactionRequestCommand implements BaseCommand<Creat
             return null;
         }
 
-        private List<String> findRoomsWhichIsBookingMoreThanAvailableRooms(final List<RoomResponse> rooms) {
-            String token = Tokens.getTokenFrom(MoreRequests.getCurrentHttpRequest());
-            SearchAccommodationAvailableRoomsCommand.Request searchRequest = RedisRepository.get("search-request-%s".formatted(token), new TypeReference<SearchAccommodationAvailableRoomsCommand.Request>() {
-            }).orElseThrow(() -> ApiException.forbidden("Xin hãy quay lại trang tìm kiếm để đặt phòng lại."));
-
-            List<AvailableRoomRecord> availableRoom = SpringBeans.getBean(SearchAccommodationAvailableRoomsCommand.class).searchAvailableRooms(searchRequest);
+        /**
+         * @throws ApiException if a quote has been altered, has expired or has been issued for another booking.
+         */
+        private List<String> findRoomsWhosePriceHasChanged(final List<Room> rooms) {
+            final Integer userId = User.currentUserId().orElseThrow(ApiException::forbidden);
+            final LocalDate fromDate = LocalDateTimes.startDayOf(this.request.fromDate).toLocalDate();
+            final LocalDate toDate = LocalDateTimes.startDayOf(this.request.toDate).toLocalDate();
+            final Map<Integer, Room> roomsMapToId = rooms.stream().collect(Collectors.toMap(Room::getId, room -> room));
+
+            final List<String> roomsWithChangedPrice = new ArrayList<>();
+            for (final BookingRoomDetails details : this.request.getDetails()) {
+                final RoomQuotes.Quote quote = this.roomQuotes
+                    .read(details.getQuote())
+                    .filter(validQuote -> validQuote.covers(userId, details.getRoomId(), fromDate, toDate))
+                    .orElseThrow(() -> ApiException.forbidden("Có gì đó không ổn. Xin vui lòng thử lại bằng cách quay lại trang tìm kiếm."));
+                final Room room = roomsMapToId.get(details.getRoomId());
+                if (Objects.requireNonNullElse(room.getVersion(), 0) != quote.roomVersion()) {
+                    roomsWithChangedPrice.add(room.getName());
+                }
+            }
+            return roomsWithChangedPrice;
+        }
 
-            final Map<Integer, Integer> totalRoomsLeftMapToRoomId = MapEx.mapOf(availableRoom, AvailableRoomRecord::getId, AvailableRoomRecord::getAvailableRooms);
+        private List<String> findRoomsWhichIsBookingMoreThanAvailableRooms(final List<Room> rooms) {
+            final Map<Integer, Integer> totalRoomsLeftMapToRoomId = this.availabilityIndex.countFreeRooms(
+                ListEx.listOf(this.request.getDetails(), BookingRoomDetails::getRoomId),
+                this.request.fromDate,
+                this.request.toDate
+            );
             final Predicate<BookingRoomDetails> isBookingMoreThanAvailableRooms = room -> {
                 final Integer availableRooms = totalRoomsLeftMapToRoomId.get(room.getRoomId());
                 return room.getTotalRooms() > availableRooms;
@@ -353,80 +380,17 @@ public class CreateBookingTransactionRequestCommand implements BaseCommand<Creat
 
             return rooms.stream()
                 .filter(room -> invalidRoomsThatBookingMoreThanAvailableRooms.contains(room.getId()))
-                .map(RoomResponse::getName)
+                .map(Room::getName)
                 .toList();
         }
 
-        private static List<Integer> findInvalidRoomIds(final List<Integer> roomIds, final List<RoomResponse> rooms) {
-            final List<Integer> existingRoomIds = ListEx.listOf(rooms, RoomResponse::getId);
+        private static List<Integer> findInvalidRoomIds(final List<Integer> roomIds, final List<Room> rooms) {
+            final List<Integer> existingRoomIds = ListEx.listOf(rooms, Room::getId);
             return ListEx.inRightListOnly(existingRoomIds, roomIds);
         }
 
     }
 
-    @Scheduled(fixedRate = 15, timeUnit = TimeUnit.SECONDS)
-    public void cancelPendingRequestsAfterNotPayed() {
-        final boolean isLocal = StringEx.isBlank(System.getenv("ENVIRONMENT")) || Objects.equals(System.getenv("ENVIRONMENT"), "LOCAL");
-        if (isLocal) {
-            return;
-        }
-        final List<BookingRequest> accommodations = this.bookingRequestRepository.findAllByStatusIn(List.of(PENDING));
-        Timestamp timeToCancel = Timestamp.valueOf(LocalDateTime.now().minusMinutes(15));
-        final List<BookingRequest> requestsToCancelDueToOutOfTime = accommodations
-            .stream()
-            .filter(request -> request.getCreatedAt().before(timeToCancel))
-            .map(request -> request.withStatus(UN_PURCHASED))
-            .toList();
-        this.bookingRequestRepository.saveAll(requestsToCancelDueToOutOfTime);
-        if (!requestsToCancelDueToOutOfTime.isEmpty()) {
-            log.info("Cancel following booking requests: {}", ListEx.listOf(requestsToCancelDueToOutOfTime, BookingRequest::getId));
-        }
-    }
-
-    @Scheduled(fixedRate = 15, timeUnit = TimeUnit.SECONDS)
-    public void payBackMoneyToHouseOwnerAfterUserHasSuccessfullyUsedHouse() {
-        final boolean isLocal = StringEx.isBlank(System.getenv("ENVIRONMENT")) || Objects.equals(System.getenv("ENVIRONMENT"), "LOCAL");
-        if (isLocal) {
-            return;
-        }
-        final List<BookingRequest> requestsToPay = this.getBookingRequestsThatNeedToPayToHouseOwner();
-        this.bookingRequestRepository.saveAll(requestsToPay);
-
-        final List<Transaction> transactions = getTransactionsToPayBackToHouseOwnerOf(requestsToPay);
-        this.transactionRepository.saveAll(transactions);
-        if (!transactions.isEmpty()) {
-            log.info("Pay money to house owner after user had successfully used rooms: {}", ListEx.listOf(transactions, Transaction::getReceiverId));
-        }
-    }
-    @org.jetbrains.annotations.NotNull
-    private static List<Transaction> getTransactionsToPayBackToHouseOwnerOf(final List<BookingRequest> requestsToPay) {
-        final Calendar cld = Calendar.getInstance(TimeZone.getTimeZone("Etc/GMT+7"));
-        final String payDate = new SimpleDateFormat("yyyyMMddHHmmss").format(cld.getTime());
-
-        return requestsToPay
-            .stream()
-            .map(request -> Transaction
-                .builder()
-                .amount((long) (request.getTransaction().getAmount() * 0.8))
-                .paymentMethod(request.getTransaction().getPaymentMethod())
-                .transactionRequestNo(request.getTransaction().getTransactionRequestNo())
-                .bankTransactionNo(request.getTransaction().getBankTransactionNo())
-                .payDate(payDate)
-                .receiverId(request.getAccommodation().getOwnerId())
-                .build()
-            ).collect(Collectors.toList());
-    }
-
-    private List<BookingRequest> getBookingRequestsThatNeedToPayToHouseOwner() {
-        final List<BookingRequest> accommodations = this.bookingRequestRepository.findAllByStatusIn(List.of(PURCHASED));
-        final Timestamp today = Timestamp.valueOf(LocalDateTimes.startDayOf(LocalDateTime.now()).plusMinutes(1));
-        return accommodations
-            .stream()
-            .filter(request -> request.getCheckinAt().before(today))
-            .map(request -> request.withStatus(SUCCEED))
-            .toList();
-    }
-
     @Getter
     @Builder
     @FieldNameConstants
@@ -9,7 +9,9 @@ import com.fpt.h2s.models.entities.Transaction;
 import com.fpt.h2s.models.entities.TravelStatement;
 import com.fpt.h2s.models.exceptions.ApiException;
 import com.fpt.h2s.repositories.*;
+import com.fpt.h2s.services.BookingExpiryService;
 import com.fpt.h2s.services.NotificationService;
+import com.fpt.h2s.services.RoomOccupancyLedger;
 import com.fpt.h2s.services.commands.BaseCommand;
 import jakarta.transaction.Transactional;
 import lombok.Builder;
@@ -37,6 +39,8 @@ public class SaveBookingTransactionResult implements BaseCommand<SaveBookingTran
 
     private final AccommodationRepository accommodationRepository;
     private final NotificationService notificationService;
+    private final RoomOccupancyLedger roomOccupancyLedger;
+    private final BookingExpiryService bookingExpiryService;
 
     @Override
     public ApiResponse<Void> execute(final Request request) {
@@ -48,9 +52,7 @@ public class SaveBookingTransactionResult implements BaseCommand<SaveBookingTran
 
         if (!request.getVnp_ResponseCode().equals("00")) {
             String lastTransactionKey = CreateBookingTransactionRequestCommand.getLastTransactionKey(creatorId);
-            RedisRepository.get(lastTransactionKey).ifPresent(RedisRepository::remove);
-            RedisRepository.remove(lastTransactionKey);
-            RedisRepository.remove(redisToken);
+            RedisRepository.pipeline().remove(lastTransactionKey, redisToken).execute();
             throw ApiException.badRequest("Đặt phòng thất bại");
         }
 
@@ -64,9 +66,11 @@ public class SaveBookingTransactionResult implements BaseCommand<SaveBookingTran
         BookingRequest bookingRequest = bookingRequestRepository.getById(bookingId, "Không thể tìm thấy yêu cầu đặt phòng.", bookingId);
         BookingRequest bookingToUpdate = bookingRequest.withStatus(BookingRequest.Status.PURCHASED).withTransactionId(transaction.getId());
         bookingRequestRepository.save(bookingToUpdate);
+        roomOccupancyLedger.refreshBookingAfterCommit(bookingToUpdate);
+        bookingExpiryService.unregister(bookingToUpdate);
 
         Accommodation accommodation = bookingRequest.getAccommodation();
-        accommodationRepository.save(accommodation.withTotalBookings(accommodation.getTotalBookings() + 1));
+        accommodationRepository.save(accommodation.withTotalBookings(accommodation.getTotalBookings() + 1).withRankingScoreComputed());
 
         notificationService.send(notification -> notification
             .toUser(accommodation.getOwnerId())
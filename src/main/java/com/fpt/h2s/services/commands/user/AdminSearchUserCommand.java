@@ -8,9 +8,11 @@ import com.fpt.h2s.models.entities.User;
 import com.fpt.h2s.models.entities.converters.JPAEnumConverter;
 import com.fpt.h2s.models.exceptions.ApiException;
 import com.fpt.h2s.repositories.UserRepository;
+import com.fpt.h2s.services.UserKeywordIndex;
 import com.fpt.h2s.services.commands.BaseCommand;
 import com.fpt.h2s.services.commands.responses.UserResponse;
 import com.fpt.h2s.utilities.Criteria;
+import com.fpt.h2s.utilities.Keyset;
 import com.fpt.h2s.utilities.SpringBeans;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -88,6 +90,10 @@ public class AdminSearchUserCommand implements BaseCommand<AdminSearchUserComman
                 throw ApiException.badRequest("Key must be one of {}", CriteriaRequest.REQUIRED_FIELDS);
             }
             final Object[] values = this.getValue();
+            final Set<Integer> indexedIds = SpringBeans.getBean(UserKeywordIndex.class).findAllMatching(this.key, this.operation, values);
+            if (indexedIds != null) {
+                return indexedIds.isEmpty() ? (root, query, cb) -> cb.disjunction() : Keyset.idIn(indexedIds);
+            }
             return this.operation.<User>value(values).apply(this.key);
         }
         
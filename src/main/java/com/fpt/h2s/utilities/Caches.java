@@ -2,25 +2,170 @@ package com.fpt.h2s.utilities;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fpt.h2s.repositories.RedisRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.NonNull;
 import lombok.experimental.UtilityClass;
+import lombok.extern.log4j.Log4j2;
 
 import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
+/**
+ * Two tier cache of values shared by every node. Values are kept in a bounded local cache in front of Redis,
+ * so hot values are read from memory. Concurrent loads of the same key on a node wait for a single load.
+ * Writers must call {@link #invalidate(String)}, which removes the key from Redis and from the local cache of every node
+ * through the {@value INVALIDATION_CHANNEL} channel.
+ */
+@Log4j2
 @UtilityClass
 public class Caches {
 
-    public static  <T> T storeIfNotFound(String key, Supplier<T> supplier, Duration duration) {
-        if (RedisRepository.hasKey(key)) {
-            return RedisRepository.get(key, new TypeReference<T>() {}).orElseThrow();
+    public static final String INVALIDATION_CHANNEL = "cache-invalidations";
+
+    private static final int MAX_LOCAL_ENTRIES = 1000;
+    private static final Duration DEFAULT_DURATION = Duration.ofHours(1);
+
+    private static final AsyncCache<String, Entry> LOCAL_ENTRIES = Caffeine
+        .newBuilder()
+        .maximumSize(MAX_LOCAL_ENTRIES)
+        .expireAfter(new EntryExpiry())
+        .recordStats()
+        .buildAsync();
+
+    /**
+     * Local misses answered by Redis, the other local misses have been loaded from the supplier.
+     */
+    private static final LongAdder REDIS_HITS = new LongAdder();
+
+    /**
+     * Read a value from the local cache, then from Redis, then from the supplier. Values found in Redis or supplied
+     * are kept locally for the same duration, so a value may outlive its Redis key by at most this duration when it is not invalidated.
+     * A key must always be read with the same type.
+     * <p>
+     * The cache only holds a pending result while a value is loaded, the load itself runs on the calling thread
+     * outside of the cache, so slow loads never block reads or loads of other keys.
+     *
+     * @param type     type of the value, read back from the JSON stored in Redis.
+     * @param supplier load the value when it is cached nowhere. Null values are not cached.
+     * @param duration time to live of the value in each tier.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T storeIfNotFound(@NonNull final String key, @NonNull final TypeReference<T> type, @NonNull final Supplier<T> supplier, @NonNull final Duration duration) {
+        final CompletableFuture<Entry> pendingEntry = new CompletableFuture<>();
+        final CompletableFuture<Entry> entry = LOCAL_ENTRIES.get(key, (missingKey, executor) -> pendingEntry);
+        if (entry == pendingEntry) {
+            try {
+                pendingEntry.complete(Caches.load(key, type, supplier, duration));
+            } catch (final RuntimeException e) {
+                // Failed loads are removed from the cache, the next read loads the value again.
+                pendingEntry.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            final Entry value = entry.join();
+            return value == null ? null : (T) value.value();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof final RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public static <T> T storeIfNotFound(@NonNull final String key, @NonNull final TypeReference<T> type, @NonNull final Supplier<T> supplier) {
+        return storeIfNotFound(key, type, supplier, DEFAULT_DURATION);
+    }
+
+    /**
+     * Remove a value from Redis and from the local cache of every node.
+     */
+    public static void invalidate(@NonNull final String key) {
+        LOCAL_ENTRIES.synchronous().invalidate(key);
+        try {
+            RedisRepository.remove(key);
+            RedisRepository.publish(INVALIDATION_CHANNEL, key);
+        } catch (final Exception e) {
+            log.error("Failed to invalidate cached {}, other nodes may read it until it expires.", key, e);
         }
+    }
+
+    /**
+     * Remove a value from the local cache only, on invalidation messages sent by other nodes.
+     */
+    public static void invalidateLocally(@NonNull final String key) {
+        LOCAL_ENTRIES.synchronous().invalidate(key);
+    }
 
-        final T cacheItem = supplier.get();
-        RedisRepository.set(key, cacheItem, duration);
-        return cacheItem;
+    public static String toPrometheusText() {
+        final CacheStats stats = LOCAL_ENTRIES.synchronous().stats();
+        final long redisHits = REDIS_HITS.sum();
+        final StringBuilder text = new StringBuilder();
+        text.append("# HELP cache_requests_total Reads of cached values by the tier that answered them.\n");
+        text.append("# TYPE cache_requests_total counter\n");
+        text.append("cache_requests_total{tier=\"local\"} %d\n".formatted(stats.hitCount()));
+        text.append("cache_requests_total{tier=\"redis\"} %d\n".formatted(redisHits));
+        text.append("cache_requests_total{tier=\"none\"} %d\n".formatted(Math.max(0, stats.missCount() - redisHits)));
+        text.append("# HELP cache_local_entries Values held in the local cache.\n");
+        text.append("# TYPE cache_local_entries gauge\n");
+        text.append("cache_local_entries %d\n".formatted(LOCAL_ENTRIES.synchronous().estimatedSize()));
+        return text.toString();
     }
 
-    public static  <T> T storeIfNotFound(String key, Supplier<T> supplier) {
-        return storeIfNotFound(key, supplier, Duration.ofHours(1));
+    private static <T> Entry load(final String key, final TypeReference<T> type, final Supplier<T> supplier, final Duration duration) {
+        final Optional<T> cachedValue = Caches.readFromRedis(key, type);
+        if (cachedValue.isPresent()) {
+            REDIS_HITS.increment();
+            return new Entry(cachedValue.get(), duration);
+        }
+
+        final T value = supplier.get();
+        if (value == null) {
+            return null;
+        }
+        try {
+            RedisRepository.set(key, value, duration);
+        } catch (final Exception e) {
+            log.warn("Failed to cache {} in Redis.", key, e);
+        }
+        return new Entry(value, duration);
+    }
+
+    private static <T> Optional<T> readFromRedis(final String key, final TypeReference<T> type) {
+        try {
+            return RedisRepository.get(key, type);
+        } catch (final Exception e) {
+            log.warn("Failed to read cached {} from Redis, it will be loaded again.", key, e);
+            return Optional.empty();
+        }
+    }
+
+    private record Entry(Object value, Duration duration) {
+
+    }
+
+    private static final class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(final String key, final Entry entry, final long currentTime) {
+            return entry.duration().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(final String key, final Entry entry, final long currentTime, final long currentDuration) {
+            return entry.duration().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(final String key, final Entry entry, final long currentTime, final long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -1,11 +1,17 @@
 package com.fpt.h2s.utilities;
 
+import org.jetbrains.annotations.Nullable;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.function.DoublePredicate;
+import java.util.stream.Collectors;
 
 public enum Criteria {
     
@@ -15,6 +21,12 @@ public enum Criteria {
             final String dbValue = "%" + Optional.ofNullable(value).map(x -> x[0]).map(Object::toString).map(String::trim).orElse("") + "%";
             return (field) -> (root, query, cb) -> cb.like(root.get(field), dbValue);
         }
+
+        @Override
+        public SqlCondition sqlOf(final String column, final Object... value) {
+            final String dbValue = "%" + Optional.ofNullable(value).filter(x -> x.length > 0).map(x -> x[0]).map(Object::toString).map(String::trim).orElse("") + "%";
+            return new SqlCondition(column + " LIKE ?", List.of(dbValue));
+        }
     },
     
     STARTS_WITH {
@@ -27,6 +39,15 @@ public enum Criteria {
             final String dbValue = Optional.ofNullable(value[0]).map(Object::toString).map(String::trim).orElse("") + "%";
             return (field) -> (root, query, cb) -> cb.like(root.get(field), dbValue);
         }
+
+        @Override
+        public SqlCondition sqlOf(final String column, final Object... value) {
+            if (isEmpty(value)) {
+                return SqlCondition.ALWAYS;
+            }
+            final String dbValue = Optional.ofNullable(value[0]).map(Object::toString).map(String::trim).orElse("") + "%";
+            return new SqlCondition(column + " LIKE ?", List.of(dbValue));
+        }
     },
     
     ENDS_WITH {
@@ -38,6 +59,15 @@ public enum Criteria {
             final String dbValue = "%" + Optional.ofNullable(value[0]).map(Object::toString).map(String::trim).orElse("");
             return (field) -> (root, query, cb) -> cb.like(root.get(field), dbValue);
         }
+
+        @Override
+        public SqlCondition sqlOf(final String column, final Object... value) {
+            if (isEmpty(value)) {
+                return SqlCondition.ALWAYS;
+            }
+            final String dbValue = "%" + Optional.ofNullable(value[0]).map(Object::toString).map(String::trim).orElse("");
+            return new SqlCondition(column + " LIKE ?", List.of(dbValue));
+        }
     },
     
     EQUALS {
@@ -60,6 +90,24 @@ public enum Criteria {
             }
             return obj;
         }
+
+        @Override
+        public SqlCondition sqlOf(final String column, final Object... value) {
+            final Object dbValue = isEmpty(value) ? null : this.cleanValue(value);
+            if (dbValue == null) {
+                return SqlCondition.ALWAYS;
+            }
+            return new SqlCondition(column + " = ?", List.of(dbValue));
+        }
+
+        @Override
+        public DoublePredicate numberPredicateOf(final Object... value) {
+            if (isEmpty(value) || !(value[0] instanceof final Number number)) {
+                return null;
+            }
+            final double expected = number.doubleValue();
+            return v -> v == expected;
+        }
     },
     
     GREATER_THAN {
@@ -79,6 +127,23 @@ public enum Criteria {
                 return 0L;
             }
         }
+
+        @Override
+        public SqlCondition sqlOf(final String column, final Object... value) {
+            if (isEmpty(value)) {
+                return SqlCondition.ALWAYS;
+            }
+            return new SqlCondition(column + " > ?", List.of(this.longOf(value)));
+        }
+
+        @Override
+        public DoublePredicate numberPredicateOf(final Object... value) {
+            if (isEmpty(value)) {
+                return null;
+            }
+            final long number = this.longOf(value);
+            return v -> v > number;
+        }
     },
     
     LESS_THAN {
@@ -98,6 +163,23 @@ public enum Criteria {
                 return 0L;
             }
         }
+
+        @Override
+        public SqlCondition sqlOf(final String column, final Object... value) {
+            if (isEmpty(value)) {
+                return SqlCondition.ALWAYS;
+            }
+            return new SqlCondition(column + " < ?", List.of(this.longOf(value)));
+        }
+
+        @Override
+        public DoublePredicate numberPredicateOf(final Object... value) {
+            if (isEmpty(value)) {
+                return null;
+            }
+            final long number = this.longOf(value);
+            return v -> v < number;
+        }
     },
     
     IN {
@@ -108,6 +190,23 @@ public enum Criteria {
             }
             return (field) -> (root, query, cb) -> root.get(field).in(List.of(value));
         }
+
+        @Override
+        public SqlCondition sqlOf(final String column, final Object... value) {
+            if (isEmpty(value)) {
+                return SqlCondition.ALWAYS;
+            }
+            return new SqlCondition(column + " IN (" + String.join(", ", Collections.nCopies(value.length, "?")) + ")", Arrays.asList(value));
+        }
+
+        @Override
+        public DoublePredicate numberPredicateOf(final Object... value) {
+            if (isEmpty(value) || !Arrays.stream(value).allMatch(Number.class::isInstance)) {
+                return null;
+            }
+            final Set<Double> numbers = Arrays.stream(value).map(Number.class::cast).map(Number::doubleValue).collect(Collectors.toSet());
+            return numbers::contains;
+        }
     },
     
     BEFORE {
@@ -120,6 +219,14 @@ public enum Criteria {
             
             return (field) -> (root, query, cb) -> cb.lessThan(root.get(field), time);
         }
+
+        @Override
+        public SqlCondition sqlOf(final String column, final Object... value) {
+            if (isEmpty(value)) {
+                return SqlCondition.ALWAYS;
+            }
+            return new SqlCondition(column + " < ?", List.of(Timestamp.valueOf((String) value[0])));
+        }
     },
     
     AFTER {
@@ -132,6 +239,14 @@ public enum Criteria {
             
             return (field) -> (root, query, cb) -> cb.greaterThan(root.get(field), time);
         }
+
+        @Override
+        public SqlCondition sqlOf(final String column, final Object... value) {
+            if (isEmpty(value)) {
+                return SqlCondition.ALWAYS;
+            }
+            return new SqlCondition(column + " > ?", List.of(Timestamp.valueOf((String) value[0])));
+        }
     },
     BETWEEN {
         @Override
@@ -144,8 +259,44 @@ public enum Criteria {
             
             return (field) -> (root, query, cb) -> cb.between(root.get(field), start, end);
         }
+
+        @Override
+        public SqlCondition sqlOf(final String column, final Object... value) {
+            if (value == null || value.length < 2) {
+                return SqlCondition.ALWAYS;
+            }
+            return new SqlCondition(column + " BETWEEN ? AND ?", List.of(Timestamp.valueOf((String) value[0]), Timestamp.valueOf((String) value[1])));
+        }
     };
     
     public abstract <T> Function<String, Specification<T>> value(Object... value);
+
+    /**
+     * Write the condition with bind parameters, so the SQL only depends on the operation and the number of values
+     * and statements built from it can be reused by the database.
+     */
+    public abstract SqlCondition sqlOf(String column, Object... value);
+
+    /**
+     * Same condition on a numeric value, for values kept in memory.
+     *
+     * @return null when the operation or its values cannot be compared with numbers the way the database does.
+     */
+    @Nullable
+    public DoublePredicate numberPredicateOf(final Object... value) {
+        return null;
+    }
+
+    private static boolean isEmpty(final Object[] value) {
+        return value == null || value.length == 0;
+    }
+
+    /**
+     * @param sql        condition where every value is written as a ? parameter.
+     * @param parameters values of the parameters, in order.
+     */
+    public record SqlCondition(String sql, List<Object> parameters) {
+        public static final SqlCondition ALWAYS = new SqlCondition("TRUE", List.of());
+    }
     
 }
@@ -0,0 +1,87 @@
+package com.fpt.h2s.utilities;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Immutable interval tree of date ranges, inclusive on both ends. Intervals are sorted by start and read as a balanced
+ * binary tree whose nodes know the latest end of their subtree, so finding the intervals covering a date takes
+ * O(log n + k) for k results.
+ */
+public class IntervalTree<T> {
+
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+    private final List<T> values;
+
+    private IntervalTree(final List<T> sortedValues, final Function<T, LocalDate> startOf, final Function<T, LocalDate> endOf) {
+        final int size = sortedValues.size();
+        this.values = sortedValues;
+        this.starts = new long[size];
+        this.ends = new long[size];
+        this.maxEnds = new long[size];
+        for (int i = 0; i < size; i++) {
+            this.starts[i] = startOf.apply(sortedValues.get(i)).toEpochDay();
+            this.ends[i] = endOf.apply(sortedValues.get(i)).toEpochDay();
+        }
+        this.computeMaxEnds(0, size - 1);
+    }
+
+    public static <T> IntervalTree<T> of(final List<T> values, final Function<T, LocalDate> startOf, final Function<T, LocalDate> endOf) {
+        final List<T> sortedValues = new ArrayList<>(values);
+        sortedValues.sort(Comparator.comparing(startOf));
+        return new IntervalTree<>(List.copyOf(sortedValues), startOf, endOf);
+    }
+
+    private long computeMaxEnds(final int low, final int high) {
+        if (low > high) {
+            return Long.MIN_VALUE;
+        }
+        final int middle = (low + high) >>> 1;
+        final long maxEnd = Math.max(this.ends[middle], Math.max(this.computeMaxEnds(low, middle - 1), this.computeMaxEnds(middle + 1, high)));
+        this.maxEnds[middle] = maxEnd;
+        return maxEnd;
+    }
+
+    /**
+     * @return every value, sorted by start.
+     */
+    public List<T> values() {
+        return this.values;
+    }
+
+    public boolean isEmpty() {
+        return this.values.isEmpty();
+    }
+
+    /**
+     * @return values whose interval contains the input date, sorted by start.
+     */
+    public List<T> findAllCovering(final LocalDate date) {
+        final List<T> result = new ArrayList<>();
+        this.collectCovering(0, this.values.size() - 1, date.toEpochDay(), result);
+        return result;
+    }
+
+    private void collectCovering(final int low, final int high, final long day, final List<T> result) {
+        if (low > high) {
+            return;
+        }
+        final int middle = (low + high) >>> 1;
+        if (this.maxEnds[middle] < day) {
+            return;
+        }
+        this.collectCovering(low, middle - 1, day, result);
+        if (this.starts[middle] > day) {
+            return;
+        }
+        if (this.ends[middle] >= day) {
+            result.add(this.values.get(middle));
+        }
+        this.collectCovering(middle + 1, high, day, result);
+    }
+}
@@ -0,0 +1,120 @@
+package com.fpt.h2s.utilities;
+
+import com.fpt.h2s.models.domains.Cursor;
+import com.fpt.h2s.models.domains.ListResult;
+import com.fpt.h2s.models.exceptions.ApiException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Seek pagination: instead of skipping the rows of previous pages, read the rows placed after the last item
+ * of the previous page in (sort key, id) order. Reading any page costs the same and rows are never counted.
+ */
+@UtilityClass
+public class Keyset {
+
+    private static final String ID = "id";
+
+    /**
+     * Read the items placed after the cursor.
+     *
+     * @param criteria filters of the items, null to read every item.
+     * @param cursor   position of the last item read, null to read the first page.
+     * @return items of the page, with the cursor of its last item when more items exist.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> ListResult<T> findAllAfter(
+        final Class<T> tableClass,
+        @Nullable final Specification<T> criteria,
+        final Order<T> order,
+        @Nullable final Cursor cursor,
+        final int size
+    ) {
+        final EntityManager entityManager = SpringBeans.getBean(EntityManager.class);
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        final Root<T> root = query.from(tableClass);
+        final Expression key = order.key().apply(root, cb);
+        final Path<Integer> id = root.get(ID);
+
+        final List<Predicate> predicates = new ArrayList<>();
+        if (criteria != null) {
+            final Predicate predicate = criteria.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (cursor != null) {
+            if (!order.name().equals(cursor.orderBy()) || order.ascending() != cursor.ascending()) {
+                throw ApiException.badRequest("Cursor không khớp với thứ tự sắp xếp.");
+            }
+            final Comparable value = (Comparable) Mappers.convertTo(key.getJavaType(), cursor.value());
+            predicates.add(
+                order.ascending()
+                    ? cb.or(cb.greaterThan(key, value), cb.and(cb.equal(key, value), cb.greaterThan(id, cursor.id())))
+                    : cb.or(cb.lessThan(key, value), cb.and(cb.equal(key, value), cb.lessThan(id, cursor.id())))
+            );
+        }
+
+        query
+            .multiselect(root, key, id)
+            .where(predicates.toArray(Predicate[]::new))
+            .orderBy(order.ascending() ? List.of(cb.asc(key), cb.asc(id)) : List.of(cb.desc(key), cb.desc(id)));
+
+        final List<Tuple> rows = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        final boolean hasNext = rows.size() > size;
+        final List<Tuple> pageRows = hasNext ? rows.subList(0, size) : rows;
+        final List<T> items = pageRows.stream().map(row -> row.get(0, tableClass)).toList();
+
+        @Nullable String nextCursor = null;
+        if (hasNext) {
+            final Tuple last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new Cursor(order.name(), order.ascending(), last.get(1), last.get(2, Integer.class)).encode();
+        }
+        return ListResult.of(new SliceImpl<>(items, PageRequest.of(0, size), hasNext), nextCursor);
+    }
+
+    /**
+     * Cursor placed at an item, so a page read by number can be continued by cursor.
+     */
+    public static <T> Cursor cursorAt(final Class<T> tableClass, final Order<T> order, final Integer itemId) {
+        final EntityManager entityManager = SpringBeans.getBean(EntityManager.class);
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object> query = cb.createQuery();
+        final Root<T> root = query.from(tableClass);
+        query.select(order.key().apply(root, cb)).where(cb.equal(root.get(ID), itemId));
+        return new Cursor(order.name(), order.ascending(), entityManager.createQuery(query).getSingleResult(), itemId);
+    }
+
+    /**
+     * Keep the items having one of the ids. Large id sets are bound as a single JSON array, as in the native queries
+     * using {@link QueryValues#integerJson(Collection)}, instead of one parameter per id.
+     */
+    public static <T> Specification<T> idIn(final Collection<Integer> ids) {
+        if (!QueryValues.isLarge(ids)) {
+            return (root, query, cb) -> root.get(ID).in(ids);
+        }
+        final String json = QueryValues.integerJson(ids);
+        return (root, query, cb) -> cb.isTrue(cb.function("JSON_CONTAINS", Boolean.class, cb.literal(json), root.get(ID).as(String.class)));
+    }
+
+    /**
+     * @param name      name of the ordering, written into cursors so they cannot be used with another ordering.
+     * @param ascending direction of the ordering, ties are broken by id in the same direction.
+     * @param key       sort key of an item, must never be null.
+     */
+    public record Order<T>(String name, boolean ascending, BiFunction<Root<T>, CriteriaBuilder, Expression<?>> key) {
+
+    }
+}
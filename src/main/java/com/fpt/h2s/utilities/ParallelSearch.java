@@ -0,0 +1,133 @@
+package com.fpt.h2s.utilities;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent variant of {@link FluentSearch} for filters that do not depend on each other.
+ * Every filter returns the ids it accepts, or null to accept everything. Filters run on a bounded pool,
+ * their results are intersected as soon as they arrive and the remaining filters are cancelled
+ * once the intersection is empty.
+ */
+@Log4j2
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ParallelSearch<T> {
+
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final ExecutorService POOL = new ThreadPoolExecutor(
+        POOL_SIZE,
+        POOL_SIZE,
+        60,
+        TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(POOL_SIZE * 16),
+        threadFactory(),
+        new ThreadPoolExecutor.CallerRunsPolicy()
+    );
+
+    private final Map<String, Supplier<Set<T>>> stages = new LinkedHashMap<>();
+
+    public static <T> ParallelSearch<T> start(final String name, final Supplier<Set<T>> stage) {
+        return new ParallelSearch<T>().and(name, stage);
+    }
+
+    public ParallelSearch<T> and(final String name, final Supplier<Set<T>> stage) {
+        this.stages.put(name, stage);
+        return this;
+    }
+
+    public Result<T> get() {
+        final CompletionService<StageResult<T>> completion = new ExecutorCompletionService<>(POOL);
+        final List<Future<StageResult<T>>> futures = new ArrayList<>();
+        this.stages.forEach((name, stage) -> futures.add(completion.submit(() -> run(name, stage))));
+
+        final Map<String, Duration> timings = new LinkedHashMap<>();
+        Set<T> ids = null;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                final StageResult<T> result = completion.take().get();
+                timings.put(result.name(), result.elapsed());
+                ids = intersect(ids, result.ids());
+                if (ids != null && ids.isEmpty()) {
+                    futures.forEach(future -> future.cancel(true));
+                    break;
+                }
+            }
+        } catch (final InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search has been interrupted.", e);
+        } catch (final ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof final RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        log.debug("Search stages took {}", timings);
+        return new Result<>(ids, timings);
+    }
+
+    private static <T> StageResult<T> run(final String name, final Supplier<Set<T>> stage) {
+        final long start = System.nanoTime();
+        final Set<T> ids = stage.get();
+        return new StageResult<>(name, ids, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    @Nullable
+    private static <T> Set<T> intersect(@Nullable final Set<T> ids, @Nullable final Set<T> otherIds) {
+        if (ids == null) {
+            return otherIds;
+        }
+        if (otherIds == null) {
+            return ids;
+        }
+        final Set<T> smaller = ids.size() <= otherIds.size() ? ids : otherIds;
+        final Set<T> larger = smaller == ids ? otherIds : ids;
+        final Set<T> result = new HashSet<>();
+        for (final T id : smaller) {
+            if (larger.contains(id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private static ThreadFactory threadFactory() {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record StageResult<T>(String name, Set<T> ids, Duration elapsed) {
+
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Result<T> {
+
+        /**
+         * Ids accepted by every stage, null when no stage restricted them.
+         */
+        @Nullable
+        private final Set<T> ids;
+
+        /**
+         * Duration of the stages that completed, in completion order. Cancelled stages are absent.
+         */
+        private final Map<String, Duration> timings;
+    }
+}
@@ -13,6 +13,11 @@ import java.util.stream.Collectors;
 public class QueryValues {
     public static final Timestamp UNREACHABLE_PAST = Timestamp.valueOf(LocalDateTime.of(1970, 1, 1, 0, 0));
 
+    /**
+     * Above this number of ids, queries should join a JSON array of the ids instead of binding one parameter per id.
+     */
+    public static final int LARGE_LIST_SIZE = 1000;
+
     public static <T> List<String> enumListOf(final List<T> list) {
         return ListEx.listOf(list).stream().map(Object::toString).toList();
     }
@@ -24,6 +29,23 @@ public class QueryValues {
         return StreamEx.from(collection).filter(Objects::nonNull).collect(Collectors.toSet());
     }
 
+    /**
+     * @return true when ids should be passed with {@link #integerJson(Collection)} rather than {@link #integerList(Collection)}.
+     */
+    public static boolean isLarge(final Collection<Integer> collection) {
+        return collection != null && collection.size() > LARGE_LIST_SIZE;
+    }
+
+    /**
+     * Pack ids into a single JSON array parameter, to be joined with
+     * {@code JSON_TABLE(:ids, '$[*]' COLUMNS (id INT PATH '$')) AS candidates}.
+     */
+    public static String integerJson(final Collection<Integer> collection) {
+        final StringJoiner json = new StringJoiner(",", "[", "]");
+        StreamEx.from(collection).filter(Objects::nonNull).distinct().forEach(id -> json.add(id.toString()));
+        return json.toString();
+    }
+
     public static Set<Long> longList(final Collection<Long> collection) {
         if (collection == null) {
             return Set.of(-1L);
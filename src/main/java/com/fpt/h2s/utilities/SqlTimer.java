@@ -0,0 +1,64 @@
+package com.fpt.h2s.utilities;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Measures the time spent executing statements by the current thread. Registered as a p6spy listener,
+ * it only counts statements executed inside {@link #measure(Supplier)}.
+ */
+@Component
+public class SqlTimer extends JdbcEventListener {
+
+    private static final ThreadLocal<Usage> CURRENT_USAGE = new ThreadLocal<>();
+
+    @Override
+    public void onAfterAnyExecute(final StatementInformation statementInformation, final long timeElapsedNanos, final SQLException e) {
+        final Usage usage = CURRENT_USAGE.get();
+        if (usage != null) {
+            usage.add(timeElapsedNanos, 1);
+        }
+    }
+
+    /**
+     * Run a task and count the statements it executes on this thread. Measures can be nested,
+     * statements of an inner measure are counted by the outer one too.
+     */
+    public static <T> Measured<T> measure(final Supplier<T> task) {
+        final Usage outerUsage = CURRENT_USAGE.get();
+        final Usage usage = new Usage();
+        CURRENT_USAGE.set(usage);
+        try {
+            return new Measured<>(task.get(), Duration.ofNanos(usage.nanos), usage.statements);
+        } finally {
+            CURRENT_USAGE.set(outerUsage);
+            if (outerUsage != null) {
+                outerUsage.add(usage.nanos, usage.statements);
+            }
+        }
+    }
+
+    /**
+     * @param value      result of the task.
+     * @param sqlTime    time spent executing statements.
+     * @param statements number of statements executed.
+     */
+    public record Measured<T>(T value, Duration sqlTime, int statements) {
+
+    }
+
+    private static final class Usage {
+        private long nanos;
+        private int statements;
+
+        void add(final long nanos, final int statements) {
+            this.nanos += nanos;
+            this.statements += statements;
+        }
+    }
+}
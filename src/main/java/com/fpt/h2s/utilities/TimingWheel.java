@@ -0,0 +1,95 @@
+package com.fpt.h2s.utilities;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Hashed timing wheel. An item is put in the slot of the tick of its deadline, so adding an item costs O(1)
+ * and advancing the wheel only visits the slots of the elapsed ticks. Items due after more than one rotation
+ * share their slot with earlier items and stay there until their own tick has elapsed. Items are compared with equals,
+ * an item added again replaces its previous deadline.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final List<List<Entry<T>>> slots;
+    private final Map<T, Long> ticksMapToItem = new HashMap<>();
+    private long nextTick;
+
+    /**
+     * @param tick precision of deadlines.
+     * @param size number of slots, one rotation lasts tick * size.
+     */
+    public TimingWheel(final Duration tick, final int size) {
+        this.tickMillis = tick.toMillis();
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            this.slots.add(new ArrayList<>());
+        }
+        this.nextTick = this.tickOf(Instant.now());
+    }
+
+    /**
+     * Add an item. Items whose deadline has already passed are returned by the first advance reaching the next tick.
+     */
+    public synchronized void add(final T item, final Instant deadline) {
+        this.cancel(item);
+        final long tick = Math.max(this.tickOf(deadline), this.nextTick);
+        this.slotOf(tick).add(new Entry<>(item, tick));
+        this.ticksMapToItem.put(item, tick);
+    }
+
+    /**
+     * Remove an item before its deadline.
+     *
+     * @return false if the item is not in the wheel, because it has never been added or has already been returned.
+     */
+    public synchronized boolean cancel(final T item) {
+        final Long tick = this.ticksMapToItem.remove(item);
+        if (tick == null) {
+            return false;
+        }
+        return this.slotOf(tick).removeIf(entry -> entry.tick() == tick && entry.item().equals(item));
+    }
+
+    public synchronized int size() {
+        return this.ticksMapToItem.size();
+    }
+
+    /**
+     * Advance the wheel until a time.
+     *
+     * @return items whose deadline is before this time.
+     */
+    public synchronized List<T> advance(final Instant now) {
+        final long lastTick = this.tickOf(now);
+        final List<T> dueItems = new ArrayList<>();
+        final long ticksToVisit = Math.min(lastTick - this.nextTick + 1, this.slots.size());
+        for (long tick = this.nextTick; tick < this.nextTick + ticksToVisit; tick++) {
+            final Iterator<Entry<T>> entries = this.slotOf(tick).iterator();
+            while (entries.hasNext()) {
+                final Entry<T> entry = entries.next();
+                if (entry.tick() <= lastTick) {
+                    dueItems.add(entry.item());
+                    entries.remove();
+                    this.ticksMapToItem.remove(entry.item());
+                }
+            }
+        }
+        this.nextTick = Math.max(this.nextTick, lastTick + 1);
+        return dueItems;
+    }
+
+    private long tickOf(final Instant time) {
+        return time.toEpochMilli() / this.tickMillis;
+    }
+
+    private List<Entry<T>> slotOf(final long tick) {
+        return this.slots.get((int) Math.floorMod(tick, (long) this.slots.size()));
+    }
+
+    private record Entry<T>(T item, long tick) {
+
+    }
+}
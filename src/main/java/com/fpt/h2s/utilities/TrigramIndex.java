@@ -0,0 +1,187 @@
+package com.fpt.h2s.utilities;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+
+/**
+ * Inverted index of the trigrams of short texts, such as names, addresses or emails. Texts are folded before being indexed,
+ * so searches ignore case and Vietnamese diacritics. Postings only narrow candidates down, substring filters are
+ * still checked against the folded text. Not thread safe, owners must lock around reads and writes.
+ */
+public class TrigramIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    /**
+     * Part of the keyword trigrams a text must contain to be returned by a keyword search.
+     */
+    private static final double MIN_SIMILARITY = 0.5;
+
+    private final Map<String, Double> weights;
+    private final Map<String, Map<Integer, String>> texts = new HashMap<>();
+    private final Map<String, Map<String, Set<Integer>>> postings = new HashMap<>();
+
+    /**
+     * @param weights indexed fields with the weight of their matches in keyword searches.
+     */
+    public TrigramIndex(final Map<String, Double> weights) {
+        this.weights = weights;
+        weights.keySet().forEach(field -> {
+            this.texts.put(field, new HashMap<>());
+            this.postings.put(field, new HashMap<>());
+        });
+    }
+
+    public static String fold(@Nullable final String text) {
+        if (text == null) {
+            return "";
+        }
+        return MoreStrings.unaccent(text).toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+
+    private static Set<String> trigramsOf(final String foldedText) {
+        final Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= foldedText.length(); i++) {
+            trigrams.add(foldedText.substring(i, i + GRAM_SIZE));
+        }
+        return trigrams;
+    }
+
+    public boolean isIndexed(final String field) {
+        return this.weights.containsKey(field);
+    }
+
+    /**
+     * Index the texts of an entity, replacing texts indexed before under the same id. Fields which are not indexed are ignored.
+     */
+    public void put(final int id, final Map<String, String> fieldTexts) {
+        this.remove(id);
+        fieldTexts.forEach((field, text) -> {
+            final String foldedText = fold(text);
+            if (!this.isIndexed(field) || foldedText.isEmpty()) {
+                return;
+            }
+            this.texts.get(field).put(id, foldedText);
+            final Map<String, Set<Integer>> fieldPostings = this.postings.get(field);
+            trigramsOf(foldedText).forEach(trigram -> fieldPostings.computeIfAbsent(trigram, key -> new HashSet<>()).add(id));
+        });
+    }
+
+    public void remove(final int id) {
+        this.texts.forEach((field, fieldTexts) -> {
+            final String foldedText = fieldTexts.remove(id);
+            if (foldedText == null) {
+                return;
+            }
+            final Map<String, Set<Integer>> fieldPostings = this.postings.get(field);
+            trigramsOf(foldedText).forEach(trigram -> fieldPostings.computeIfPresent(trigram, (key, ids) -> ids.remove(id) && ids.isEmpty() ? null : ids));
+        });
+    }
+
+    public int size(final String field) {
+        return this.texts.get(field).size();
+    }
+
+    /**
+     * Answer a text operation of {@link Criteria} on an indexed field.
+     *
+     * @return ids of entities whose text matches, null when the field is not indexed or the operation cannot be answered by the index.
+     */
+    @Nullable
+    public Set<Integer> findAllMatching(final String field, final Criteria operation, @Nullable final Object... value) {
+        final BiPredicate<String, String> matcher = switch (operation) {
+            case CONTAINS -> String::contains;
+            case STARTS_WITH -> String::startsWith;
+            case ENDS_WITH -> String::endsWith;
+            default -> null;
+        };
+        if (matcher == null || !this.isIndexed(field) || value == null || value.length == 0 || value[0] == null) {
+            return null;
+        }
+
+        final String foldedValue = fold(value[0].toString());
+        final Map<Integer, String> fieldTexts = this.texts.get(field);
+        final Collection<Integer> candidates = foldedValue.length() < GRAM_SIZE
+            ? fieldTexts.keySet()
+            : this.candidatesHavingAll(field, trigramsOf(foldedValue));
+
+        final Set<Integer> result = new HashSet<>();
+        for (final Integer id : candidates) {
+            if (matcher.test(fieldTexts.get(id), foldedValue)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private Collection<Integer> candidatesHavingAll(final String field, final Set<String> trigrams) {
+        final Map<String, Set<Integer>> fieldPostings = this.postings.get(field);
+        final List<Set<Integer>> lists = new ArrayList<>();
+        for (final String trigram : trigrams) {
+            final Set<Integer> ids = fieldPostings.get(trigram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        final Set<Integer> candidates = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(lists.get(i));
+        }
+        return candidates;
+    }
+
+    /**
+     * Rank entities by similarity with a keyword. The score of a field is the part of the keyword trigrams found in its text,
+     * plus a bonus when the text starts with or contains the whole keyword, multiplied by the weight of the field.
+     * Keywords shorter than a trigram only match texts containing them.
+     *
+     * @return at most limit hits, best first.
+     */
+    public List<Hit> search(final String keyword, final int limit) {
+        final String foldedKeyword = fold(keyword);
+        if (foldedKeyword.isEmpty()) {
+            return List.of();
+        }
+        final Set<String> keywordTrigrams = trigramsOf(foldedKeyword);
+
+        final Map<Integer, Double> scores = new HashMap<>();
+        this.weights.forEach((field, weight) -> {
+            final Map<Integer, String> fieldTexts = this.texts.get(field);
+            final Map<Integer, Integer> totalMatches = new HashMap<>();
+            if (keywordTrigrams.isEmpty()) {
+                fieldTexts.keySet().forEach(id -> totalMatches.put(id, 0));
+            }
+            keywordTrigrams.forEach(trigram -> this.postings
+                .get(field)
+                .getOrDefault(trigram, Set.of())
+                .forEach(id -> totalMatches.merge(id, 1, Integer::sum)));
+
+            totalMatches.forEach((id, matches) -> {
+                final String text = fieldTexts.get(id);
+                final double similarity = keywordTrigrams.isEmpty() ? 0 : (double) matches / keywordTrigrams.size();
+                final double bonus = text.startsWith(foldedKeyword) ? 1 : text.contains(foldedKeyword) ? 0.5 : 0;
+                if (bonus == 0 && similarity < MIN_SIMILARITY) {
+                    return;
+                }
+                scores.merge(id, weight * (similarity + bonus), Double::sum);
+            });
+        });
+
+        return scores
+            .entrySet()
+            .stream()
+            .map(entry -> new Hit(entry.getKey(), entry.getValue()))
+            .sorted(Comparator.comparingDouble(Hit::score).reversed().thenComparingInt(Hit::id))
+            .limit(limit)
+            .toList();
+    }
+
+    public record Hit(int id, double score) {
+
+    }
+}
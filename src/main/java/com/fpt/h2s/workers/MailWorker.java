@@ -1,6 +1,8 @@
 package com.fpt.h2s.workers;
 
+import com.fpt.h2s.models.entities.OutboxEvent;
 import com.fpt.h2s.services.MailService;
+import com.fpt.h2s.services.Outbox;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
@@ -14,6 +16,8 @@ public class MailWorker extends BaseWorker<MailService.MailData> {
 
     private final MailService mailService;
 
+    private final Outbox outbox;
+
     @Override
     protected void execute(final MailService.MailData mail) {
         try {
@@ -38,9 +42,12 @@ public class MailWorker extends BaseWorker<MailService.MailData> {
         return "mail_routingKey";
     }
 
+    /**
+     * Queue a mail once the current transaction has been committed, see {@link Outbox}.
+     */
     public void sendMail(final UnaryOperator<MailService.MailBuilder> mailBuilder) {
         final MailService.MailData mail = this.mailService.createMail(mailBuilder);
-        this.send(mail);
+        this.outbox.add(OutboxEvent.Type.MAIL, mail);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.fpt.h2s.accommodation;
+
+import com.fpt.h2s.models.entities.Accommodation;
+import com.fpt.h2s.repositories.AccommodationRepository;
+import com.fpt.h2s.repositories.RoomRepository;
+import com.fpt.h2s.services.*;
+import com.fpt.h2s.services.commands.accommodation.AccommodationAdapter;
+import com.fpt.h2s.services.commands.accommodation.SearchAccommodationAvailableRoomsCommand.CriteriaRequest;
+import com.fpt.h2s.services.commands.accommodation.SearchAccommodationCommand;
+import com.fpt.h2s.utilities.Criteria;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SearchAccommodationCommandTest {
+
+    private final AccommodationRepository accommodationRepository = mock(AccommodationRepository.class);
+    private final RoomRepository roomRepository = mock(RoomRepository.class);
+    private final AccommodationAdapter adapter = mock(AccommodationAdapter.class);
+    private final AccommodationFacetIndex facetIndex = mock(AccommodationFacetIndex.class);
+    private final RoomPropertyIndex roomPropertyIndex = mock(RoomPropertyIndex.class);
+
+    private SearchAccommodationCommand command;
+
+    @BeforeEach
+    void setUp() {
+        this.command = new SearchAccommodationCommand(
+            this.accommodationRepository,
+            this.roomRepository,
+            this.adapter,
+            this.facetIndex,
+            mock(AccommodationGeoIndex.class),
+            mock(RoomAvailabilityIndex.class),
+            mock(AccommodationPriceIndex.class),
+            this.roomPropertyIndex,
+            mock(AccommodationRankingIndex.class),
+            mock(SearchResultCache.class),
+            new SearchMetrics()
+        );
+        when(this.adapter.responsesOf(anyList())).thenReturn(List.of());
+    }
+
+    @Test
+    void should_find_accommodations_having_rooms_met_when_searching_without_dates() {
+        when(this.roomPropertyIndex.findAllThatMeet(anyList(), isNull())).thenReturn(Set.of(10, 11));
+        when(this.roomRepository.findAllAccommodationIdsOf(Set.of(10, 11))).thenReturn(Set.of(5));
+        when(this.facetIndex.findAllThatMeet(anyCollection(), anyCollection(), eq(Set.of(5)))).thenReturn(Set.of(5));
+        when(this.accommodationRepository.findAllByIdIn(eq(Set.of(5)), any()))
+            .thenReturn(new PageImpl<>(List.of(Accommodation.builder().id(5).build())));
+
+        final SearchAccommodationCommand.Request request = SearchAccommodationCommand.Request
+            .builder()
+            .orderBy(Accommodation.Fields.reviewRate)
+            .criteriaList(List.of(CriteriaRequest.builder().key(1).operation(Criteria.EQUALS).value(new Object[]{2}).build()))
+            .build();
+
+        final SearchAccommodationCommand.Explanation explanation = this.command.explain(request).getData();
+
+        Assertions.assertThat(explanation.result().getTotalItems()).isEqualTo(1L);
+        verify(this.accommodationRepository).findAllByIdIn(eq(Set.of(5)), any());
+    }
+}
@@ -0,0 +1,51 @@
+package com.fpt.h2s.services;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+class AccommodationPriceIndexTest {
+
+    private static final AccommodationPriceIndex.Bounds BOUNDS = new AccommodationPriceIndex.Bounds(100L, 300L, day(1), day(31));
+
+    private static LocalDate day(final int day) {
+        return LocalDate.of(2030, 1, day);
+    }
+
+    @Test
+    void should_compare_nightly_prices_with_bounds() {
+        Assertions.assertThat(BOUNDS.mayBeBetween(0, 100, day(10), day(10), 1)).isTrue();
+        Assertions.assertThat(BOUNDS.mayBeBetween(300, 1000, day(10), day(10), 1)).isTrue();
+        Assertions.assertThat(BOUNDS.mayBeBetween(0, 99, day(10), day(10), 1)).isFalse();
+        Assertions.assertThat(BOUNDS.mayBeBetween(301, 1000, day(10), day(10), 1)).isFalse();
+    }
+
+    @Test
+    void should_compare_total_prices_with_bounds_times_nights() {
+        // 3 nights cost between the lowest nightly price and 3 times the highest one.
+        Assertions.assertThat(BOUNDS.mayBeBetween(900, 2000, day(10), day(12), 3)).isTrue();
+        Assertions.assertThat(BOUNDS.mayBeBetween(901, 2000, day(10), day(12), 3)).isFalse();
+        Assertions.assertThat(BOUNDS.mayBeBetween(0, 99, day(10), day(12), 3)).isFalse();
+    }
+
+    @Test
+    void should_keep_stays_outside_window_of_bounds() {
+        Assertions.assertThat(BOUNDS.mayBeBetween(0, 99, day(31), LocalDate.of(2030, 2, 1), 2)).isTrue();
+        Assertions.assertThat(BOUNDS.mayBeBetween(301, 1000, LocalDate.of(2029, 12, 31), day(1), 2)).isTrue();
+    }
+
+    @Test
+    void should_discard_accommodation_without_price_in_window() {
+        final AccommodationPriceIndex.Bounds bounds = new AccommodationPriceIndex.Bounds(null, null, day(1), day(31));
+
+        Assertions.assertThat(bounds.mayBeBetween(0, Long.MAX_VALUE, day(10), day(10), 1)).isFalse();
+    }
+
+    @Test
+    void should_keep_accommodation_without_window() {
+        final AccommodationPriceIndex.Bounds bounds = new AccommodationPriceIndex.Bounds(null, null, null, null);
+
+        Assertions.assertThat(bounds.mayBeBetween(0, 1, day(10), day(10), 1)).isTrue();
+    }
+}
@@ -0,0 +1,128 @@
+package com.fpt.h2s.services;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class BaseIndexTest {
+
+    /**
+     * Index of the names of entities, read from a fake database.
+     */
+    private static class NameIndex extends BaseIndex {
+        private final Map<Integer, String> database = new HashMap<>();
+        private final List<Set<Integer>> reloadedIds = new ArrayList<>();
+        private Runnable duringLoad = () -> {};
+        private boolean failReloads = false;
+        private Map<Integer, String> names = new HashMap<>();
+
+        @Override
+        protected void load() {
+            final Map<Integer, String> newNames = new HashMap<>(this.database);
+            this.duringLoad.run();
+            this.writeLocked(() -> this.names = newNames);
+        }
+
+        @Override
+        protected void reload(final Set<Integer> ids) {
+            if (this.failReloads) {
+                throw new IllegalStateException("Database is down.");
+            }
+            this.reloadedIds.add(ids);
+            this.writeLocked(() -> ids.forEach(id -> {
+                this.names.remove(id);
+                if (this.database.containsKey(id)) {
+                    this.names.put(id, this.database.get(id));
+                }
+            }));
+        }
+
+        String nameOf(final int id) {
+            return this.readLocked(() -> this.names.get(id));
+        }
+    }
+
+    private final NameIndex index = new NameIndex();
+
+    @Test
+    void should_load_index_on_first_read() {
+        this.index.database.put(1, "a");
+
+        Assertions.assertThat(this.index.nameOf(1)).isEqualTo("a");
+        Assertions.assertThat(this.index.reloadedIds).isEmpty();
+    }
+
+    @Test
+    void should_reload_invalidated_ids_before_next_read() {
+        this.index.database.put(1, "a");
+        this.index.rebuild();
+
+        this.index.database.put(1, "b");
+        this.index.invalidate(Set.of(1));
+
+        Assertions.assertThat(this.index.nameOf(1)).isEqualTo("b");
+        Assertions.assertThat(this.index.nameOf(1)).isEqualTo("b");
+        Assertions.assertThat(this.index.reloadedIds).containsExactly(Set.of(1));
+    }
+
+    @Test
+    void should_not_reload_ids_invalidated_before_rebuild() {
+        this.index.database.put(1, "a");
+        this.index.rebuild();
+        this.index.database.put(1, "b");
+        this.index.invalidate(Set.of(1));
+
+        this.index.rebuild();
+
+        Assertions.assertThat(this.index.nameOf(1)).isEqualTo("b");
+        Assertions.assertThat(this.index.reloadedIds).isEmpty();
+    }
+
+    @Test
+    void should_keep_changes_invalidated_while_rebuilding() {
+        this.index.database.put(1, "a");
+        this.index.rebuild();
+        this.index.duringLoad = () -> {
+            // Committed after the load read the database.
+            this.index.database.put(1, "b");
+            this.index.invalidate(Set.of(1));
+        };
+
+        this.index.rebuild();
+
+        Assertions.assertThat(this.index.nameOf(1)).isEqualTo("b");
+    }
+
+    @Test
+    void should_keep_ids_pending_until_their_reload_succeeds() {
+        this.index.database.put(1, "a");
+        this.index.rebuild();
+        this.index.database.put(1, "b");
+        this.index.invalidate(Set.of(1));
+
+        this.index.failReloads = true;
+        Assertions.assertThatThrownBy(() -> this.index.nameOf(1)).isInstanceOf(IllegalStateException.class);
+
+        this.index.failReloads = false;
+        Assertions.assertThat(this.index.nameOf(1)).isEqualTo("b");
+    }
+
+    @Test
+    void should_load_index_again_after_invalidating_all() {
+        this.index.database.put(1, "a");
+        this.index.rebuild();
+        this.index.database.put(1, "b");
+        this.index.database.put(2, "c");
+
+        this.index.invalidateAll();
+
+        Assertions.assertThat(this.index.nameOf(1)).isEqualTo("b");
+        Assertions.assertThat(this.index.nameOf(2)).isEqualTo("c");
+        Assertions.assertThat(this.index.reloadedIds).isEmpty();
+    }
+}
@@ -0,0 +1,179 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.PriceHistory;
+import com.fpt.h2s.models.entities.listeners.SearchVersionListener;
+import com.fpt.h2s.repositories.PriceHistoryRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CustomPriceRuleServiceTest {
+
+    private static final int ROOM_ID = 1;
+    private static final int OTHER_ROOM_ID = 2;
+
+    private final PriceHistoryRepository priceHistoryRepository = mock(PriceHistoryRepository.class);
+    private final DayTypeCalendar dayTypeCalendar = mock(DayTypeCalendar.class);
+    private final List<PriceHistory> existingRules = new ArrayList<>();
+
+    private CustomPriceRuleService service;
+
+    @BeforeEach
+    void setUp() {
+        this.service = new CustomPriceRuleService(
+            this.priceHistoryRepository,
+            this.dayTypeCalendar,
+            mock(RoomPriceCalendarService.class),
+            mock(SearchVersionListener.class)
+        );
+        when(this.priceHistoryRepository.findAllByRoomIdInAndDayType(any(), eq(PriceHistory.DayType.CUSTOM))).thenReturn(this.existingRules);
+        when(this.dayTypeCalendar.lastDate()).thenReturn(day(31));
+    }
+
+    @Test
+    void should_cut_existing_rule_when_change_overlaps_its_start() {
+        this.givenRule(1, ROOM_ID, PriceHistory.Type.PRICE, 10, 20, 150);
+
+        final List<String> rules = this.apply(change(ROOM_ID, PriceHistory.Type.PRICE, 5, 12, 200));
+
+        Assertions.assertThat(rules).containsExactlyInAnyOrder("1 PRICE 5-12 200", "1 PRICE 13-20 150");
+    }
+
+    @Test
+    void should_cut_existing_rule_when_change_overlaps_its_end() {
+        this.givenRule(1, ROOM_ID, PriceHistory.Type.PRICE, 10, 20, 150);
+
+        final List<String> rules = this.apply(change(ROOM_ID, PriceHistory.Type.PRICE, 18, 25, 200));
+
+        Assertions.assertThat(rules).containsExactlyInAnyOrder("1 PRICE 10-17 150", "1 PRICE 18-25 200");
+    }
+
+    @Test
+    void should_split_existing_rule_when_change_is_inside_it() {
+        this.givenRule(1, ROOM_ID, PriceHistory.Type.PRICE, 10, 20, 150);
+
+        final List<String> rules = this.apply(change(ROOM_ID, PriceHistory.Type.PRICE, 13, 15, 200));
+
+        Assertions.assertThat(rules).containsExactlyInAnyOrder("1 PRICE 10-12 150", "1 PRICE 13-15 200", "1 PRICE 16-20 150");
+    }
+
+    @Test
+    void should_replace_existing_rules_covered_by_change() {
+        this.givenRule(1, ROOM_ID, PriceHistory.Type.PRICE, 10, 12, 150);
+        this.givenRule(2, ROOM_ID, PriceHistory.Type.PRICE, 14, 16, 160);
+
+        final List<String> rules = this.apply(change(ROOM_ID, PriceHistory.Type.PRICE, 9, 20, 200));
+
+        Assertions.assertThat(rules).containsExactlyInAnyOrder("1 PRICE 9-20 200");
+    }
+
+    @Test
+    void should_apply_changes_of_each_room_and_type_separately() {
+        this.givenRule(1, ROOM_ID, PriceHistory.Type.PRICE, 10, 20, 150);
+        this.givenRule(2, ROOM_ID, PriceHistory.Type.DISCOUNT, 10, 20, 10);
+        this.givenRule(3, OTHER_ROOM_ID, PriceHistory.Type.PRICE, 10, 20, 150);
+
+        final List<String> rules = this.apply(
+            change(ROOM_ID, PriceHistory.Type.PRICE, 15, 25, 200),
+            change(OTHER_ROOM_ID, PriceHistory.Type.PRICE, 1, 12, 300)
+        );
+
+        Assertions.assertThat(rules).containsExactlyInAnyOrder(
+            "1 DISCOUNT 10-20 10",
+            "1 PRICE 10-14 150",
+            "1 PRICE 15-25 200",
+            "2 PRICE 1-12 300",
+            "2 PRICE 13-20 150"
+        );
+    }
+
+    @Test
+    void should_merge_adjacent_ranges_having_same_amount() {
+        this.givenRule(1, ROOM_ID, PriceHistory.Type.PRICE, 10, 12, 150);
+
+        final List<String> rules = this.apply(change(ROOM_ID, PriceHistory.Type.PRICE, 13, 15, 150));
+
+        Assertions.assertThat(rules).containsExactlyInAnyOrder("1 PRICE 10-15 150");
+    }
+
+    @Test
+    void should_keep_rules_left_unchanged() {
+        this.givenRule(1, ROOM_ID, PriceHistory.Type.PRICE, 10, 12, 150);
+
+        this.apply(change(ROOM_ID, PriceHistory.Type.PRICE, 20, 22, 200));
+
+        Assertions.assertThat(this.deletedRules()).isEmpty();
+    }
+
+    @Test
+    void should_apply_change_without_end_until_last_day_of_calendar() {
+        final List<String> rules = this.apply(new CustomPriceRuleService.Change(ROOM_ID, PriceHistory.Type.PRICE, 200, day(20), null));
+
+        Assertions.assertThat(rules).containsExactlyInAnyOrder("1 PRICE 20-31 200");
+    }
+
+    @Test
+    void should_let_latest_existing_rule_win_where_existing_rules_overlap() {
+        this.givenRule(1, ROOM_ID, PriceHistory.Type.PRICE, 10, 20, 150);
+        this.givenRule(2, ROOM_ID, PriceHistory.Type.PRICE, 15, 25, 160);
+
+        final List<String> rules = this.apply(change(ROOM_ID, PriceHistory.Type.PRICE, 1, 2, 100));
+
+        Assertions.assertThat(rules).containsExactlyInAnyOrder("1 PRICE 1-2 100", "1 PRICE 10-14 150", "1 PRICE 15-25 160");
+    }
+
+    private static LocalDate day(final int day) {
+        return LocalDate.of(2030, 1, day);
+    }
+
+    private static CustomPriceRuleService.Change change(final int roomId, final PriceHistory.Type type, final int fromDay, final int toDay, final long amount) {
+        return new CustomPriceRuleService.Change(roomId, type, amount, day(fromDay), day(toDay));
+    }
+
+    private void givenRule(final int id, final int roomId, final PriceHistory.Type type, final int fromDay, final int toDay, final long amount) {
+        this.existingRules.add(PriceHistory
+            .builder()
+            .id(id)
+            .roomId(roomId)
+            .type(type)
+            .dayType(PriceHistory.DayType.CUSTOM)
+            .amount(amount)
+            .fromDate(day(fromDay))
+            .toDate(day(toDay))
+            .build());
+    }
+
+    /**
+     * @return rules stored after the changes, written as "room type from-to amount".
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> apply(final CustomPriceRuleService.Change... changes) {
+        this.service.apply(List.of(changes));
+
+        final ArgumentCaptor<List<PriceHistory>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(this.priceHistoryRepository).saveAll(inserted.capture());
+        final List<PriceHistory> rules = new ArrayList<>(this.existingRules);
+        rules.removeAll(this.deletedRules());
+        rules.addAll(inserted.getValue());
+        return rules
+            .stream()
+            .map(rule -> "%d %s %d-%d %d".formatted(rule.getRoomId(), rule.getType(), rule.getFromDate().getDayOfMonth(), rule.getToDate().getDayOfMonth(), rule.getAmount()))
+            .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PriceHistory> deletedRules() {
+        final ArgumentCaptor<List<PriceHistory>> deleted = ArgumentCaptor.forClass(List.class);
+        verify(this.priceHistoryRepository).deleteAllInBatch(deleted.capture());
+        return deleted.getValue();
+    }
+}
@@ -0,0 +1,84 @@
+package com.fpt.h2s.services;
+
+import com.fpt.h2s.models.entities.DayType;
+import com.fpt.h2s.repositories.DayTypeRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class DayTypeCalendarTest {
+
+    private final DayTypeRepository dayTypeRepository = mock(DayTypeRepository.class);
+    private final DayTypeCalendar calendar = new DayTypeCalendar(this.dayTypeRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(this.dayTypeRepository.findAll()).thenReturn(List.of(
+            day(LocalDate.of(2027, 12, 31), DayType.Type.SPECIAL_DAY),
+            day(LocalDate.of(2028, 2, 28), DayType.Type.WEEKDAY),
+            day(LocalDate.of(2028, 2, 29), DayType.Type.WEEKEND),
+            day(LocalDate.of(2028, 3, 1), DayType.Type.SPECIAL_DAY),
+            day(LocalDate.of(2028, 3, 3), DayType.Type.WEEKDAY),
+            day(LocalDate.of(2028, 12, 31), DayType.Type.WEEKEND),
+            day(LocalDate.of(2029, 1, 1), DayType.Type.SPECIAL_DAY),
+            day(LocalDate.of(2029, 3, 1), DayType.Type.WEEKDAY),
+            day(LocalDate.of(2029, 3, 2), null)
+        ));
+    }
+
+    private static DayType day(final LocalDate date, final DayType.Type type) {
+        return DayType.builder().date(date).type(type).build();
+    }
+
+    @Test
+    void should_read_type_of_every_day_across_leap_year() {
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2027, 12, 31))).isEqualTo(DayType.Type.SPECIAL_DAY);
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2028, 2, 28))).isEqualTo(DayType.Type.WEEKDAY);
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2028, 2, 29))).isEqualTo(DayType.Type.WEEKEND);
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2028, 3, 1))).isEqualTo(DayType.Type.SPECIAL_DAY);
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2028, 12, 31))).isEqualTo(DayType.Type.WEEKEND);
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2029, 1, 1))).isEqualTo(DayType.Type.SPECIAL_DAY);
+        // Same day of year as 2028-02-29, but another year.
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2029, 3, 1))).isEqualTo(DayType.Type.WEEKDAY);
+    }
+
+    @Test
+    void should_not_type_days_out_of_calendar() {
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2028, 3, 2))).isNull();
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2029, 3, 2))).isNull();
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2029, 2, 28))).isNull();
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2030, 1, 1))).isNull();
+    }
+
+    @Test
+    void should_bound_calendar_by_first_and_last_typed_days() {
+        Assertions.assertThat(this.calendar.firstDate()).isEqualTo(LocalDate.of(2027, 12, 31));
+        Assertions.assertThat(this.calendar.lastDate()).isEqualTo(LocalDate.of(2029, 3, 1));
+    }
+
+    @Test
+    void should_pack_only_days_of_calendar_into_json() {
+        Assertions.assertThat(this.calendar.daysJson(LocalDate.of(2028, 2, 27), LocalDate.of(2028, 3, 3))).isEqualTo(
+            "[[\"2028-02-28\",\"WEEKDAY\"],[\"2028-02-29\",\"WEEKEND\"],[\"2028-03-01\",\"SPECIAL_DAY\"],[\"2028-03-03\",\"WEEKDAY\"]]"
+        );
+        Assertions.assertThat(this.calendar.daysJson(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31))).isEqualTo("[]");
+    }
+
+    @Test
+    void should_load_calendar_once_until_reloaded() {
+        this.calendar.typeOf(LocalDate.of(2028, 2, 28));
+        this.calendar.daysJson(LocalDate.of(2028, 2, 28), LocalDate.of(2028, 3, 1));
+        verify(this.dayTypeRepository, times(1)).findAll();
+
+        when(this.dayTypeRepository.findAll()).thenReturn(List.of(day(LocalDate.of(2028, 2, 28), DayType.Type.SPECIAL_DAY)));
+        this.calendar.reload();
+
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2028, 2, 28))).isEqualTo(DayType.Type.SPECIAL_DAY);
+        Assertions.assertThat(this.calendar.typeOf(LocalDate.of(2028, 2, 29))).isNull();
+    }
+}
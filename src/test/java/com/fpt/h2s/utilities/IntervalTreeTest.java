@@ -0,0 +1,104 @@
+package com.fpt.h2s.utilities;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+class IntervalTreeTest {
+
+    private static LocalDate day(final int day) {
+        return LocalDate.of(2030, 1, day);
+    }
+
+    private static IntervalTree<Interval> treeOf(final Interval... intervals) {
+        return IntervalTree.of(List.of(intervals), Interval::from, Interval::to);
+    }
+
+    private static List<String> namesCovering(final IntervalTree<Interval> tree, final int day) {
+        return tree.findAllCovering(day(day)).stream().map(Interval::name).toList();
+    }
+
+    @Test
+    void should_find_nothing_in_empty_tree() {
+        final IntervalTree<Interval> tree = treeOf();
+
+        Assertions.assertThat(tree.isEmpty()).isTrue();
+        Assertions.assertThat(tree.values()).isEmpty();
+        Assertions.assertThat(namesCovering(tree, 1)).isEmpty();
+    }
+
+    @Test
+    void should_include_both_ends_of_intervals() {
+        final IntervalTree<Interval> tree = treeOf(new Interval("a", day(10), day(20)));
+
+        Assertions.assertThat(namesCovering(tree, 9)).isEmpty();
+        Assertions.assertThat(namesCovering(tree, 10)).containsExactly("a");
+        Assertions.assertThat(namesCovering(tree, 20)).containsExactly("a");
+        Assertions.assertThat(namesCovering(tree, 21)).isEmpty();
+    }
+
+    @Test
+    void should_find_single_day_interval() {
+        final IntervalTree<Interval> tree = treeOf(new Interval("a", day(10), day(10)), new Interval("b", day(11), day(11)));
+
+        Assertions.assertThat(namesCovering(tree, 10)).containsExactly("a");
+        Assertions.assertThat(namesCovering(tree, 11)).containsExactly("b");
+    }
+
+    @Test
+    void should_find_nested_intervals_sorted_by_start() {
+        final IntervalTree<Interval> tree = treeOf(
+            new Interval("inner", day(12), day(14)),
+            new Interval("outer", day(1), day(30)),
+            new Interval("middle", day(10), day(20))
+        );
+
+        Assertions.assertThat(namesCovering(tree, 5)).containsExactly("outer");
+        Assertions.assertThat(namesCovering(tree, 12)).containsExactly("outer", "middle", "inner");
+        Assertions.assertThat(namesCovering(tree, 15)).containsExactly("outer", "middle");
+        Assertions.assertThat(namesCovering(tree, 30)).containsExactly("outer");
+        Assertions.assertThat(tree.values()).extracting(Interval::name).containsExactly("outer", "middle", "inner");
+    }
+
+    @Test
+    void should_find_interval_ending_late_behind_intervals_ending_early() {
+        // The long interval starts first, so the subtrees after it only hold intervals ending before the searched day.
+        final IntervalTree<Interval> tree = treeOf(
+            new Interval("long", day(1), day(31)),
+            new Interval("b", day(2), day(3)),
+            new Interval("c", day(4), day(5)),
+            new Interval("d", day(6), day(7)),
+            new Interval("e", day(8), day(9))
+        );
+
+        Assertions.assertThat(namesCovering(tree, 25)).containsExactly("long");
+    }
+
+    @Test
+    void should_find_same_intervals_as_linear_scan() {
+        final List<Interval> intervals = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            final int from = 1 + (i * 7) % 28;
+            final int to = Math.min(31, from + (i * 5) % 9);
+            intervals.add(new Interval("i" + i, day(from), day(to)));
+        }
+        final IntervalTree<Interval> tree = IntervalTree.of(intervals, Interval::from, Interval::to);
+
+        for (int day = 1; day <= 31; day++) {
+            final LocalDate date = day(day);
+            final List<String> expected = intervals
+                .stream()
+                .filter(interval -> !interval.from().isAfter(date) && !interval.to().isBefore(date))
+                .map(Interval::name)
+                .toList();
+            Assertions.assertThat(namesCovering(tree, day)).as("day %d", day).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    private record Interval(String name, LocalDate from, LocalDate to) {
+
+    }
+}
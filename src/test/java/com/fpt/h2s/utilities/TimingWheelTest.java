@@ -0,0 +1,88 @@
+package com.fpt.h2s.utilities;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+class TimingWheelTest {
+
+    private static final int SIZE = 4;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(Duration.ofSeconds(1), SIZE);
+
+    /**
+     * Start of the tick following the creation of the wheel, so every test time is ahead of the wheel.
+     */
+    private final Instant start = Instant.ofEpochSecond(Instant.now().getEpochSecond() + 1);
+
+    private Instant at(final long millis) {
+        return this.start.plusMillis(millis);
+    }
+
+    @Test
+    void should_return_item_once_its_tick_has_elapsed() {
+        this.wheel.add("booking", this.at(1000));
+
+        Assertions.assertThat(this.wheel.advance(this.at(999))).isEmpty();
+        Assertions.assertThat(this.wheel.advance(this.at(1000))).containsExactly("booking");
+        Assertions.assertThat(this.wheel.advance(this.at(2000))).isEmpty();
+    }
+
+    @Test
+    void should_return_item_due_within_current_tick() {
+        this.wheel.add("booking", this.at(1999));
+
+        Assertions.assertThat(this.wheel.advance(this.at(1000))).containsExactly("booking");
+    }
+
+    @Test
+    void should_return_item_whose_deadline_has_passed_on_next_tick() {
+        this.wheel.advance(this.at(3000));
+        this.wheel.add("booking", this.at(0));
+
+        Assertions.assertThat(this.wheel.advance(this.at(3000))).isEmpty();
+        Assertions.assertThat(this.wheel.advance(this.at(4000))).containsExactly("booking");
+    }
+
+    @Test
+    void should_keep_item_due_after_one_revolution_until_its_own_tick() {
+        this.wheel.add("soon", this.at(1000));
+        this.wheel.add("later", this.at((SIZE + 1) * 1000L));
+
+        Assertions.assertThat(this.wheel.advance(this.at(1000))).containsExactly("soon");
+        Assertions.assertThat(this.wheel.advance(this.at(SIZE * 1000L))).isEmpty();
+        Assertions.assertThat(this.wheel.advance(this.at((SIZE + 1) * 1000L))).containsExactly("later");
+    }
+
+    @Test
+    void should_return_every_due_item_when_advancing_past_several_revolutions() {
+        this.wheel.add("first", this.at(1000));
+        this.wheel.add("second", this.at(3000));
+        this.wheel.add("third", this.at((SIZE * 2 + 1) * 1000L));
+
+        Assertions.assertThat(this.wheel.advance(this.at(SIZE * 10 * 1000L))).containsExactlyInAnyOrder("first", "second", "third");
+        Assertions.assertThat(this.wheel.size()).isZero();
+    }
+
+    @Test
+    void should_not_return_cancelled_item() {
+        this.wheel.add("paid", this.at(1000));
+        this.wheel.add("pending", this.at(1000));
+
+        Assertions.assertThat(this.wheel.cancel("paid")).isTrue();
+        Assertions.assertThat(this.wheel.cancel("paid")).isFalse();
+        Assertions.assertThat(this.wheel.advance(this.at(1000))).containsExactly("pending");
+        Assertions.assertThat(this.wheel.cancel("pending")).isFalse();
+    }
+
+    @Test
+    void should_replace_deadline_of_item_added_again() {
+        this.wheel.add("booking", this.at(1000));
+        this.wheel.add("booking", this.at((SIZE + 2) * 1000L));
+
+        Assertions.assertThat(this.wheel.advance(this.at(SIZE * 1000L))).isEmpty();
+        Assertions.assertThat(this.wheel.advance(this.at((SIZE + 2) * 1000L))).containsExactly("booking");
+    }
+}
@@ -0,0 +1,76 @@
+package com.fpt.h2s.utilities;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class TrigramIndexTest {
+
+    private static final String NAME = "name";
+    private static final String ADDRESS = "address";
+
+    private final TrigramIndex index = new TrigramIndex(Map.of(NAME, 2.0, ADDRESS, 1.0));
+
+    @BeforeEach
+    void setUp() {
+        this.index.put(1, Map.of(NAME, "Khách sạn Đà Nẵng", ADDRESS, "Hải Châu"));
+        this.index.put(2, Map.of(NAME, "Nhà nghỉ Hà Nội", ADDRESS, "Hoàn Kiếm, Hà Nội"));
+        this.index.put(3, Map.of(NAME, "Homestay Đà Lạt", ADDRESS, "Phường 1, Đà Lạt"));
+        this.index.put(4, Map.of(NAME, "Villa Biển", ADDRESS, "Ngũ Hành Sơn, Đà Nẵng"));
+        this.index.put(5, Map.of(NAME, "Đà Nẵng Riverside", ADDRESS, "Sơn Trà"));
+    }
+
+    @Test
+    void should_ignore_case_and_vietnamese_diacritics() {
+        Assertions.assertThat(this.index.findAllMatching(NAME, Criteria.CONTAINS, "da nang")).containsExactlyInAnyOrder(1, 5);
+        Assertions.assertThat(this.index.findAllMatching(NAME, Criteria.CONTAINS, "ĐÀ NẴNG")).containsExactlyInAnyOrder(1, 5);
+        Assertions.assertThat(this.index.findAllMatching(NAME, Criteria.ENDS_WITH, "đà lạt")).containsExactly(3);
+        Assertions.assertThat(TrigramIndex.fold("  Đà   Nẵng ")).isEqualTo("da nang");
+    }
+
+    @Test
+    void should_match_values_shorter_than_trigram_against_every_text() {
+        Assertions.assertThat(this.index.findAllMatching(NAME, Criteria.CONTAINS, "ha")).containsExactlyInAnyOrder(1, 2);
+        Assertions.assertThat(this.index.findAllMatching(NAME, Criteria.STARTS_WITH, "Hô")).containsExactly(3);
+        Assertions.assertThat(this.index.findAllMatching(NAME, Criteria.CONTAINS, "")).containsExactlyInAnyOrder(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void should_not_answer_fields_or_operations_which_are_not_indexed() {
+        Assertions.assertThat(this.index.findAllMatching("description", Criteria.CONTAINS, "da nang")).isNull();
+        Assertions.assertThat(this.index.findAllMatching(NAME, Criteria.EQUALS, "da nang")).isNull();
+        Assertions.assertThat(this.index.findAllMatching(NAME, Criteria.CONTAINS, (Object) null)).isNull();
+    }
+
+    @Test
+    void should_rank_prefix_before_substring_and_heavier_fields_first() {
+        // Name starting with the keyword, then name containing it, then address containing it.
+        Assertions.assertThat(this.index.search("Đà Nẵng", 10)).extracting(TrigramIndex.Hit::id).containsExactly(5, 1, 4);
+        Assertions.assertThat(this.index.search("Đà Nẵng", 2)).extracting(TrigramIndex.Hit::id).containsExactly(5, 1);
+    }
+
+    @Test
+    void should_rank_short_keywords_by_prefix_and_substring_only() {
+        Assertions.assertThat(this.index.search("ho", 10)).extracting(TrigramIndex.Hit::id).containsExactly(3, 2);
+    }
+
+    @Test
+    void should_break_ties_by_lowest_id() {
+        this.index.put(7, Map.of(NAME, "Biển Xanh"));
+        this.index.put(6, Map.of(NAME, "Biển Xanh"));
+
+        Assertions.assertThat(this.index.search("bien xanh", 10)).extracting(TrigramIndex.Hit::id).containsExactly(6, 7);
+    }
+
+    @Test
+    void should_forget_texts_of_removed_or_replaced_entities() {
+        this.index.put(5, Map.of(NAME, "Sài Gòn Riverside"));
+        this.index.remove(1);
+
+        Assertions.assertThat(this.index.findAllMatching(NAME, Criteria.CONTAINS, "da nang")).isEmpty();
+        Assertions.assertThat(this.index.search("da nang", 10)).extracting(TrigramIndex.Hit::id).containsExactly(4);
+        Assertions.assertThat(this.index.size(ADDRESS)).isEqualTo(3);
+    }
+}